@@ -5,28 +5,43 @@ import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
 import com.ruchij.api.config.ApplicationConfiguration;
+import com.ruchij.api.config.AuthenticationConfiguration;
+import com.ruchij.api.config.GameCacheConfiguration;
+import com.ruchij.api.config.GameConfiguration;
+import com.ruchij.api.dao.MongoIndexManager;
 import com.ruchij.api.dao.auth.AuthTokenDao;
 import com.ruchij.api.dao.auth.MongoAuthTokenDaoImpl;
+import com.ruchij.api.dao.game.CachingGameDaoImpl;
+import com.ruchij.api.dao.game.CoalescingGameDaoImpl;
+import com.ruchij.api.dao.game.FinishedGameCachingDaoImpl;
 import com.ruchij.api.dao.game.GameDao;
 import com.ruchij.api.dao.game.MongoGameDaoImpl;
+import com.ruchij.api.dao.user.CoalescingUserDaoImpl;
 import com.ruchij.api.dao.user.MongoUserDaoImpl;
 import com.ruchij.api.dao.user.UserDao;
+import com.ruchij.api.metrics.MetricsRegistry;
 import com.ruchij.api.service.auth.AuthenticationService;
 import com.ruchij.api.service.auth.AuthenticationServiceImpl;
+import com.ruchij.api.service.auth.SignedAuthenticationServiceImpl;
+import com.ruchij.api.service.game.BitboardGameEngine;
 import com.ruchij.api.service.game.GameEngine;
 import com.ruchij.api.service.game.GameEngineImpl;
 import com.ruchij.api.service.game.GameService;
 import com.ruchij.api.service.game.GameServiceImpl;
+import com.ruchij.api.service.game.IncrementalGameEngine;
 import com.ruchij.api.service.hashing.BcryptPasswordHashingService;
 import com.ruchij.api.service.hashing.PasswordHashingService;
 import com.ruchij.api.service.health.HealthService;
 import com.ruchij.api.service.health.HealthServiceImpl;
 import com.ruchij.api.service.random.RandomGenerator;
 import com.ruchij.api.service.random.RandomGeneratorImpl;
+import com.ruchij.api.service.user.PooledGuestUserServiceImpl;
 import com.ruchij.api.service.user.UserService;
 import com.ruchij.api.service.user.UserServiceImpl;
 import com.ruchij.api.utils.JsonUtils;
 import com.ruchij.api.web.Routes;
+import com.ruchij.api.web.broadcast.GameUpdatesBroadcaster;
+import com.ruchij.api.web.broadcast.HeartbeatService;
 import com.ruchij.api.web.middleware.ExceptionMapper;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
@@ -37,11 +52,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.time.Clock;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Stream;
 
 public class ApiApp {
     private static final List<String> DEFAULT_ALLOWED_ORIGINS = List.of(
@@ -54,6 +69,7 @@ public class ApiApp {
     );
 
     private static final Logger logger = LoggerFactory.getLogger(ApiApp.class);
+    private static final int HEARTBEAT_TICKS_PER_WHEEL = 10;
 
     public static void main(String[] args) throws IOException {
         Config config = ConfigFactory.load();
@@ -66,7 +82,9 @@ public class ApiApp {
         Properties properties = System.getProperties();
         Clock clock = Clock.systemUTC();
 
-        Routes routes = routes(applicationConfiguration, properties, clock);
+        List<Runnable> shutdownTasks = new ArrayList<>();
+
+        Routes routes = routes(applicationConfiguration, properties, clock, shutdownTasks);
 
         Javalin app = javalin(routes, applicationConfiguration.httpConfiguration().allowedOrigins());
         ExceptionMapper.handle(app);
@@ -77,6 +95,7 @@ public class ApiApp {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             logger.info("Shutting down server...");
             app.stop();
+            shutdownTasks.forEach(Runnable::run);
             logger.info("Server has been shut down.");
         }));
     }
@@ -104,41 +123,177 @@ public class ApiApp {
     private static Routes routes(
         ApplicationConfiguration applicationConfiguration,
         Properties properties,
-        Clock clock
+        Clock clock,
+        List<Runnable> shutdownTasks
     )
         throws IOException {
         String mongoCollectionNamePrefix = applicationConfiguration.mongoConfiguration().collectionNameSuffix();
         MongoClient mongoClient = MongoClients.create(applicationConfiguration.mongoConfiguration().connectionUrl());
         MongoDatabase mongoDatabase = mongoClient.getDatabase(applicationConfiguration.mongoConfiguration().database());
 
-        PasswordHashingService passwordHashingService = new BcryptPasswordHashingService();
-        UserDao userDao = new MongoUserDaoImpl(mongoDatabase, mongoCollectionNamePrefix);
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        PasswordHashingService passwordHashingService =
+            BcryptPasswordHashingService.create(applicationConfiguration.passwordHashingConfiguration(), metricsRegistry);
+
+        MongoUserDaoImpl mongoUserDao = new MongoUserDaoImpl(mongoDatabase, mongoCollectionNamePrefix);
+        MongoAuthTokenDaoImpl mongoAuthTokenDao = new MongoAuthTokenDaoImpl(mongoDatabase, mongoCollectionNamePrefix);
+        MongoAuthTokenDaoImpl mongoRevokedAuthTokenDao =
+            MongoAuthTokenDaoImpl.revokedAuthTokens(mongoDatabase, mongoCollectionNamePrefix);
+        // The game engines only look at the latest gridSize * 2 moves, the rest are only read from the move history
+        int liveMoves = applicationConfiguration.gameConfiguration().gridSize() * 2;
+        MongoGameDaoImpl mongoGameDao = new MongoGameDaoImpl(mongoDatabase, mongoCollectionNamePrefix, liveMoves);
+
+        MongoIndexManager.ensureIndexes(
+            Stream.of(
+                    mongoUserDao.indexes(),
+                    mongoAuthTokenDao.indexes(),
+                    mongoRevokedAuthTokenDao.indexes(),
+                    mongoGameDao.indexes()
+                )
+                .flatMap(List::stream)
+                .toList()
+        );
+
+        UserDao userDao = new CoalescingUserDaoImpl(mongoUserDao, metricsRegistry);
         Faker faker = Faker.instance();
-        RandomGenerator randomGenerator = new RandomGeneratorImpl(userDao, faker);
+        RandomGenerator randomGenerator = RandomGeneratorImpl.create(userDao, faker);
 
         UserService userService = new UserServiceImpl(userDao, passwordHashingService, randomGenerator, clock);
 
-        GameDao gameDao = new MongoGameDaoImpl(mongoDatabase, mongoCollectionNamePrefix);
-        GameEngine gameEngine = new GameEngineImpl();
-        ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
-        GameService gameService = new GameServiceImpl(gameDao, gameEngine, executorService, clock, randomGenerator);
+        if (applicationConfiguration.guestPoolConfiguration().enabled()) {
+            userService = PooledGuestUserServiceImpl.create(
+                userService,
+                applicationConfiguration.guestPoolConfiguration(),
+                Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory()),
+                metricsRegistry
+            );
+        }
+
+        AuthenticationService authenticationService = authenticationService(
+            applicationConfiguration.authenticationConfiguration(),
+            userDao,
+            mongoAuthTokenDao,
+            mongoRevokedAuthTokenDao,
+            passwordHashingService,
+            randomGenerator,
+            clock,
+            metricsRegistry
+        );
+
+        GameDao gameDao = new FinishedGameCachingDaoImpl(
+            mongoGameDao,
+            clock,
+            applicationConfiguration.gameConfiguration().finishedGameCacheConfiguration(),
+            metricsRegistry
+        );
+        GameCacheConfiguration gameCacheConfiguration =
+            applicationConfiguration.gameConfiguration().gameCacheConfiguration();
+
+        if (gameCacheConfiguration.enabled()) {
+            CachingGameDaoImpl cachingGameDao = CachingGameDaoImpl.create(
+                gameDao,
+                gameCacheConfiguration,
+                Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory()),
+                clock,
+                liveMoves
+            );
+
+            shutdownTasks.add(cachingGameDao::flush);
+            gameDao = cachingGameDao;
+        }
+
+        gameDao = new CoalescingGameDaoImpl(gameDao, metricsRegistry);
 
-        AuthTokenDao authTokenDao = new MongoAuthTokenDaoImpl(mongoDatabase, mongoCollectionNamePrefix);
-        AuthenticationService authenticationService =
-            new AuthenticationServiceImpl(userDao, authTokenDao, passwordHashingService, randomGenerator, clock);
+        GameEngine gameEngine = gameEngine(applicationConfiguration.gameConfiguration());
+        GameService gameService = new GameServiceImpl(gameDao, gameEngine, clock, randomGenerator);
+
+        GameUpdatesBroadcaster gameUpdatesBroadcaster = new GameUpdatesBroadcaster(
+            gameService,
+            JsonUtils.objectMapper,
+            Executors.newVirtualThreadPerTaskExecutor(),
+            applicationConfiguration.broadcastConfiguration(),
+            metricsRegistry
+        );
 
         HealthService healthService = HealthServiceImpl.create(mongoDatabase, clock, properties);
 
-        ScheduledExecutorService scheduledExecutorService =
-            Executors.newScheduledThreadPool(1000, Thread.ofVirtual().factory());
+        HeartbeatService heartbeatService = HeartbeatService.create(
+            applicationConfiguration.broadcastConfiguration().heartbeatInterval(),
+            HEARTBEAT_TICKS_PER_WHEEL,
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory()),
+            JsonUtils.objectMapper,
+            clock,
+            metricsRegistry
+        );
 
         return new Routes(
             userService,
             gameService,
             authenticationService,
             healthService,
-            scheduledExecutorService,
-            clock
+            gameUpdatesBroadcaster,
+            metricsRegistry,
+            applicationConfiguration.httpConfiguration().metricsToken(),
+            heartbeatService
+        );
+    }
+
+    private static AuthenticationService authenticationService(
+        AuthenticationConfiguration authenticationConfiguration,
+        UserDao userDao,
+        AuthTokenDao authTokenDao,
+        AuthTokenDao revokedAuthTokenDao,
+        PasswordHashingService passwordHashingService,
+        RandomGenerator randomGenerator,
+        Clock clock,
+        MetricsRegistry metricsRegistry
+    ) {
+        logger.info("Using tokenType={}", authenticationConfiguration.tokenType());
+
+        return switch (authenticationConfiguration.tokenType()) {
+            case Persistent -> new AuthenticationServiceImpl(
+                userDao,
+                authTokenDao,
+                passwordHashingService,
+                randomGenerator,
+                clock,
+                authenticationConfiguration.authenticationCacheConfiguration(),
+                metricsRegistry
+            );
+            case Signed -> SignedAuthenticationServiceImpl.create(
+                userDao,
+                revokedAuthTokenDao,
+                passwordHashingService,
+                clock,
+                authenticationConfiguration.signingKey().orElseThrow(),
+                authenticationConfiguration.authenticationCacheConfiguration(),
+                authenticationConfiguration.tokenRevocationConfiguration(),
+                metricsRegistry,
+                Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory())
+            );
+        };
+    }
+
+    private static GameEngine gameEngine(GameConfiguration gameConfiguration) {
+        logger.info(
+            "Using engine={} with gridSize={} winLength={}",
+            gameConfiguration.engineType(),
+            gameConfiguration.gridSize(),
+            gameConfiguration.winLength()
         );
+
+        if (gameConfiguration.engineType() != GameConfiguration.EngineType.Incremental &&
+            gameConfiguration.winLength() != gameConfiguration.gridSize()) {
+            throw new IllegalArgumentException(
+                "engine=%s only supports winLength equal to gridSize".formatted(gameConfiguration.engineType())
+            );
+        }
+
+        return switch (gameConfiguration.engineType()) {
+            case Default -> new GameEngineImpl(gameConfiguration.gridSize());
+            case Bitboard -> new BitboardGameEngine(gameConfiguration.gridSize());
+            case Incremental ->
+                new IncrementalGameEngine(gameConfiguration.gridSize(), gameConfiguration.winLength());
+        };
     }
 }
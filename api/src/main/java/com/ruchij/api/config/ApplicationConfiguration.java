@@ -2,11 +2,24 @@ package com.ruchij.api.config;
 
 import com.typesafe.config.Config;
 
-public record ApplicationConfiguration(MongoConfiguration mongoConfiguration, HttpConfiguration httpConfiguration) {
+public record ApplicationConfiguration(
+    MongoConfiguration mongoConfiguration,
+    HttpConfiguration httpConfiguration,
+    GameConfiguration gameConfiguration,
+    BroadcastConfiguration broadcastConfiguration,
+    AuthenticationConfiguration authenticationConfiguration,
+    PasswordHashingConfiguration passwordHashingConfiguration,
+    GuestPoolConfiguration guestPoolConfiguration
+) {
     public static ApplicationConfiguration parse(Config config) {
         return new ApplicationConfiguration(
             MongoConfiguration.parse(config.getConfig("mongo")),
-            HttpConfiguration.parse(config.getConfig("http"))
+            HttpConfiguration.parse(config.getConfig("http")),
+            GameConfiguration.parse(config.getConfig("game")),
+            BroadcastConfiguration.parse(config.getConfig("broadcast")),
+            AuthenticationConfiguration.parse(config.getConfig("authentication")),
+            PasswordHashingConfiguration.parse(config.getConfig("password-hashing")),
+            GuestPoolConfiguration.parse(config.getConfig("guest-pool"))
         );
     }
 }
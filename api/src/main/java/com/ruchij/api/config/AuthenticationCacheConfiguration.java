@@ -0,0 +1,14 @@
+package com.ruchij.api.config;
+
+import com.typesafe.config.Config;
+
+import java.time.Duration;
+
+public record AuthenticationCacheConfiguration(int maxSize, Duration ttl) {
+    public static AuthenticationCacheConfiguration parse(Config config) {
+        int maxSize = config.getInt("max-size");
+        Duration ttl = config.getDuration("ttl");
+
+        return new AuthenticationCacheConfiguration(maxSize, ttl);
+    }
+}
@@ -0,0 +1,56 @@
+package com.ruchij.api.config;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+public record AuthenticationConfiguration(
+    TokenType tokenType,
+    Optional<String> signingKey,
+    AuthenticationCacheConfiguration authenticationCacheConfiguration,
+    TokenRevocationConfiguration tokenRevocationConfiguration
+) {
+    private static final int MIN_SIGNING_KEY_LENGTH = 32;
+
+    public enum TokenType {
+        /**
+         * Random tokens which are looked up in the auth tokens collection
+         */
+        Persistent,
+        /**
+         * Self-contained tokens signed with the signing key, only revoked tokens are stored in the auth tokens collection
+         */
+        Signed
+    }
+
+    public static AuthenticationConfiguration parse(Config config) {
+        TokenType tokenType =
+            ConfigReaders.optionalConfig(() -> config.getEnum(TokenType.class, "token-type"))
+                .orElse(TokenType.Persistent);
+
+        Optional<String> signingKey = ConfigReaders.optionalConfig(() -> config.getString("signing-key"));
+
+        if (tokenType == TokenType.Signed &&
+            signingKey.filter(key -> key.getBytes(StandardCharsets.UTF_8).length >= MIN_SIGNING_KEY_LENGTH).isEmpty()) {
+            throw new ConfigException.BadValue(
+                "signing-key",
+                "must be at least %s bytes when token-type=%s".formatted(MIN_SIGNING_KEY_LENGTH, tokenType)
+            );
+        }
+
+        AuthenticationCacheConfiguration authenticationCacheConfiguration =
+            AuthenticationCacheConfiguration.parse(config.getConfig("cache"));
+
+        TokenRevocationConfiguration tokenRevocationConfiguration =
+            TokenRevocationConfiguration.parse(config.getConfig("revocations"));
+
+        return new AuthenticationConfiguration(
+            tokenType,
+            signingKey,
+            authenticationCacheConfiguration,
+            tokenRevocationConfiguration
+        );
+    }
+}
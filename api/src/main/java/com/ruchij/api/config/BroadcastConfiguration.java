@@ -0,0 +1,37 @@
+package com.ruchij.api.config;
+
+import com.typesafe.config.Config;
+
+import java.time.Duration;
+
+public record BroadcastConfiguration(int queueCapacity, OverflowPolicy overflowPolicy, Duration heartbeatInterval) {
+    /**
+     * What happens when a subscriber falls {@code queueCapacity} frames behind
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop pings first and then replace the queued updates with a single snapshot of the latest game state
+         */
+        Coalesce,
+        /**
+         * Drop pings, and disconnect the subscriber when only game updates are queued
+         */
+        DropPings,
+        /**
+         * Disconnect the subscriber
+         */
+        Disconnect
+    }
+
+    public static BroadcastConfiguration parse(Config config) {
+        int queueCapacity = config.getInt("queue-capacity");
+
+        OverflowPolicy overflowPolicy =
+            ConfigReaders.optionalConfig(() -> config.getEnum(OverflowPolicy.class, "overflow-policy"))
+                .orElse(OverflowPolicy.Coalesce);
+
+        Duration heartbeatInterval = config.getDuration("heartbeat-interval");
+
+        return new BroadcastConfiguration(queueCapacity, overflowPolicy, heartbeatInterval);
+    }
+}
@@ -0,0 +1,15 @@
+package com.ruchij.api.config;
+
+import com.typesafe.config.Config;
+
+import java.time.Duration;
+
+public record FinishedGameCacheConfiguration(int maxSize, int missesMaxSize, Duration missTtl) {
+    public static FinishedGameCacheConfiguration parse(Config config) {
+        int maxSize = config.getInt("max-size");
+        int missesMaxSize = config.getInt("misses-max-size");
+        Duration missTtl = config.getDuration("miss-ttl");
+
+        return new FinishedGameCacheConfiguration(maxSize, missesMaxSize, missTtl);
+    }
+}
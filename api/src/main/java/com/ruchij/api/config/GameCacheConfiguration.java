@@ -0,0 +1,16 @@
+package com.ruchij.api.config;
+
+import com.typesafe.config.Config;
+
+import java.time.Duration;
+
+public record GameCacheConfiguration(boolean enabled, int maxSize, Duration idleTimeout, Duration flushInterval) {
+    public static GameCacheConfiguration parse(Config config) {
+        boolean enabled = ConfigReaders.optionalConfig(() -> config.getBoolean("enabled")).orElse(false);
+        int maxSize = config.getInt("max-size");
+        Duration idleTimeout = config.getDuration("idle-timeout");
+        Duration flushInterval = config.getDuration("flush-interval");
+
+        return new GameCacheConfiguration(enabled, maxSize, idleTimeout, flushInterval);
+    }
+}
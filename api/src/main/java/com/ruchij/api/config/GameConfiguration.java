@@ -0,0 +1,35 @@
+package com.ruchij.api.config;
+
+import com.typesafe.config.Config;
+
+public record GameConfiguration(
+    EngineType engineType,
+    int gridSize,
+    int winLength,
+    GameCacheConfiguration gameCacheConfiguration,
+    FinishedGameCacheConfiguration finishedGameCacheConfiguration
+) {
+    public enum EngineType {
+        Default, Bitboard, Incremental
+    }
+
+    public static GameConfiguration parse(Config config) {
+        EngineType engineType =
+            ConfigReaders.optionalConfig(() -> config.getEnum(EngineType.class, "engine"))
+                .orElse(EngineType.Default);
+
+        int gridSize = ConfigReaders.optionalConfig(() -> config.getInt("grid-size")).orElse(3);
+        int winLength = ConfigReaders.optionalConfig(() -> config.getInt("win-length")).orElse(gridSize);
+        GameCacheConfiguration gameCacheConfiguration = GameCacheConfiguration.parse(config.getConfig("cache"));
+        FinishedGameCacheConfiguration finishedGameCacheConfiguration =
+            FinishedGameCacheConfiguration.parse(config.getConfig("finished-cache"));
+
+        return new GameConfiguration(
+            engineType,
+            gridSize,
+            winLength,
+            gameCacheConfiguration,
+            finishedGameCacheConfiguration
+        );
+    }
+}
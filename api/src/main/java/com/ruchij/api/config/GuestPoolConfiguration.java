@@ -0,0 +1,22 @@
+package com.ruchij.api.config;
+
+import com.typesafe.config.Config;
+
+import java.time.Duration;
+
+public record GuestPoolConfiguration(boolean enabled, int lowWatermark, int highWatermark, Duration refillInterval) {
+    public static GuestPoolConfiguration parse(Config config) {
+        boolean enabled = ConfigReaders.optionalConfig(() -> config.getBoolean("enabled")).orElse(false);
+        int lowWatermark = config.getInt("low-watermark");
+        int highWatermark = config.getInt("high-watermark");
+        Duration refillInterval = config.getDuration("refill-interval");
+
+        if (lowWatermark > highWatermark) {
+            throw new IllegalArgumentException(
+                "low-watermark=%s must not exceed high-watermark=%s".formatted(lowWatermark, highWatermark)
+            );
+        }
+
+        return new GuestPoolConfiguration(enabled, lowWatermark, highWatermark, refillInterval);
+    }
+}
@@ -4,8 +4,12 @@ import com.typesafe.config.Config;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
-public record HttpConfiguration(int port, List<String> allowedOrigins) {
+/**
+ * @param metricsToken the bearer token of GET /service/metrics, which is not served when no token is configured
+ */
+public record HttpConfiguration(int port, List<String> allowedOrigins, Optional<String> metricsToken) {
     public static HttpConfiguration parse(Config config) {
         int port = config.getInt("port");
 
@@ -17,6 +21,9 @@ public record HttpConfiguration(int port, List<String> allowedOrigins) {
                 .filter(host -> !host.isEmpty())
                 .toList();
 
-        return new HttpConfiguration(port, allowedOrigins);
+        Optional<String> metricsToken = ConfigReaders.optionalConfig(() -> config.getString("metrics-token"))
+            .filter(token -> !token.isBlank());
+
+        return new HttpConfiguration(port, allowedOrigins, metricsToken);
     }
 }
\ No newline at end of file
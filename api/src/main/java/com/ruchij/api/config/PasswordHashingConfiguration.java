@@ -0,0 +1,19 @@
+package com.ruchij.api.config;
+
+import com.typesafe.config.Config;
+
+import java.time.Duration;
+
+public record PasswordHashingConfiguration(int threads, int queueCapacity, Duration latencyBudget, int minCost) {
+    public static PasswordHashingConfiguration parse(Config config) {
+        // Leaves the rest of the cores to the carrier threads of the request handlers
+        int threads = ConfigReaders.optionalConfig(() -> config.getInt("threads"))
+            .orElse(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+        int queueCapacity = config.getInt("queue-capacity");
+        Duration latencyBudget = config.getDuration("latency-budget");
+        int minCost = config.getInt("min-cost");
+
+        return new PasswordHashingConfiguration(threads, queueCapacity, latencyBudget, minCost);
+    }
+}
@@ -0,0 +1,14 @@
+package com.ruchij.api.config;
+
+import com.typesafe.config.Config;
+
+import java.time.Duration;
+
+public record TokenRevocationConfiguration(int expectedCount, Duration reloadInterval) {
+    public static TokenRevocationConfiguration parse(Config config) {
+        int expectedCount = config.getInt("expected-count");
+        Duration reloadInterval = config.getDuration("reload-interval");
+
+        return new TokenRevocationConfiguration(expectedCount, reloadInterval);
+    }
+}
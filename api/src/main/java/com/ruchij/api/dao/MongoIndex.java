@@ -0,0 +1,23 @@
+package com.ruchij.api.dao;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import org.bson.conversions.Bson;
+
+/**
+ * An index which a DAO needs for the queries it issues
+ */
+public record MongoIndex(MongoCollection<?> collection, Bson keys, IndexOptions indexOptions) {
+    public MongoIndex(MongoCollection<?> collection, Bson keys) {
+        this(collection, keys, new IndexOptions());
+    }
+
+    /**
+     * Creates the index unless an identical index already exists
+     *
+     * @return the name of the index
+     */
+    public String create() {
+        return this.collection.createIndex(this.keys, this.indexOptions);
+    }
+}
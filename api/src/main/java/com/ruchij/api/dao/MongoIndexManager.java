@@ -0,0 +1,50 @@
+package com.ruchij.api.dao;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoServerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class MongoIndexManager {
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexManager.class);
+
+    /**
+     * Creates the missing indexes in parallel and waits for all of them, so that no query runs before its index exists
+     */
+    public static void ensureIndexes(List<MongoIndex> mongoIndexes) {
+        try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> indexNames = mongoIndexes.stream()
+                .map(mongoIndex -> executorService.submit(mongoIndex::create))
+                .toList();
+
+            for (int i = 0; i < mongoIndexes.size(); i++) {
+                String indexName = indexNames.get(i).get();
+
+                logger.info(
+                    "Ensured index={} on collection={}",
+                    indexName,
+                    mongoIndexes.get(i).collection().getNamespace().getCollectionName()
+                );
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while creating indexes", interruptedException);
+        } catch (ExecutionException executionException) {
+            if (executionException.getCause() instanceof MongoServerException mongoServerException &&
+                ErrorCategory.fromErrorCode(mongoServerException.getCode()) == ErrorCategory.DUPLICATE_KEY) {
+                throw new IllegalStateException(
+                    "Unable to create a unique index as documents share the same key, these have to be removed or updated first",
+                    mongoServerException
+                );
+            }
+
+            throw new IllegalStateException("Unable to create index", executionException.getCause());
+        }
+    }
+}
@@ -2,12 +2,21 @@ package com.ruchij.api.dao.auth;
 
 import com.ruchij.api.dao.auth.models.AuthToken;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface AuthTokenDao {
+    /**
+     * Auth tokens are deleted once they are this old
+     */
+    Duration TOKEN_TTL = Duration.ofDays(30);
+
     AuthToken insert(AuthToken authToken);
 
     Optional<AuthToken> findByToken(String token);
 
     Optional<AuthToken> deleteByToken(String token);
+
+    void forEach(Consumer<AuthToken> consumer);
 }
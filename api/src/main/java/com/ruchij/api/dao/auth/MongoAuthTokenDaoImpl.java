@@ -7,18 +7,42 @@ import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.InsertOneResult;
+import com.ruchij.api.dao.MongoIndex;
 import com.ruchij.api.dao.auth.models.AuthToken;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class MongoAuthTokenDaoImpl implements AuthTokenDao {
     private final MongoCollection<AuthToken> authTokenCollection;
 
     public MongoAuthTokenDaoImpl(MongoDatabase mongoDatabase, String collectionNameSuffix) {
-        this.authTokenCollection = mongoDatabase.getCollection("auth-tokens-%s".formatted(collectionNameSuffix), AuthToken.class);
-        this.authTokenCollection.createIndex(
-            Indexes.ascending("issuedAt"), new IndexOptions().expireAfter(30L, TimeUnit.DAYS)
+        this(mongoDatabase.getCollection("auth-tokens-%s".formatted(collectionNameSuffix), AuthToken.class));
+    }
+
+    private MongoAuthTokenDaoImpl(MongoCollection<AuthToken> authTokenCollection) {
+        this.authTokenCollection = authTokenCollection;
+    }
+
+    /**
+     * Stores revoked signed tokens. These are kept apart from the auth tokens collection, which the persistent tokens
+     * use as an allow-list, so that revoked tokens never become valid sessions when the token type is switched.
+     */
+    public static MongoAuthTokenDaoImpl revokedAuthTokens(MongoDatabase mongoDatabase, String collectionNameSuffix) {
+        return new MongoAuthTokenDaoImpl(
+            mongoDatabase.getCollection("revoked-auth-tokens-%s".formatted(collectionNameSuffix), AuthToken.class)
+        );
+    }
+
+    public List<MongoIndex> indexes() {
+        return List.of(
+            new MongoIndex(
+                this.authTokenCollection,
+                Indexes.ascending("issuedAt"),
+                new IndexOptions().expireAfter(TOKEN_TTL.toSeconds(), TimeUnit.SECONDS)
+            )
         );
     }
 
@@ -41,4 +65,9 @@ public class MongoAuthTokenDaoImpl implements AuthTokenDao {
             return authToken;
         });
     }
+
+    @Override
+    public void forEach(Consumer<AuthToken> consumer) {
+        this.authTokenCollection.find().forEach(consumer);
+    }
 }
@@ -0,0 +1,514 @@
+package com.ruchij.api.dao.game;
+
+import com.ruchij.api.config.GameCacheConfiguration;
+import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.dao.game.models.PageCursor;
+import com.ruchij.api.dao.game.models.PendingGame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link GameDao} which keeps started but unfinished games in memory in front of another {@link GameDao}.
+ * Appended moves are applied to the cached game and written behind to the underlying DAO at most
+ * {@code flushInterval} later, while finished games are written through straight away and leave the cache.
+ * Cached games hold their latest {@code liveMoves} moves and the moves which have not been written yet.
+ * When moves which were written behind conflict with a change made outside of this cache, the next append to the game
+ * is rejected, so the conflict surfaces to its players instead of the moves going missing unnoticed.
+ */
+public class CachingGameDaoImpl implements GameDao {
+    private static final Logger logger = LoggerFactory.getLogger(CachingGameDaoImpl.class);
+
+    private final GameDao gameDao;
+    private final Clock clock;
+    private final int maxSize;
+    private final Duration idleTimeout;
+    private final int liveMoves;
+    private final Map<String, CachedGame> activeGames = new ConcurrentHashMap<>();
+    private final Set<String> conflictedGameIds = ConcurrentHashMap.newKeySet();
+    // Orders the accesses of games, so that the least recently accessed games are evicted first
+    private final AtomicLong accesses = new AtomicLong();
+
+    public CachingGameDaoImpl(GameDao gameDao, Clock clock, int maxSize, Duration idleTimeout, int liveMoves) {
+        this.gameDao = gameDao;
+        this.clock = clock;
+        this.maxSize = maxSize;
+        this.idleTimeout = idleTimeout;
+        this.liveMoves = liveMoves;
+    }
+
+    public static CachingGameDaoImpl create(
+        GameDao gameDao,
+        GameCacheConfiguration gameCacheConfiguration,
+        ScheduledExecutorService scheduledExecutorService,
+        Clock clock,
+        int liveMoves
+    ) {
+        CachingGameDaoImpl cachingGameDao = new CachingGameDaoImpl(
+            gameDao,
+            clock,
+            gameCacheConfiguration.maxSize(),
+            gameCacheConfiguration.idleTimeout(),
+            liveMoves
+        );
+
+        long flushInterval = gameCacheConfiguration.flushInterval().toMillis();
+
+        scheduledExecutorService.scheduleWithFixedDelay(
+            () -> {
+                try {
+                    cachingGameDao.flush();
+                    cachingGameDao.evictIdleGames();
+                } catch (Exception exception) {
+                    logger.error("Error flushing active games", exception);
+                }
+            },
+            flushInterval,
+            flushInterval,
+            TimeUnit.MILLISECONDS
+        );
+
+        return cachingGameDao;
+    }
+
+    @Override
+    public PendingGame insertPendingGame(PendingGame pendingGame) {
+        return this.gameDao.insertPendingGame(pendingGame);
+    }
+
+    @Override
+    public Optional<PendingGame> updatePendingGame(PendingGame pendingGame) {
+        return this.gameDao.updatePendingGame(pendingGame);
+    }
+
+    @Override
+    public Optional<PendingGame> findPendingGameById(String pendingGameId) {
+        return this.gameDao.findPendingGameById(pendingGameId);
+    }
+
+    @Override
+    public Game insertGame(Game game) {
+        Game insertedGame = this.gameDao.insertGame(game);
+
+        if (game.winner().isEmpty()) {
+            this.cache(game);
+        }
+
+        return insertedGame;
+    }
+
+    @Override
+    public Optional<Game> findGameById(String gameId) {
+        Optional<Game> cachedGame = this.cachedGame(gameId, true);
+
+        if (cachedGame.isPresent()) {
+            return cachedGame;
+        }
+
+        Optional<Game> game = this.gameDao.findGameById(gameId);
+
+        return game.map(persistedGame -> persistedGame.winner().isEmpty() ? this.cache(persistedGame) : persistedGame);
+    }
+
+    @Override
+    public Optional<Game> updateGame(Game game) {
+        CachedGame cachedGame = this.activeGames.get(game.id());
+        this.conflictedGameIds.remove(game.id());
+
+        if (cachedGame == null) {
+            return this.gameDao.updateGame(game);
+        }
+
+        this.evict(cachedGame);
+
+        // Replacing the whole game supersedes any moves which have not been written yet
+        cachedGame.writeLock.lock();
+
+        try {
+            return this.gameDao.updateGame(game);
+        } finally {
+            cachedGame.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean appendMoves(Game appendedGame, int expectedMoveCount, List<Game.Move> moves, Optional<Game.Winner> winner) {
+        String gameId = appendedGame.id();
+
+        if (this.conflictedGameIds.remove(gameId)) {
+            return false;
+        }
+
+        CachedGame cachedGame = this.activeGames.get(gameId);
+        boolean isCached = false;
+
+        if (cachedGame != null) {
+            synchronized (cachedGame) {
+                if (!cachedGame.isEvicted) {
+                    isCached = true;
+                    Game game = cachedGame.game;
+
+                    if (game.winner().isPresent() || game.moveCount() != expectedMoveCount) {
+                        return false;
+                    }
+
+                    List<Game.Move> updatedMoves = new ArrayList<>(game.moves().size() + moves.size());
+                    updatedMoves.addAll(game.moves());
+                    updatedMoves.addAll(moves);
+
+                    Game updatedGame = new Game(
+                        game.id(),
+                        game.title(),
+                        game.createdAt(),
+                        game.createdBy(),
+                        game.startedAt(),
+                        game.playerOneId(),
+                        game.playerTwoId(),
+                        updatedMoves,
+                        winner,
+                        game.moveOffset()
+                    );
+
+                    int unpersistedMoveCount = updatedGame.moveCount() - cachedGame.persistedMoveCount;
+
+                    cachedGame.update(
+                        updatedGame.withLatestMoves(Math.max(this.liveMoves, unpersistedMoveCount)),
+                        this.clock.instant(),
+                        this.accesses.incrementAndGet()
+                    );
+                }
+            }
+        }
+
+        if (!isCached) {
+            return this.gameDao.appendMoves(appendedGame, expectedMoveCount, moves, winner);
+        }
+
+        // Finished games are written through and leave the cache, so they are never only held in memory.
+        // When the write throws, the game stays cached and the write is retried by the next flush, while a conflicting
+        // write is reported to this caller straight away.
+        if (winner.isPresent()) {
+            boolean isApplied = this.write(cachedGame);
+
+            this.evict(cachedGame);
+
+            if (!isApplied) {
+                this.conflictedGameIds.remove(gameId);
+            }
+
+            return isApplied;
+        }
+
+        return true;
+    }
+
+    @Override
+    public Optional<List<Game.Move>> findMoves(String gameId, int limit, int offset) {
+        Optional<Game> cachedGame = this.cachedGame(gameId, false);
+
+        if (cachedGame.isEmpty()) {
+            return this.gameDao.findMoves(gameId, limit, offset);
+        }
+
+        Game game = cachedGame.get();
+
+        // The moves which the cached game holds may not have been written yet
+        if (offset >= game.moveOffset()) {
+            return Optional.of(game.heldMoves(limit, offset));
+        }
+
+        List<Game.Move> moves = new ArrayList<>(
+            this.gameDao.findMoves(gameId, Math.min(limit, game.moveOffset() - offset), offset).orElse(List.of())
+        );
+        moves.addAll(game.heldMoves(limit - moves.size(), offset + moves.size()));
+
+        return Optional.of(moves);
+    }
+
+    @Override
+    public List<Game> findGamesByPlayerId(String playerId, int limit, int offset) {
+        return withCachedGames(this.gameDao.findGamesByPlayerId(playerId, limit, offset));
+    }
+
+    @Override
+    public List<Game> findGamesByPlayerId(String playerId, int limit, Optional<PageCursor> cursor) {
+        return withCachedGames(this.gameDao.findGamesByPlayerId(playerId, limit, cursor));
+    }
+
+    /**
+     * Replaces the games which are cached with their cached state, which may not have been written yet
+     */
+    private List<Game> withCachedGames(List<Game> games) {
+        return games.stream().map(game -> this.cachedGame(game.id(), false).orElse(game)).toList();
+    }
+
+    /**
+     * @param isAccess whether the read counts as an access of the game, which keeps it cached
+     * @return a copy of the cached game, which is empty when the game is not cached
+     */
+    private Optional<Game> cachedGame(String gameId, boolean isAccess) {
+        CachedGame cachedGame = this.activeGames.get(gameId);
+
+        if (cachedGame == null) {
+            return Optional.empty();
+        }
+
+        synchronized (cachedGame) {
+            if (cachedGame.isEvicted) {
+                return Optional.empty();
+            }
+
+            if (isAccess) {
+                cachedGame.access(this.clock.instant(), this.accesses.incrementAndGet());
+            }
+
+            return Optional.of(cachedGame.game.copy());
+        }
+    }
+
+    @Override
+    public List<PendingGame> getPendingGames(int limit, int offset) {
+        return this.gameDao.getPendingGames(limit, offset);
+    }
+
+    @Override
+    public List<PendingGame> getPendingGamesByPlayerId(String playerId, int limit, int offset) {
+        return this.gameDao.getPendingGamesByPlayerId(playerId, limit, offset);
+    }
+
+    @Override
+    public List<PendingGame> getPendingGames(int limit, Optional<PageCursor> cursor) {
+        return this.gameDao.getPendingGames(limit, cursor);
+    }
+
+    @Override
+    public List<PendingGame> getPendingGamesByPlayerId(String playerId, int limit, Optional<PageCursor> cursor) {
+        return this.gameDao.getPendingGamesByPlayerId(playerId, limit, cursor);
+    }
+
+    /**
+     * Writes every game which has been updated since it was last written to the underlying {@link GameDao}
+     */
+    public void flush() {
+        this.activeGames.values().stream().filter(CachedGame::isDirty).toList().forEach(this::tryWrite);
+    }
+
+    void evictIdleGames() {
+        Instant idleSince = this.clock.instant().minus(this.idleTimeout);
+        List<CachedGame> idleDirtyGames = new ArrayList<>();
+
+        for (CachedGame cachedGame : this.activeGames.values()) {
+            synchronized (cachedGame) {
+                if (cachedGame.lastAccessedAt.isBefore(idleSince)) {
+                    if (cachedGame.dirty) {
+                        idleDirtyGames.add(cachedGame);
+                    } else {
+                        this.evict(cachedGame);
+                    }
+                }
+            }
+        }
+
+        // Idle games which could not be written stay cached until the next attempt
+        idleDirtyGames.forEach(this::tryWriteAndEvict);
+    }
+
+    int size() {
+        return this.activeGames.size();
+    }
+
+    private Game cache(Game game) {
+        CachedGame cachedGame = this.activeGames.computeIfAbsent(
+            game.id(),
+            gameId -> new CachedGame(
+                game.withLatestMoves(this.liveMoves).copy(),
+                this.clock.instant(),
+                this.accesses.incrementAndGet()
+            )
+        );
+
+        Game cached;
+
+        synchronized (cachedGame) {
+            cached = cachedGame.game.copy();
+        }
+
+        this.evictOverflowGames();
+
+        return cached;
+    }
+
+    /**
+     * Evicts the least recently accessed games while the cache holds more than {@code maxSize} games. The access order
+     * is only looked at once the cache is full, so that accesses only update their own game.
+     */
+    private void evictOverflowGames() {
+        int overflow = this.activeGames.size() - this.maxSize;
+
+        if (overflow <= 0) {
+            return;
+        }
+
+        List<CachedGame> overflowGames = new ArrayList<>();
+
+        this.activeGames.values().stream()
+            .map(cachedGame -> Map.entry(cachedGame.lastAccess, cachedGame))
+            .sorted(Map.Entry.comparingByKey())
+            .limit(overflow)
+            .map(Map.Entry::getValue)
+            .forEach(eldestGame -> {
+                synchronized (eldestGame) {
+                    if (eldestGame.dirty) {
+                        overflowGames.add(eldestGame);
+                    } else {
+                        this.evict(eldestGame);
+                    }
+                }
+            });
+
+        overflowGames.forEach(this::tryWriteAndEvict);
+    }
+
+    private void tryWriteAndEvict(CachedGame cachedGame) {
+        if (this.tryWrite(cachedGame)) {
+            synchronized (cachedGame) {
+                if (!cachedGame.dirty) {
+                    this.evict(cachedGame);
+                }
+            }
+        }
+    }
+
+    private void evict(CachedGame cachedGame) {
+        synchronized (cachedGame) {
+            cachedGame.isEvicted = true;
+            this.activeGames.remove(cachedGame.game.id(), cachedGame);
+        }
+    }
+
+    private boolean tryWrite(CachedGame cachedGame) {
+        try {
+            return this.write(cachedGame);
+        } catch (Exception exception) {
+            logger.error("Unable to write gameId={}", cachedGame.game.id(), exception);
+            return false;
+        }
+    }
+
+    /**
+     * Appends the moves of the cached game which have not been written yet. Writes of the same game are serialized,
+     * so they are always applied in order.
+     *
+     * @return false when the underlying game was modified outside of this cache, in which case the game is evicted
+     * and the next append to it is rejected
+     */
+    private boolean write(CachedGame cachedGame) {
+        cachedGame.writeLock.lock();
+
+        try {
+            Game game;
+            long version;
+            int persistedMoveCount;
+
+            synchronized (cachedGame) {
+                if (!cachedGame.dirty) {
+                    return true;
+                }
+
+                game = cachedGame.game;
+                version = cachedGame.version;
+                persistedMoveCount = cachedGame.persistedMoveCount;
+            }
+
+            List<Game.Move> unpersistedMoves =
+                game.moves().subList(persistedMoveCount - game.moveOffset(), game.moves().size());
+            boolean isApplied =
+                this.gameDao.appendMoves(game, persistedMoveCount, unpersistedMoves, game.winner()) ||
+                    this.isWritten(game.id(), persistedMoveCount, unpersistedMoves);
+
+            synchronized (cachedGame) {
+                if (!isApplied) {
+                    this.evict(cachedGame);
+                    this.conflictedGameIds.add(game.id());
+
+                    logger.error(
+                        "Unable to write moveIds={} of gameId={} as it was modified outside of the cache",
+                        unpersistedMoves.stream().map(Game.Move::id).toList(),
+                        game.id()
+                    );
+
+                    return false;
+                }
+
+                cachedGame.persistedMoveCount = game.moveCount();
+
+                if (cachedGame.version == version) {
+                    cachedGame.dirty = false;
+                }
+
+                return true;
+            }
+        } finally {
+            cachedGame.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Whether the moves are already stored from the move count onwards, which is the case when an earlier write of
+     * them was applied but failed to be acknowledged
+     */
+    private boolean isWritten(String gameId, int moveCount, List<Game.Move> moves) {
+        List<String> moveIds = moves.stream().map(Game.Move::id).toList();
+
+        return this.gameDao.findMoves(gameId, moves.size(), moveCount)
+            .map(storedMoves -> storedMoves.stream().map(Game.Move::id).toList().equals(moveIds))
+            .orElse(false);
+    }
+
+    /**
+     * The state of a cached game is guarded by its own monitor, so games are read and updated independently of each
+     * other
+     */
+    private static final class CachedGame {
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private Game game;
+        private Instant lastAccessedAt;
+        private volatile long lastAccess;
+        private long version;
+        private boolean dirty;
+        private boolean isEvicted;
+        private int persistedMoveCount;
+
+        private CachedGame(Game game, Instant lastAccessedAt, long lastAccess) {
+            this.game = game;
+            this.lastAccessedAt = lastAccessedAt;
+            this.lastAccess = lastAccess;
+            this.persistedMoveCount = game.moveCount();
+        }
+
+        private synchronized void access(Instant timestamp, long access) {
+            this.lastAccessedAt = timestamp;
+            this.lastAccess = access;
+        }
+
+        private synchronized void update(Game game, Instant timestamp, long access) {
+            this.game = game;
+            this.access(timestamp, access);
+            this.version++;
+            this.dirty = true;
+        }
+
+        private synchronized boolean isDirty() {
+            return this.dirty;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.ruchij.api.dao.game;
+
+import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.dao.game.models.PageCursor;
+import com.ruchij.api.dao.game.models.PendingGame;
+import com.ruchij.api.metrics.MetricsRegistry;
+import com.ruchij.api.utils.SingleFlight;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link GameDao} where concurrent reads of the same game or pending game share a single read of another
+ * {@link GameDao}, e.g. when the spectators of a game all read it right after a move. Reads which start after a
+ * write of the game, such as the read of the next move, never share a read which started before it. Every caller
+ * receives its own copy of a shared game, since games are modified by their readers.
+ */
+public class CoalescingGameDaoImpl implements GameDao {
+    private final GameDao gameDao;
+    private final SingleFlight<String, Optional<Game>> gameReads;
+    private final SingleFlight<String, Optional<PendingGame>> pendingGameReads;
+
+    public CoalescingGameDaoImpl(GameDao gameDao, MetricsRegistry metricsRegistry) {
+        this.gameDao = gameDao;
+        this.gameReads = new SingleFlight<>("single-flight.games", metricsRegistry);
+        this.pendingGameReads = new SingleFlight<>("single-flight.pending-games", metricsRegistry);
+    }
+
+    @Override
+    public PendingGame insertPendingGame(PendingGame pendingGame) {
+        try {
+            return this.gameDao.insertPendingGame(pendingGame);
+        } finally {
+            this.pendingGameReads.forget(pendingGame.id());
+        }
+    }
+
+    @Override
+    public Optional<PendingGame> updatePendingGame(PendingGame pendingGame) {
+        try {
+            return this.gameDao.updatePendingGame(pendingGame);
+        } finally {
+            this.pendingGameReads.forget(pendingGame.id());
+        }
+    }
+
+    @Override
+    public Optional<PendingGame> findPendingGameById(String pendingGameId) {
+        return this.pendingGameReads.execute(pendingGameId, () -> this.gameDao.findPendingGameById(pendingGameId));
+    }
+
+    @Override
+    public Game insertGame(Game game) {
+        try {
+            return this.gameDao.insertGame(game);
+        } finally {
+            this.gameReads.forget(game.id());
+        }
+    }
+
+    @Override
+    public Optional<Game> findGameById(String gameId) {
+        return this.gameReads.execute(gameId, () -> this.gameDao.findGameById(gameId)).map(Game::copy);
+    }
+
+    @Override
+    public Optional<Game> updateGame(Game game) {
+        try {
+            return this.gameDao.updateGame(game);
+        } finally {
+            this.gameReads.forget(game.id());
+        }
+    }
+
+    @Override
+    public boolean appendMoves(Game game, int expectedMoveCount, List<Game.Move> moves, Optional<Game.Winner> winner) {
+        // A write which throws may still have been applied, so its game is forgotten either way
+        try {
+            return this.gameDao.appendMoves(game, expectedMoveCount, moves, winner);
+        } finally {
+            this.gameReads.forget(game.id());
+        }
+    }
+
+    @Override
+    public Optional<List<Game.Move>> findMoves(String gameId, int limit, int offset) {
+        return this.gameDao.findMoves(gameId, limit, offset);
+    }
+
+    @Override
+    public List<Game> findGamesByPlayerId(String playerId, int limit, int offset) {
+        return this.gameDao.findGamesByPlayerId(playerId, limit, offset);
+    }
+
+    @Override
+    public List<PendingGame> getPendingGames(int limit, int offset) {
+        return this.gameDao.getPendingGames(limit, offset);
+    }
+
+    @Override
+    public List<PendingGame> getPendingGamesByPlayerId(String playerId, int limit, int offset) {
+        return this.gameDao.getPendingGamesByPlayerId(playerId, limit, offset);
+    }
+
+    @Override
+    public List<Game> findGamesByPlayerId(String playerId, int limit, Optional<PageCursor> cursor) {
+        return this.gameDao.findGamesByPlayerId(playerId, limit, cursor);
+    }
+
+    @Override
+    public List<PendingGame> getPendingGames(int limit, Optional<PageCursor> cursor) {
+        return this.gameDao.getPendingGames(limit, cursor);
+    }
+
+    @Override
+    public List<PendingGame> getPendingGamesByPlayerId(String playerId, int limit, Optional<PageCursor> cursor) {
+        return this.gameDao.getPendingGamesByPlayerId(playerId, limit, cursor);
+    }
+}
@@ -0,0 +1,169 @@
+package com.ruchij.api.dao.game;
+
+import com.ruchij.api.config.FinishedGameCacheConfiguration;
+import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.dao.game.models.PageCursor;
+import com.ruchij.api.dao.game.models.PendingGame;
+import com.ruchij.api.metrics.MetricsRegistry;
+import com.ruchij.api.utils.ExpiringCache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link GameDao} which keeps finished games in memory in front of another {@link GameDao}. Finished games never
+ * change, so they stay cached until newer finished games evict them.
+ * <p>
+ * Ids of games which were not found are remembered for {@code missTtl}, so that clients polling unknown ids do not
+ * reach the database. Games inserted through this instance are found straight away, while games inserted by another
+ * instance may not be found for up to {@code missTtl}.
+ */
+public class FinishedGameCachingDaoImpl implements GameDao {
+    private final GameDao gameDao;
+    private final Clock clock;
+    private final Duration missTtl;
+    private final ExpiringCache<String, Game> finishedGames;
+    private final ExpiringCache<String, Boolean> missingGames;
+    private final AtomicLong gameWrites = new AtomicLong();
+    private final LongAdder cacheHits;
+    private final LongAdder cacheMisses;
+    private final LongAdder missingGameHits;
+
+    public FinishedGameCachingDaoImpl(
+        GameDao gameDao,
+        Clock clock,
+        FinishedGameCacheConfiguration finishedGameCacheConfiguration,
+        MetricsRegistry metricsRegistry
+    ) {
+        this.gameDao = gameDao;
+        this.clock = clock;
+        this.missTtl = finishedGameCacheConfiguration.missTtl();
+        this.finishedGames = new ExpiringCache<>(finishedGameCacheConfiguration.maxSize(), clock);
+        this.missingGames = new ExpiringCache<>(finishedGameCacheConfiguration.missesMaxSize(), clock);
+        this.cacheHits = metricsRegistry.counter("finished-game-cache.hits");
+        this.cacheMisses = metricsRegistry.counter("finished-game-cache.misses");
+        this.missingGameHits = metricsRegistry.counter("finished-game-cache.missing-game-hits");
+
+        metricsRegistry.gauge("finished-game-cache.size", this.finishedGames::size);
+        metricsRegistry.gauge("finished-game-cache.missing-games", this.missingGames::size);
+    }
+
+    @Override
+    public PendingGame insertPendingGame(PendingGame pendingGame) {
+        return this.gameDao.insertPendingGame(pendingGame);
+    }
+
+    @Override
+    public Optional<PendingGame> updatePendingGame(PendingGame pendingGame) {
+        return this.gameDao.updatePendingGame(pendingGame);
+    }
+
+    @Override
+    public Optional<PendingGame> findPendingGameById(String pendingGameId) {
+        return this.gameDao.findPendingGameById(pendingGameId);
+    }
+
+    @Override
+    public Game insertGame(Game game) {
+        Game insertedGame = this.gameDao.insertGame(game);
+        this.gameWrites.incrementAndGet();
+        this.missingGames.invalidate(game.id());
+
+        return insertedGame;
+    }
+
+    @Override
+    public Optional<Game> findGameById(String gameId) {
+        Optional<Game> finishedGame = this.finishedGames.get(gameId);
+
+        if (finishedGame.isPresent()) {
+            this.cacheHits.increment();
+            return finishedGame.map(Game::copy);
+        }
+
+        if (this.missingGames.get(gameId).isPresent()) {
+            this.missingGameHits.increment();
+            return Optional.empty();
+        }
+
+        this.cacheMisses.increment();
+        long gameWrites = this.gameWrites.get();
+        Optional<Game> game = this.gameDao.findGameById(gameId);
+
+        if (game.isEmpty()) {
+            this.missingGames.put(gameId, true, this.clock.instant().plus(this.missTtl));
+
+            // A game which was inserted while it was being read may be missing from the read, but it is not missing
+            if (this.gameWrites.get() != gameWrites) {
+                this.missingGames.invalidate(gameId);
+            }
+        } else if (game.get().winner().isPresent()) {
+            this.finishedGames.put(gameId, game.get().copy(), Instant.MAX);
+        }
+
+        return game;
+    }
+
+    /**
+     * Replacing a game is the one way a finished game changes, so it is read again afterwards
+     */
+    @Override
+    public Optional<Game> updateGame(Game game) {
+        Optional<Game> updatedGame = this.gameDao.updateGame(game);
+        this.gameWrites.incrementAndGet();
+        this.finishedGames.invalidate(game.id());
+        this.missingGames.invalidate(game.id());
+
+        return updatedGame;
+    }
+
+    @Override
+    public boolean appendMoves(Game game, int expectedMoveCount, List<Game.Move> moves, Optional<Game.Winner> winner) {
+        return this.gameDao.appendMoves(game, expectedMoveCount, moves, winner);
+    }
+
+    @Override
+    public Optional<List<Game.Move>> findMoves(String gameId, int limit, int offset) {
+        if (this.missingGames.get(gameId).isPresent()) {
+            this.missingGameHits.increment();
+            return Optional.empty();
+        }
+
+        return this.gameDao.findMoves(gameId, limit, offset);
+    }
+
+    @Override
+    public List<Game> findGamesByPlayerId(String playerId, int limit, int offset) {
+        return this.gameDao.findGamesByPlayerId(playerId, limit, offset);
+    }
+
+    @Override
+    public List<PendingGame> getPendingGames(int limit, int offset) {
+        return this.gameDao.getPendingGames(limit, offset);
+    }
+
+    @Override
+    public List<PendingGame> getPendingGamesByPlayerId(String playerId, int limit, int offset) {
+        return this.gameDao.getPendingGamesByPlayerId(playerId, limit, offset);
+    }
+
+    @Override
+    public List<Game> findGamesByPlayerId(String playerId, int limit, Optional<PageCursor> cursor) {
+        return this.gameDao.findGamesByPlayerId(playerId, limit, cursor);
+    }
+
+    @Override
+    public List<PendingGame> getPendingGames(int limit, Optional<PageCursor> cursor) {
+        return this.gameDao.getPendingGames(limit, cursor);
+    }
+
+    @Override
+    public List<PendingGame> getPendingGamesByPlayerId(String playerId, int limit, Optional<PageCursor> cursor) {
+        return this.gameDao.getPendingGamesByPlayerId(playerId, limit, cursor);
+    }
+}
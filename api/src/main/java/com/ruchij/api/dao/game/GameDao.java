@@ -1,6 +1,7 @@
 package com.ruchij.api.dao.game;
 
 import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.dao.game.models.PageCursor;
 import com.ruchij.api.dao.game.models.PendingGame;
 
 import java.util.List;
@@ -19,9 +20,34 @@ public interface GameDao {
 
     Optional<Game> updateGame(Game game);
 
+    /**
+     * Appends the moves and sets the winner of a game which does not have a winner yet, but only when the game
+     * still has exactly {@code expectedMoveCount} moves. Only the id, the start and the players of {@code game} are
+     * read, and its moves are ignored.
+     *
+     * @return false when the game was not found in the expected state, e.g. because it was updated concurrently
+     */
+    boolean appendMoves(Game game, int expectedMoveCount, List<Game.Move> moves, Optional<Game.Winner> winner);
+
+    /**
+     * Finds the moves of a game by their index, including the earlier moves which games no longer hold
+     *
+     * @return empty when the game is not found
+     */
+    Optional<List<Game.Move>> findMoves(String gameId, int limit, int offset);
+
     List<Game> findGamesByPlayerId(String playerId, int limit, int offset);
 
     List<PendingGame> getPendingGames(int limit, int offset);
 
     List<PendingGame> getPendingGamesByPlayerId(String playerId, int limit, int offset);
+
+    /**
+     * Finds the unfinished games of the player which come after the cursor, newest first
+     */
+    List<Game> findGamesByPlayerId(String playerId, int limit, Optional<PageCursor> cursor);
+
+    List<PendingGame> getPendingGames(int limit, Optional<PageCursor> cursor);
+
+    List<PendingGame> getPendingGamesByPlayerId(String playerId, int limit, Optional<PageCursor> cursor);
 }
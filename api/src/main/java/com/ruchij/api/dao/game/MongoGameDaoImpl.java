@@ -1,42 +1,162 @@
 package com.ruchij.api.dao.game;
 
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.PushOptions;
+import com.mongodb.client.model.ReturnDocument;
 import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
 import com.mongodb.client.result.InsertOneResult;
 import com.mongodb.client.result.UpdateResult;
+import com.ruchij.api.dao.MongoIndex;
+import com.ruchij.api.dao.game.codecs.CoordinateCodec;
+import com.ruchij.api.dao.game.codecs.GameCodec;
+import com.ruchij.api.dao.game.codecs.MoveCodec;
+import com.ruchij.api.dao.game.codecs.PackedMoves;
+import com.ruchij.api.dao.game.codecs.PendingGameCodec;
+import com.ruchij.api.dao.game.codecs.WinnerCodec;
 import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.dao.game.models.PageCursor;
 import com.ruchij.api.dao.game.models.PendingGame;
-import org.bson.codecs.pojo.annotations.BsonId;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonValue;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Games only hold their latest {@code liveMoves} moves, which is all the game engines look at, together with the
+ * total move count. Every move is also kept in the move history, in buckets of {@link #MOVES_PER_HISTORY_BUCKET}
+ * moves, so that a move costs the same no matter how long the game has been running.
+ * Games record how many of their moves are in the move history, and a move is only trimmed from a game once it is.
+ */
 public class MongoGameDaoImpl implements GameDao {
-    private final MongoCollection<MongoPendingGame> pendingGamesCollection;
-    private final MongoCollection<MongoGame> gamesCollection;
+    private static final Logger logger = LoggerFactory.getLogger(MongoGameDaoImpl.class);
 
-    public MongoGameDaoImpl(MongoDatabase mongoDatabase, String collectionNameSuffix) {
-        this.pendingGamesCollection = mongoDatabase.getCollection("pending-games-%s".formatted(collectionNameSuffix), MongoPendingGame.class);
-        this.gamesCollection = mongoDatabase.getCollection("games-%s".formatted(collectionNameSuffix), MongoGame.class);
+    private static final Bson NEWEST_FIRST = Sorts.descending("createdAt", "_id");
+    static final int MOVES_PER_HISTORY_BUCKET = 100;
+    private static final String HISTORY_MOVE_COUNT = "historyMoveCount";
+
+    private final MongoCollection<PendingGame> pendingGamesCollection;
+    private final MongoCollection<Game> gamesCollection;
+    private final MongoCollection<BsonDocument> moveHistoryCollection;
+    private final MoveCodec moveCodec;
+    private final int liveMoves;
+
+    public MongoGameDaoImpl(MongoDatabase mongoDatabase, String collectionNameSuffix, int liveMoves) {
+        CoordinateCodec coordinateCodec = new CoordinateCodec();
+        this.moveCodec = new MoveCodec(coordinateCodec);
+        this.liveMoves = liveMoves;
+
+        CodecRegistry codecRegistry = codecRegistry(
+            mongoDatabase.getCodecRegistry(),
+            coordinateCodec,
+            this.moveCodec,
+            new WinnerCodec(coordinateCodec)
+        );
+
+        this.pendingGamesCollection = mongoDatabase
+            .getCollection("pending-games-%s".formatted(collectionNameSuffix), PendingGame.class)
+            .withCodecRegistry(codecRegistry);
+        this.gamesCollection = mongoDatabase
+            .getCollection("games-%s".formatted(collectionNameSuffix), Game.class)
+            .withCodecRegistry(codecRegistry);
+        this.moveHistoryCollection = mongoDatabase
+            .getCollection("game-moves-%s".formatted(collectionNameSuffix), BsonDocument.class)
+            .withCodecRegistry(codecRegistry);
+    }
+
+    /**
+     * Games are read on every move, so they are decoded by hand-written codecs rather than reflective record codecs
+     */
+    private static CodecRegistry codecRegistry(
+        CodecRegistry codecRegistry,
+        CoordinateCodec coordinateCodec,
+        MoveCodec moveCodec,
+        WinnerCodec winnerCodec
+    ) {
+        return CodecRegistries.fromRegistries(
+            CodecRegistries.fromCodecs(
+                new GameCodec(moveCodec, winnerCodec),
+                new PendingGameCodec(),
+                moveCodec,
+                winnerCodec,
+                coordinateCodec
+            ),
+            codecRegistry
+        );
+    }
+
+    public List<MongoIndex> indexes() {
+        return List.of(
+            // Unfinished games of a player, one index for each side of the $or
+            new MongoIndex(
+                this.gamesCollection,
+                Indexes.compoundIndex(
+                    Indexes.ascending("playerOneId"),
+                    Indexes.ascending("winner"),
+                    Indexes.descending("createdAt"),
+                    Indexes.descending("_id")
+                )
+            ),
+            new MongoIndex(
+                this.gamesCollection,
+                Indexes.compoundIndex(
+                    Indexes.ascending("playerTwoId"),
+                    Indexes.ascending("winner"),
+                    Indexes.descending("createdAt"),
+                    Indexes.descending("_id")
+                )
+            ),
+            // Pending games which have not started
+            new MongoIndex(
+                this.pendingGamesCollection,
+                Indexes.compoundIndex(
+                    Indexes.ascending("gameStartedAt"),
+                    Indexes.descending("createdAt"),
+                    Indexes.descending("_id")
+                )
+            ),
+            // Pending games created by a player
+            new MongoIndex(
+                this.pendingGamesCollection,
+                Indexes.compoundIndex(
+                    Indexes.ascending("createdBy"),
+                    Indexes.descending("createdAt"),
+                    Indexes.descending("_id")
+                )
+            )
+        );
     }
 
     @Override
     public PendingGame insertPendingGame(PendingGame pendingGame) {
-        MongoPendingGame mongoPendingGame = MongoPendingGame.fromPendingGame(pendingGame);
-        InsertOneResult insertOneResult = this.pendingGamesCollection.insertOne(mongoPendingGame);
+        InsertOneResult insertOneResult = this.pendingGamesCollection.insertOne(pendingGame);
 
         return pendingGame;
     }
 
     @Override
     public Optional<PendingGame> updatePendingGame(PendingGame pendingGame) {
-        MongoPendingGame mongoPendingGame = MongoPendingGame.fromPendingGame(pendingGame);
         UpdateResult updateResult =
-            this.pendingGamesCollection.replaceOne(Filters.eq("_id", pendingGame.id()), mongoPendingGame);
+            this.pendingGamesCollection.replaceOne(Filters.eq("_id", pendingGame.id()), pendingGame);
 
 
         if (updateResult.getModifiedCount() == 1) {
@@ -56,25 +176,31 @@ public class MongoGameDaoImpl implements GameDao {
             this.pendingGamesCollection
                 .find(Filters.eq("_id", pendingGameId))
                 .first()
-        ).map(MongoPendingGame::toPendingGame);
+        );
     }
 
     @Override
     public Game insertGame(Game game) {
-        InsertOneResult insertOneResult = this.gamesCollection.insertOne(MongoGame.fromGame(game));
+        // The moves are in the move history before any of them are trimmed from the game
+        writeMoveHistory(game.id(), game.moveOffset(), storedMoves(game));
+        InsertOneResult insertOneResult = this.gamesCollection.insertOne(game.withLatestMoves(this.liveMoves));
+        recordMoveHistory(game);
 
         return game;
     }
 
     @Override
     public Optional<Game> findGameById(String gameId) {
-        return Optional.ofNullable(this.gamesCollection.find(Filters.eq("_id", gameId)).first())
-            .map(MongoGame::toGame);
+        return Optional.ofNullable(this.gamesCollection.find(Filters.eq("_id", gameId)).first());
     }
 
     @Override
     public List<Game> findGamesByPlayerId(String playerId, int limit, int offset) {
-        ArrayList<MongoGame> unfinishedGames = this.gamesCollection
+        return findGamesByPlayerIdQuery(playerId, limit, offset).into(new ArrayList<>());
+    }
+
+    FindIterable<Game> findGamesByPlayerIdQuery(String playerId, int limit, int offset) {
+        return this.gamesCollection
             .find(
                 Filters.and(
                     Filters.or(
@@ -86,20 +212,38 @@ public class MongoGameDaoImpl implements GameDao {
             )
             .sort(Sorts.descending("createdAt"))
             .skip(offset)
-            .limit(limit)
-            .into(new ArrayList<>());
+            .limit(limit);
+    }
 
-        return unfinishedGames.stream().map(MongoGame::toGame).toList();
+    @Override
+    public List<Game> findGamesByPlayerId(String playerId, int limit, Optional<PageCursor> cursor) {
+        return findGamesByPlayerIdQuery(playerId, limit, cursor).into(new ArrayList<>());
+    }
+
+    FindIterable<Game> findGamesByPlayerIdQuery(String playerId, int limit, Optional<PageCursor> cursor) {
+        // Each side of the $or seeks its own index, and the two are merged in sort order
+        return this.gamesCollection
+            .find(
+                Filters.or(
+                    Filters.and(Filters.eq("playerOneId", playerId), Filters.eq("winner", null), after(cursor)),
+                    Filters.and(Filters.eq("playerTwoId", playerId), Filters.eq("winner", null), after(cursor))
+                )
+            )
+            .sort(NEWEST_FIRST)
+            .limit(limit);
     }
 
     @Override
     public Optional<Game> updateGame(Game game) {
+        writeMoveHistory(game.id(), game.moveOffset(), storedMoves(game));
+
         UpdateResult updateResult = this.gamesCollection.replaceOne(
             Filters.eq("_id", game.id()),
-            MongoGame.fromGame(game)
+            game.withLatestMoves(this.liveMoves)
         );
 
         if (updateResult.getModifiedCount() > 0) {
+            recordMoveHistory(game);
             return Optional.of(game);
         } else {
             return Optional.empty();
@@ -107,96 +251,303 @@ public class MongoGameDaoImpl implements GameDao {
     }
 
     @Override
-    public List<PendingGame> getPendingGames(int limit, int offset) {
-        List<MongoPendingGame> mongoPendingGames =
-            this.pendingGamesCollection
-                .find(Filters.eq("gameStartedAt", null))
-                .sort(Sorts.descending("createdAt"))
-                .skip(offset)
-                .limit(limit)
-                .into(new ArrayList<>());
+    public boolean appendMoves(Game game, int expectedMoveCount, List<Game.Move> moves, Optional<Game.Winner> winner) {
+        List<Object> storedMoves = PackedMoves.storedMoves(game, expectedMoveCount, moves);
+
+        Optional<Game> appendedGame = appendLiveMoves(game.id(), expectedMoveCount, storedMoves, winner);
+
+        if (appendedGame.isEmpty() &&
+            (migrateMoveHistory(game.id()) || catchUpMoveHistory(game.id(), expectedMoveCount))) {
+            appendedGame = appendLiveMoves(game.id(), expectedMoveCount, storedMoves, winner);
+        }
+
+        // The history is only written by the writer whose moves were appended to the game. Every held move is written,
+        // so a move which failed to be written is retried on every append until it is trimmed from the game.
+        appendedGame.ifPresent(updatedGame -> {
+            try {
+                writeMoveHistory(updatedGame);
+            } catch (RuntimeException exception) {
+                logger.warn("Unable to write the move history of gameId={}", updatedGame.id(), exception);
+            }
+        });
 
-        return mongoPendingGames.stream().map(MongoPendingGame::toPendingGame).toList();
+        return appendedGame.isPresent();
     }
 
-    @Override
-    public List<PendingGame> getPendingGamesByPlayerId(String playerId, int limit, int offset) {
-        List<MongoPendingGame> mongoPendingGames =
-            this.pendingGamesCollection
-                .find(Filters.eq("createdBy", playerId))
-                .sort(Sorts.descending("createdAt"))
-                .skip(offset)
-                .limit(limit)
-                .into(new ArrayList<>());
-
-        return mongoPendingGames.stream().map(MongoPendingGame::toPendingGame).toList();
-    }
-
-    public record MongoGame(
-        @BsonId String id,
-        String title,
-        Instant createdAt,
-        String createdBy,
-        Instant startedAt,
-        String playerOneId,
-        String playerTwoId,
-        List<Game.Move> moves,
-        Game.Winner winner
+    /**
+     * Appends the moves unless the moves which they would trim from the game are not in the move history yet
+     */
+    private Optional<Game> appendLiveMoves(
+        String gameId,
+        int expectedMoveCount,
+        List<Object> storedMoves,
+        Optional<Game.Winner> winner
     ) {
-        public static MongoGame fromGame(Game game) {
-            return new MongoGame(
+        int trimmedMoveCount = expectedMoveCount + storedMoves.size() - this.liveMoves;
+        List<Bson> filters = new ArrayList<>();
+        filters.add(Filters.eq("_id", gameId));
+        filters.add(Filters.eq("moveCount", expectedMoveCount));
+        filters.add(Filters.eq("winner", null));
+
+        if (trimmedMoveCount > 0) {
+            filters.add(Filters.gte(HISTORY_MOVE_COUNT, trimmedMoveCount));
+        }
+
+        return Optional.ofNullable(
+            this.gamesCollection.findOneAndUpdate(
+                Filters.and(filters),
+                Updates.combine(
+                    Updates.pushEach("moves", storedMoves, new PushOptions().slice(-this.liveMoves)),
+                    Updates.inc("moveCount", storedMoves.size()),
+                    Updates.set("winner", winner.orElse(null))
+                ),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)
+            )
+        );
+    }
+
+    /**
+     * Writes the moves which the game holds to the move history, when an earlier write of them failed
+     *
+     * @return whether the game still has the expected move count, in which case the history is caught up
+     */
+    private boolean catchUpMoveHistory(String gameId, int expectedMoveCount) {
+        Game game = this.gamesCollection
+            .find(
+                Filters.and(
+                    Filters.eq("_id", gameId),
+                    Filters.eq("moveCount", expectedMoveCount),
+                    Filters.eq("winner", null)
+                )
+            )
+            .first();
+
+        if (game == null) {
+            return false;
+        }
+
+        writeMoveHistory(game);
+
+        return true;
+    }
+
+    /**
+     * Games stored before the move history hold all of their moves and no move count. Their moves are copied into the
+     * move history and their move count is set, after which their moves are trimmed like those of any other game.
+     *
+     * @return whether the game was migrated
+     */
+    private boolean migrateMoveHistory(String gameId) {
+        Game game = this.gamesCollection
+            .find(Filters.and(Filters.eq("_id", gameId), Filters.exists("moveCount", false)))
+            .first();
+
+        if (game == null) {
+            return false;
+        }
+
+        writeMoveHistory(gameId, 0, storedMoves(game));
+
+        UpdateResult updateResult = this.gamesCollection.updateOne(
+            Filters.and(
+                Filters.eq("_id", gameId),
+                Filters.exists("moveCount", false),
+                Filters.size("moves", game.moves().size())
+            ),
+            Updates.combine(
+                Updates.set("moveCount", game.moves().size()),
+                Updates.set(HISTORY_MOVE_COUNT, game.moves().size())
+            )
+        );
+
+        return updateResult.getModifiedCount() == 1;
+    }
+
+    private static List<Object> storedMoves(Game game) {
+        return PackedMoves.storedMoves(game, game.moveOffset(), game.moves());
+    }
+
+    /**
+     * Writes the moves which the game holds to the move history and records that its moves up to its move count are
+     * in the move history, which allows them to be trimmed from the game
+     */
+    private void writeMoveHistory(Game game) {
+        writeMoveHistory(game.id(), game.moveOffset(), storedMoves(game));
+        recordMoveHistory(game);
+    }
+
+    private void recordMoveHistory(Game game) {
+        if (game.moveCount() > 0) {
+            this.gamesCollection.updateOne(Filters.eq("_id", game.id()), Updates.max(HISTORY_MOVE_COUNT, game.moveCount()));
+        }
+    }
+
+    /**
+     * Sets each move at its position within its bucket, so that writing the same moves again changes nothing
+     */
+    private void writeMoveHistory(String gameId, int moveIndex, List<Object> storedMoves) {
+        List<UpdateOneModel<BsonDocument>> writes = new ArrayList<>();
+        int start = 0;
+
+        while (start < storedMoves.size()) {
+            int bucket = (moveIndex + start) / MOVES_PER_HISTORY_BUCKET;
+            int end = Math.min(storedMoves.size(), (bucket + 1) * MOVES_PER_HISTORY_BUCKET - moveIndex);
+            List<Bson> updates = new ArrayList<>();
+            updates.add(Updates.setOnInsert("gameId", gameId));
+            updates.add(Updates.setOnInsert("bucket", bucket));
+
+            for (int index = start; index < end; index++) {
+                updates.add(
+                    Updates.set("moves.%s".formatted((moveIndex + index) % MOVES_PER_HISTORY_BUCKET), storedMoves.get(index))
+                );
+            }
+
+            writes.add(
+                new UpdateOneModel<>(
+                    Filters.eq("_id", historyBucketId(gameId, bucket)),
+                    Updates.combine(updates),
+                    new UpdateOptions().upsert(true)
+                )
+            );
+
+            start = end;
+        }
+
+        if (!writes.isEmpty()) {
+            this.moveHistoryCollection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        }
+    }
+
+    private static String historyBucketId(String gameId, int bucket) {
+        return "%s-%s".formatted(gameId, bucket);
+    }
+
+    @Override
+    public Optional<List<Game.Move>> findMoves(String gameId, int limit, int offset) {
+        return findGameById(gameId).map(game -> findMoves(game, limit, offset));
+    }
+
+    private List<Game.Move> findMoves(Game game, int limit, int offset) {
+        if (offset >= game.moveOffset()) {
+            return game.heldMoves(limit, offset);
+        }
+
+        int end = (int) Math.min((long) offset + limit, game.moveCount());
+        Game.Move[] moves = new Game.Move[end - offset];
+
+        List<String> bucketIds = new ArrayList<>();
+        for (int bucket = offset / MOVES_PER_HISTORY_BUCKET; bucket <= (end - 1) / MOVES_PER_HISTORY_BUCKET; bucket++) {
+            bucketIds.add(historyBucketId(game.id(), bucket));
+        }
+
+        this.moveHistoryCollection.find(Filters.in("_id", bucketIds)).forEach(historyBucket -> {
+            int firstIndex = historyBucket.getInt32("bucket").getValue() * MOVES_PER_HISTORY_BUCKET;
+
+            for (Map.Entry<String, BsonValue> storedMove : historyBucket.getDocument("moves").entrySet()) {
+                int index = firstIndex + Integer.parseInt(storedMove.getKey());
+
+                if (index >= offset && index < end) {
+                    moves[index - offset] = decodeStoredMove(game, index, storedMove.getValue());
+                }
+            }
+        });
+
+        // The moves which the game holds are the most up to date
+        for (int index = Math.max(offset, game.moveOffset()); index < end; index++) {
+            moves[index - offset] = game.moves().get(index - game.moveOffset());
+        }
+
+        for (int index = 0; index < moves.length; index++) {
+            if (moves[index] == null) {
+                throw new IllegalStateException(
+                    "Move history of gameId=%s is missing moveIndex=%s".formatted(game.id(), offset + index)
+                );
+            }
+        }
+
+        return Arrays.asList(moves);
+    }
+
+    private Game.Move decodeStoredMove(Game game, int index, BsonValue storedMove) {
+        if (storedMove.isInt64()) {
+            return PackedMoves.unpack(
                 game.id(),
-                game.title(),
-                game.createdAt(),
-                game.createdBy(),
                 game.startedAt(),
                 game.playerOneId(),
                 game.playerTwoId(),
-                game.moves(),
-                game.winner().orElse(null)
+                index,
+                storedMove.asInt64().getValue()
             );
         }
 
-        public Game toGame() {
-            return new Game(
-                id,
-                title,
-                createdAt,
-                createdBy,
-                startedAt,
-                playerOneId,
-                playerTwoId,
-                moves,
-                Optional.ofNullable(winner)
-            );
-        }
+        return this.moveCodec.decode(new BsonDocumentReader(storedMove.asDocument()), DecoderContext.builder().build());
     }
 
-    public record MongoPendingGame(
-        @BsonId String id,
-        String title,
-        Instant createdAt,
-        String createdBy,
-        Instant gameStartedAt
+    @Override
+    public List<PendingGame> getPendingGames(int limit, int offset) {
+        return getPendingGamesQuery(limit, offset).into(new ArrayList<>());
+    }
+
+    FindIterable<PendingGame> getPendingGamesQuery(int limit, int offset) {
+        return this.pendingGamesCollection
+            .find(Filters.eq("gameStartedAt", null))
+            .sort(Sorts.descending("createdAt"))
+            .skip(offset)
+            .limit(limit);
+    }
+
+    @Override
+    public List<PendingGame> getPendingGamesByPlayerId(String playerId, int limit, int offset) {
+        return getPendingGamesByPlayerIdQuery(playerId, limit, offset).into(new ArrayList<>());
+    }
+
+    FindIterable<PendingGame> getPendingGamesByPlayerIdQuery(String playerId, int limit, int offset) {
+        return this.pendingGamesCollection
+            .find(Filters.eq("createdBy", playerId))
+            .sort(Sorts.descending("createdAt"))
+            .skip(offset)
+            .limit(limit);
+    }
+
+    @Override
+    public List<PendingGame> getPendingGames(int limit, Optional<PageCursor> cursor) {
+        return getPendingGamesQuery(limit, cursor).into(new ArrayList<>());
+    }
+
+    FindIterable<PendingGame> getPendingGamesQuery(int limit, Optional<PageCursor> cursor) {
+        return this.pendingGamesCollection
+            .find(Filters.and(Filters.eq("gameStartedAt", null), after(cursor)))
+            .sort(NEWEST_FIRST)
+            .limit(limit);
+    }
+
+    @Override
+    public List<PendingGame> getPendingGamesByPlayerId(String playerId, int limit, Optional<PageCursor> cursor) {
+        return getPendingGamesByPlayerIdQuery(playerId, limit, cursor).into(new ArrayList<>());
+    }
+
+    FindIterable<PendingGame> getPendingGamesByPlayerIdQuery(
+        String playerId,
+        int limit,
+        Optional<PageCursor> cursor
     ) {
-        public static MongoPendingGame fromPendingGame(PendingGame pendingGame) {
-            return new MongoPendingGame(
-                pendingGame.id(),
-                pendingGame.title(),
-                pendingGame.createdAt(),
-                pendingGame.createdBy(),
-                pendingGame.gameStartedAt().orElse(null)
-            );
-        }
+        return this.pendingGamesCollection
+            .find(Filters.and(Filters.eq("createdBy", playerId), after(cursor)))
+            .sort(NEWEST_FIRST)
+            .limit(limit);
+    }
 
-        public PendingGame toPendingGame() {
-            return new PendingGame(
-                id,
-                title,
-                createdAt,
-                createdBy,
-                Optional.ofNullable(gameStartedAt)
-            );
-        }
+    /**
+     * Matches the documents which come after the cursor in the {@link #NEWEST_FIRST} order
+     */
+    private static Bson after(Optional<PageCursor> cursor) {
+        return cursor
+            .map(pageCursor ->
+                Filters.or(
+                    Filters.lt("createdAt", pageCursor.createdAt()),
+                    Filters.and(Filters.eq("createdAt", pageCursor.createdAt()), Filters.lt("_id", pageCursor.id()))
+                )
+            )
+            .orElse(Filters.empty());
     }
 }
@@ -0,0 +1,54 @@
+package com.ruchij.api.dao.game.codecs;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+
+import java.time.Instant;
+
+/**
+ * Reads and writes the fields which may be missing, in the same way as the driver's record codec
+ */
+class BsonFields {
+    static void writeString(BsonWriter writer, String name, String value) {
+        if (value != null) {
+            writer.writeString(name, value);
+        }
+    }
+
+    static void writeInstant(BsonWriter writer, String name, Instant value) {
+        if (value != null) {
+            writer.writeDateTime(name, value.toEpochMilli());
+        }
+    }
+
+    static String readString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.NULL) {
+            reader.readNull();
+            return null;
+        }
+
+        return reader.readString();
+    }
+
+    static Instant readInstant(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.NULL) {
+            reader.readNull();
+            return null;
+        }
+
+        return Instant.ofEpochMilli(reader.readDateTime());
+    }
+
+    /**
+     * @return false, having consumed the value, when the value is null
+     */
+    static boolean isPresent(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.NULL) {
+            reader.readNull();
+            return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+package com.ruchij.api.dao.game.codecs;
+
+import com.ruchij.api.dao.game.models.Game;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+public class CoordinateCodec implements Codec<Game.Coordinate> {
+    @Override
+    public void encode(BsonWriter writer, Game.Coordinate coordinate, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeInt32("x", coordinate.x());
+        writer.writeInt32("y", coordinate.y());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Game.Coordinate decode(BsonReader reader, DecoderContext decoderContext) {
+        int x = 0;
+        int y = 0;
+
+        reader.readStartDocument();
+
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "x" -> x = reader.readInt32();
+                case "y" -> y = reader.readInt32();
+                default -> reader.skipValue();
+            }
+        }
+
+        reader.readEndDocument();
+
+        return new Game.Coordinate(x, y);
+    }
+
+    @Override
+    public Class<Game.Coordinate> getEncoderClass() {
+        return Game.Coordinate.class;
+    }
+}
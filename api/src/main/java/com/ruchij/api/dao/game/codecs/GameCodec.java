@@ -0,0 +1,141 @@
+package com.ruchij.api.dao.game.codecs;
+
+import com.ruchij.api.dao.game.models.Game;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Encodes games directly, rather than reflectively through an intermediate record
+ */
+public class GameCodec implements Codec<Game> {
+    private final MoveCodec moveCodec;
+    private final WinnerCodec winnerCodec;
+
+    public GameCodec(MoveCodec moveCodec, WinnerCodec winnerCodec) {
+        this.moveCodec = moveCodec;
+        this.winnerCodec = winnerCodec;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Game game, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        BsonFields.writeString(writer, "_id", game.id());
+        BsonFields.writeString(writer, "title", game.title());
+        BsonFields.writeInstant(writer, "createdAt", game.createdAt());
+        BsonFields.writeString(writer, "createdBy", game.createdBy());
+        BsonFields.writeInstant(writer, "startedAt", game.startedAt());
+        BsonFields.writeString(writer, "playerOneId", game.playerOneId());
+        BsonFields.writeString(writer, "playerTwoId", game.playerTwoId());
+        writer.writeInt32("moveCount", game.moveCount());
+        writer.writeStartArray("moves");
+
+        for (int index = 0; index < game.moves().size(); index++) {
+            Game.Move move = game.moves().get(index);
+            OptionalLong packedMove = PackedMoves.pack(game, game.moveOffset() + index, move);
+
+            if (packedMove.isPresent()) {
+                writer.writeInt64(packedMove.getAsLong());
+            } else {
+                encoderContext.encodeWithChildContext(this.moveCodec, writer, move);
+            }
+        }
+
+        writer.writeEndArray();
+
+        if (game.winner().isPresent()) {
+            writer.writeName("winner");
+            encoderContext.encodeWithChildContext(this.winnerCodec, writer, game.winner().get());
+        }
+
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Game decode(BsonReader reader, DecoderContext decoderContext) {
+        String id = null;
+        String title = null;
+        Instant createdAt = null;
+        String createdBy = null;
+        Instant startedAt = null;
+        String playerOneId = null;
+        String playerTwoId = null;
+        Integer moveCount = null;
+        List<Game.Move> moves = new ArrayList<>();
+        long[] packedMoves = new long[0];
+        Optional<Game.Winner> winner = Optional.empty();
+
+        reader.readStartDocument();
+
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id" -> id = BsonFields.readString(reader);
+                case "title" -> title = BsonFields.readString(reader);
+                case "createdAt" -> createdAt = BsonFields.readInstant(reader);
+                case "createdBy" -> createdBy = BsonFields.readString(reader);
+                case "startedAt" -> startedAt = BsonFields.readInstant(reader);
+                case "playerOneId" -> playerOneId = BsonFields.readString(reader);
+                case "playerTwoId" -> playerTwoId = BsonFields.readString(reader);
+                case "moveCount" -> moveCount = reader.readInt32();
+                case "moves" -> {
+                    if (BsonFields.isPresent(reader)) {
+                        reader.readStartArray();
+
+                        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                            if (reader.getCurrentBsonType() == BsonType.INT64) {
+                                // Packed moves are unpacked once the players and the start of the game are known
+                                if (packedMoves.length <= moves.size()) {
+                                    packedMoves = Arrays.copyOf(packedMoves, Math.max(16, 2 * moves.size()));
+                                }
+
+                                packedMoves[moves.size()] = reader.readInt64();
+                                moves.add(null);
+                            } else {
+                                moves.add(this.moveCodec.decode(reader, decoderContext));
+                            }
+                        }
+
+                        reader.readEndArray();
+                    }
+                }
+                case "winner" -> {
+                    if (BsonFields.isPresent(reader)) {
+                        winner = Optional.of(this.winnerCodec.decode(reader, decoderContext));
+                    }
+                }
+                default -> reader.skipValue();
+            }
+        }
+
+        reader.readEndDocument();
+
+        // Games stored without a move count hold all of their moves
+        int moveOffset = moveCount == null ? 0 : moveCount - moves.size();
+
+        for (int index = 0; index < moves.size(); index++) {
+            if (moves.get(index) == null) {
+                moves.set(
+                    index,
+                    PackedMoves.unpack(id, startedAt, playerOneId, playerTwoId, moveOffset + index, packedMoves[index])
+                );
+            }
+        }
+
+        return new Game(id, title, createdAt, createdBy, startedAt, playerOneId, playerTwoId, moves, winner, moveOffset);
+    }
+
+    @Override
+    public Class<Game> getEncoderClass() {
+        return Game.class;
+    }
+}
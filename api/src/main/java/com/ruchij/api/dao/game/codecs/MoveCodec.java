@@ -0,0 +1,59 @@
+package com.ruchij.api.dao.game.codecs;
+
+import com.ruchij.api.dao.game.models.Game;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.time.Instant;
+
+public class MoveCodec implements Codec<Game.Move> {
+    private final CoordinateCodec coordinateCodec;
+
+    public MoveCodec(CoordinateCodec coordinateCodec) {
+        this.coordinateCodec = coordinateCodec;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Game.Move move, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeString("id", move.id());
+        writer.writeString("playerId", move.playerId());
+        writer.writeDateTime("performedAt", move.performedAt().toEpochMilli());
+        writer.writeName("coordinate");
+        encoderContext.encodeWithChildContext(this.coordinateCodec, writer, move.coordinate());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Game.Move decode(BsonReader reader, DecoderContext decoderContext) {
+        String id = null;
+        String playerId = null;
+        Instant performedAt = null;
+        Game.Coordinate coordinate = null;
+
+        reader.readStartDocument();
+
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "id" -> id = reader.readString();
+                case "playerId" -> playerId = reader.readString();
+                case "performedAt" -> performedAt = Instant.ofEpochMilli(reader.readDateTime());
+                case "coordinate" -> coordinate = this.coordinateCodec.decode(reader, decoderContext);
+                default -> reader.skipValue();
+            }
+        }
+
+        reader.readEndDocument();
+
+        return new Game.Move(id, playerId, performedAt, coordinate);
+    }
+
+    @Override
+    public Class<Game.Move> getEncoderClass() {
+        return Game.Move.class;
+    }
+}
@@ -0,0 +1,100 @@
+package com.ruchij.api.dao.game.codecs;
+
+import com.ruchij.api.dao.game.models.Game;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Stores a move as a single 64-bit integer instead of a document of well over 100 bytes. From the most significant
+ * bit, a move is packed into the index of its player (1 bit), its x and y coordinates (12 bits each, signed) and the
+ * milliseconds since the start of the game (39 bits, about 17 years).
+ * <p>
+ * The id of a packed move is derived from its position in the game, see {@link Game.Move#moveId(String, int)}.
+ * Moves which cannot be packed, such as moves with other ids, are stored as documents.
+ */
+public class PackedMoves {
+    private static final int COORDINATE_BITS = 12;
+    private static final int OFFSET_BITS = 64 - 1 - 2 * COORDINATE_BITS;
+    private static final int MIN_COORDINATE = -(1 << (COORDINATE_BITS - 1));
+    private static final int MAX_COORDINATE = (1 << (COORDINATE_BITS - 1)) - 1;
+    private static final long MAX_OFFSET = (1L << OFFSET_BITS) - 1;
+    private static final long COORDINATE_MASK = (1L << COORDINATE_BITS) - 1;
+
+    public static OptionalLong pack(Game game, int index, Game.Move move) {
+        long playerIndex;
+
+        if (move.playerId().equals(game.playerOneId())) {
+            playerIndex = 0;
+        } else if (move.playerId().equals(game.playerTwoId())) {
+            playerIndex = 1;
+        } else {
+            return OptionalLong.empty();
+        }
+
+        int x = move.coordinate().x();
+        int y = move.coordinate().y();
+
+        if (game.startedAt() == null || !isPackable(x) || !isPackable(y) ||
+            !move.id().equals(Game.Move.moveId(game.id(), index))) {
+            return OptionalLong.empty();
+        }
+
+        long offset = move.performedAt().toEpochMilli() - game.startedAt().toEpochMilli();
+
+        if (offset < 0 || offset > MAX_OFFSET) {
+            return OptionalLong.empty();
+        }
+
+        return OptionalLong.of(
+            playerIndex << 63 |
+                (x & COORDINATE_MASK) << (COORDINATE_BITS + OFFSET_BITS) |
+                (y & COORDINATE_MASK) << OFFSET_BITS |
+                offset
+        );
+    }
+
+    public static Game.Move unpack(
+        String gameId,
+        Instant startedAt,
+        String playerOneId,
+        String playerTwoId,
+        int index,
+        long packedMove
+    ) {
+        String playerId = packedMove < 0 ? playerTwoId : playerOneId;
+        // Shifting the coordinate to the top bits and back extends its sign
+        int x = (int) (packedMove << 1 >> (64 - COORDINATE_BITS));
+        int y = (int) (packedMove << (1 + COORDINATE_BITS) >> (64 - COORDINATE_BITS));
+        long offset = packedMove & MAX_OFFSET;
+
+        return new Game.Move(
+            Game.Move.moveId(gameId, index),
+            playerId,
+            startedAt.plusMillis(offset),
+            new Game.Coordinate(x, y)
+        );
+    }
+
+    /**
+     * @return the moves which are appended to the game from {@code index} onwards, in their stored form
+     */
+    public static List<Object> storedMoves(Game game, int index, List<Game.Move> moves) {
+        List<Object> storedMoves = new ArrayList<>(moves.size());
+
+        for (int i = 0; i < moves.size(); i++) {
+            Game.Move move = moves.get(i);
+            OptionalLong packedMove = pack(game, index + i, move);
+
+            storedMoves.add(packedMove.isPresent() ? packedMove.getAsLong() : move);
+        }
+
+        return storedMoves;
+    }
+
+    private static boolean isPackable(int coordinate) {
+        return coordinate >= MIN_COORDINATE && coordinate <= MAX_COORDINATE;
+    }
+}
@@ -0,0 +1,56 @@
+package com.ruchij.api.dao.game.codecs;
+
+import com.ruchij.api.dao.game.models.PendingGame;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public class PendingGameCodec implements Codec<PendingGame> {
+    @Override
+    public void encode(BsonWriter writer, PendingGame pendingGame, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        BsonFields.writeString(writer, "_id", pendingGame.id());
+        BsonFields.writeString(writer, "title", pendingGame.title());
+        BsonFields.writeInstant(writer, "createdAt", pendingGame.createdAt());
+        BsonFields.writeString(writer, "createdBy", pendingGame.createdBy());
+        BsonFields.writeInstant(writer, "gameStartedAt", pendingGame.gameStartedAt().orElse(null));
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public PendingGame decode(BsonReader reader, DecoderContext decoderContext) {
+        String id = null;
+        String title = null;
+        Instant createdAt = null;
+        String createdBy = null;
+        Instant gameStartedAt = null;
+
+        reader.readStartDocument();
+
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id" -> id = BsonFields.readString(reader);
+                case "title" -> title = BsonFields.readString(reader);
+                case "createdAt" -> createdAt = BsonFields.readInstant(reader);
+                case "createdBy" -> createdBy = BsonFields.readString(reader);
+                case "gameStartedAt" -> gameStartedAt = BsonFields.readInstant(reader);
+                default -> reader.skipValue();
+            }
+        }
+
+        reader.readEndDocument();
+
+        return new PendingGame(id, title, createdAt, createdBy, Optional.ofNullable(gameStartedAt));
+    }
+
+    @Override
+    public Class<PendingGame> getEncoderClass() {
+        return PendingGame.class;
+    }
+}
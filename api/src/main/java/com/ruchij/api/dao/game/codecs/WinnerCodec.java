@@ -0,0 +1,70 @@
+package com.ruchij.api.dao.game.codecs;
+
+import com.ruchij.api.dao.game.models.Game;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class WinnerCodec implements Codec<Game.Winner> {
+    private final CoordinateCodec coordinateCodec;
+
+    public WinnerCodec(CoordinateCodec coordinateCodec) {
+        this.coordinateCodec = coordinateCodec;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Game.Winner winner, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeString("playerId", winner.playerId());
+        writer.writeString("winningRule", winner.winningRule().name());
+        writer.writeStartArray("coordinates");
+
+        for (Game.Coordinate coordinate : winner.coordinates()) {
+            encoderContext.encodeWithChildContext(this.coordinateCodec, writer, coordinate);
+        }
+
+        writer.writeEndArray();
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Game.Winner decode(BsonReader reader, DecoderContext decoderContext) {
+        String playerId = null;
+        Game.WinningRule winningRule = null;
+        List<Game.Coordinate> coordinates = new ArrayList<>();
+
+        reader.readStartDocument();
+
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "playerId" -> playerId = reader.readString();
+                case "winningRule" -> winningRule = Game.WinningRule.valueOf(reader.readString());
+                case "coordinates" -> {
+                    reader.readStartArray();
+
+                    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                        coordinates.add(this.coordinateCodec.decode(reader, decoderContext));
+                    }
+
+                    reader.readEndArray();
+                }
+                default -> reader.skipValue();
+            }
+        }
+
+        reader.readEndDocument();
+
+        return new Game.Winner(playerId, winningRule, coordinates);
+    }
+
+    @Override
+    public Class<Game.Winner> getEncoderClass() {
+        return Game.Winner.class;
+    }
+}
@@ -3,6 +3,7 @@ package com.ruchij.api.dao.game.models;
 import org.bson.codecs.pojo.annotations.BsonId;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,8 +17,86 @@ public record Game(
     String playerOneId,
     String playerTwoId,
     List<Move> moves,
-    Optional<Winner> winner
+    Optional<Winner> winner,
+    int moveOffset
 ) {
+    public Game(
+        String id,
+        String title,
+        Instant createdAt,
+        String createdBy,
+        Instant startedAt,
+        String playerOneId,
+        String playerTwoId,
+        List<Move> moves,
+        Optional<Winner> winner
+    ) {
+        this(id, title, createdAt, createdBy, startedAt, playerOneId, playerTwoId, moves, winner, 0);
+    }
+
+    /**
+     * @return the number of moves played, including the {@code moveOffset} earlier moves which are not held in
+     * {@link #moves()}
+     */
+    public int moveCount() {
+        return this.moveOffset + this.moves.size();
+    }
+
+    /**
+     * @return the moves with indexes from {@code offset} onwards which are held in {@link #moves()}
+     */
+    public List<Move> heldMoves(int limit, int offset) {
+        int start = Math.max(offset, this.moveOffset) - this.moveOffset;
+        int end = (int) Math.min((long) offset + limit, this.moveCount()) - this.moveOffset;
+
+        return start < end ? new ArrayList<>(this.moves.subList(start, end)) : new ArrayList<>();
+    }
+
+    /**
+     * @return this game with its own list of moves, so that the moves of games which are shared between threads are
+     * never modified
+     */
+    public Game copy() {
+        return new Game(
+            this.id,
+            this.title,
+            this.createdAt,
+            this.createdBy,
+            this.startedAt,
+            this.playerOneId,
+            this.playerTwoId,
+            new ArrayList<>(this.moves),
+            this.winner,
+            this.moveOffset
+        );
+    }
+
+    /**
+     * Only the latest moves are on the board, so games only need to hold those while they are played
+     *
+     * @return this game holding at most its latest {@code count} moves
+     */
+    public Game withLatestMoves(int count) {
+        if (this.moves.size() <= count) {
+            return this;
+        }
+
+        int start = this.moves.size() - count;
+
+        return new Game(
+            this.id,
+            this.title,
+            this.createdAt,
+            this.createdBy,
+            this.startedAt,
+            this.playerOneId,
+            this.playerTwoId,
+            new ArrayList<>(this.moves.subList(start, this.moves.size())),
+            this.winner,
+            this.moveOffset + start
+        );
+    }
+
     public enum WinningRule {
         BackwardDiagonal, ForwardDiagonal, Horizontal, Vertical
     }
@@ -29,5 +108,11 @@ public record Game(
     }
 
     public record Move(String id, String playerId, Instant performedAt, Coordinate coordinate) {
+        /**
+         * Moves are identified by their position in the game, so that their ids do not need to be stored
+         */
+        public static String moveId(String gameId, int index) {
+            return "%s-%s".formatted(gameId, index);
+        }
     }
 }
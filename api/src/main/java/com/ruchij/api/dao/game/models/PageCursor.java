@@ -0,0 +1,38 @@
+package com.ruchij.api.dao.game.models;
+
+import com.ruchij.api.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position after the last game of a page in the order of (createdAt, id) descending
+ */
+public record PageCursor(Instant createdAt, String id) {
+    /**
+     * The timestamp is encoded in milliseconds, which is the precision of timestamps stored in MongoDB
+     */
+    public String encode() {
+        String cursor = "%d:%s".formatted(this.createdAt.toEpochMilli(), this.id);
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String encodedCursor) throws ValidationException {
+        try {
+            String cursor = new String(Base64.getUrlDecoder().decode(encodedCursor), StandardCharsets.UTF_8);
+            int separatorIndex = cursor.indexOf(':');
+
+            if (separatorIndex < 0) {
+                throw new ValidationException("cursor=%s is invalid".formatted(encodedCursor));
+            }
+
+            long createdAt = Long.parseLong(cursor.substring(0, separatorIndex));
+
+            return new PageCursor(Instant.ofEpochMilli(createdAt), cursor.substring(separatorIndex + 1));
+        } catch (IllegalArgumentException illegalArgumentException) {
+            throw new ValidationException("cursor=%s is invalid".formatted(encodedCursor));
+        }
+    }
+}
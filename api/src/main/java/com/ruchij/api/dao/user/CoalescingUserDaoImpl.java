@@ -0,0 +1,90 @@
+package com.ruchij.api.dao.user;
+
+import com.ruchij.api.dao.user.models.User;
+import com.ruchij.api.dao.user.models.UserCredentials;
+import com.ruchij.api.dao.user.models.UserWithCredentials;
+import com.ruchij.api.exception.ResourceConflictException;
+import com.ruchij.api.metrics.MetricsRegistry;
+import com.ruchij.api.utils.SingleFlight;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * {@link UserDao} where concurrent reads of the same user by id share a single read of another {@link UserDao}
+ */
+public class CoalescingUserDaoImpl implements UserDao {
+    private final UserDao userDao;
+    private final SingleFlight<String, Optional<User>> userReads;
+
+    public CoalescingUserDaoImpl(UserDao userDao, MetricsRegistry metricsRegistry) {
+        this.userDao = userDao;
+        this.userReads = new SingleFlight<>("single-flight.users", metricsRegistry);
+    }
+
+    @Override
+    public User insert(User user) throws ResourceConflictException {
+        try {
+            return this.userDao.insert(user);
+        } finally {
+            this.userReads.forget(user.id());
+        }
+    }
+
+    @Override
+    public UserCredentials insert(UserCredentials userCredentials) {
+        return this.userDao.insert(userCredentials);
+    }
+
+    @Override
+    public UserCredentials update(UserCredentials userCredentials) {
+        return this.userDao.update(userCredentials);
+    }
+
+    @Override
+    public Optional<UserCredentials> findCredentialsById(String userId) {
+        return this.userDao.findCredentialsById(userId);
+    }
+
+    @Override
+    public Optional<User> findById(String userId) {
+        return this.userReads.execute(userId, () -> this.userDao.findById(userId));
+    }
+
+    @Override
+    public List<User> findByIds(Collection<String> userIds) {
+        return this.userDao.findByIds(userIds);
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return this.userDao.findByUsername(username);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return this.userDao.findByEmail(email);
+    }
+
+    @Override
+    public Optional<UserWithCredentials> findWithCredentialsByEmail(String email) {
+        return this.userDao.findWithCredentialsByEmail(email);
+    }
+
+    @Override
+    public List<User> searchByUsername(String usernamePrefix, int limit) {
+        return this.userDao.searchByUsername(usernamePrefix, limit);
+    }
+
+    @Override
+    public long count() {
+        return this.userDao.count();
+    }
+
+    @Override
+    public void forEachUsername(Consumer<String> consumer) {
+        this.userDao.forEachUsername(consumer);
+    }
+}
@@ -1,20 +1,35 @@
 package com.ruchij.api.dao.user;
 
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.client.result.InsertOneResult;
+import com.mongodb.client.result.UpdateResult;
+import com.ruchij.api.dao.MongoIndex;
 import com.ruchij.api.dao.user.models.User;
 import com.ruchij.api.dao.user.models.UserCredentials;
+import com.ruchij.api.dao.user.models.UserWithCredentials;
+import com.ruchij.api.exception.ResourceConflictException;
 import org.bson.codecs.pojo.annotations.BsonId;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 
 public class MongoUserDaoImpl implements UserDao {
+    private static final String USERNAME_INDEX = "username_1";
+
     private final MongoCollection<MongoUser> userCollection;
     private final MongoCollection<UserCredentials> userCredentialsCollection;
 
@@ -24,9 +39,39 @@ public class MongoUserDaoImpl implements UserDao {
             mongoDatabase.getCollection("user-credentials-%s".formatted(collectionNameSuffix), UserCredentials.class);
     }
 
+    public List<MongoIndex> indexes() {
+        return List.of(
+            // Existing users with the same username have to be renamed before this index can be created
+            new MongoIndex(
+                this.userCollection,
+                Indexes.ascending("username"),
+                new IndexOptions().name(USERNAME_INDEX).unique(true)
+            ),
+            // Guest users have no email
+            new MongoIndex(
+                this.userCollection,
+                Indexes.ascending("email"),
+                new IndexOptions().partialFilterExpression(Filters.exists("email"))
+            )
+        );
+    }
+
     @Override
-    public User insert(User user) {
-        InsertOneResult insertOneResult = this.userCollection.insertOne(MongoUser.fromUser(user));
+    public User insert(User user) throws ResourceConflictException {
+        try {
+            InsertOneResult insertOneResult = this.userCollection.insertOne(MongoUser.fromUser(user));
+        } catch (MongoWriteException mongoWriteException) {
+            if (mongoWriteException.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                // The message of a duplicate key error names the index which was violated
+                if (mongoWriteException.getError().getMessage().contains("index: %s ".formatted(USERNAME_INDEX))) {
+                    throw new ResourceConflictException("username=%s already exists".formatted(user.username()));
+                }
+
+                throw new ResourceConflictException("userId=%s already exists".formatted(user.id()));
+            }
+
+            throw mongoWriteException;
+        }
 
         return user;
     }
@@ -38,6 +83,16 @@ public class MongoUserDaoImpl implements UserDao {
         return userCredentials;
     }
 
+    @Override
+    public UserCredentials update(UserCredentials userCredentials) {
+        UpdateResult updateResult = this.userCredentialsCollection.replaceOne(
+            Filters.eq("_id", userCredentials.userId()),
+            userCredentials
+        );
+
+        return userCredentials;
+    }
+
     @Override
     public Optional<UserCredentials> findCredentialsById(String userId) {
         return Optional.ofNullable(this.userCredentialsCollection.find(Filters.eq("_id", userId)).first());
@@ -49,6 +104,11 @@ public class MongoUserDaoImpl implements UserDao {
             .map(MongoUser::toUser);
     }
 
+    @Override
+    public List<User> findByIds(Collection<String> userIds) {
+        return this.userCollection.find(Filters.in("_id", userIds)).map(MongoUser::toUser).into(new ArrayList<>());
+    }
+
     @Override
     public Optional<User> findByUsername(String username) {
         return Optional.ofNullable(this.userCollection.find(Filters.eq("username", username)).first())
@@ -57,16 +117,80 @@ public class MongoUserDaoImpl implements UserDao {
 
     @Override
     public Optional<User> findByEmail(String email) {
-        return Optional.ofNullable(this.userCollection.find(Filters.eq("email", email)).first())
-            .map(MongoUser::toUser);
+        return Optional.ofNullable(findByEmailQuery(email).first()).map(MongoUser::toUser);
+    }
+
+    FindIterable<MongoUser> findByEmailQuery(String email) {
+        return this.userCollection.find(Filters.eq("email", email));
     }
 
     @Override
-    public List<User> searchByUsername(String username) {
+    public Optional<UserWithCredentials> findWithCredentialsByEmail(String email) {
+        MongoUserWithCredentials mongoUserWithCredentials = this.userCollection
+            .aggregate(
+                List.of(
+                    Aggregates.match(Filters.eq("email", email)),
+                    Aggregates.limit(1),
+                    Aggregates.lookup(
+                        this.userCredentialsCollection.getNamespace().getCollectionName(),
+                        "_id",
+                        "_id",
+                        "credentials"
+                    )
+                ),
+                MongoUserWithCredentials.class
+            )
+            .first();
+
+        return Optional.ofNullable(mongoUserWithCredentials)
+            .flatMap(userWithCredentials ->
+                userWithCredentials.credentials().stream()
+                    .findFirst()
+                    .map(userCredentials -> new UserWithCredentials(userWithCredentials.toUser(), userCredentials))
+            );
+    }
+
+    @Override
+    public List<User> searchByUsername(String usernamePrefix, int limit) {
+        return searchByUsernameQuery(usernamePrefix, limit).map(MongoUser::toUser).into(new ArrayList<>());
+    }
+
+    FindIterable<MongoUser> searchByUsernameQuery(String usernamePrefix, int limit) {
+        // A range rather than a regex, so that the prefix is never interpreted and is bounded by the username index
         return this.userCollection
-            .find(Filters.regex("username", Pattern.compile(username)))
-            .map(MongoUser::toUser)
-            .into(new ArrayList<>());
+            .find(
+                Filters.and(
+                    Filters.gte("username", usernamePrefix),
+                    Filters.lt("username", usernamePrefix + Character.MAX_VALUE)
+                )
+            )
+            .sort(Sorts.ascending("username"))
+            .limit(limit);
+    }
+
+    @Override
+    public long count() {
+        return this.userCollection.countDocuments();
+    }
+
+    @Override
+    public void forEachUsername(Consumer<String> consumer) {
+        this.userCollection
+            .find()
+            .projection(Projections.include("username"))
+            .forEach(mongoUser -> consumer.accept(mongoUser.username()));
+    }
+
+    public record MongoUserWithCredentials(
+        @BsonId String id,
+        String username,
+        String email,
+        Instant createdAt,
+        List<UserCredentials> credentials
+    ) {
+        private User toUser() {
+            return new User(this.id, this.username, Optional.ofNullable(this.email), this.createdAt);
+        }
     }
 
     public record MongoUser(@BsonId String id, String username, String email, Instant createdAt) {
@@ -2,22 +2,48 @@ package com.ruchij.api.dao.user;
 
 import com.ruchij.api.dao.user.models.User;
 import com.ruchij.api.dao.user.models.UserCredentials;
+import com.ruchij.api.dao.user.models.UserWithCredentials;
+import com.ruchij.api.exception.ResourceConflictException;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserDao {
-    User insert(User user);
+    /**
+     * @throws ResourceConflictException if the username is already taken
+     */
+    User insert(User user) throws ResourceConflictException;
 
     UserCredentials insert(UserCredentials userCredentials);
 
+    UserCredentials update(UserCredentials userCredentials);
+
     Optional<UserCredentials> findCredentialsById(String userId);
 
     Optional<User> findById(String userId);
 
+    /**
+     * Finds the users which exist in a single query, in no particular order
+     */
+    List<User> findByIds(Collection<String> userIds);
+
     Optional<User> findByUsername(String username);
 
     Optional<User> findByEmail(String email);
 
-    List<User> searchByUsername(String username);
+    /**
+     * Finds the user and their credentials in a single query
+     */
+    Optional<UserWithCredentials> findWithCredentialsByEmail(String email);
+
+    /**
+     * Users whose username starts with the prefix, ordered by username
+     */
+    List<User> searchByUsername(String usernamePrefix, int limit);
+
+    long count();
+
+    void forEachUsername(Consumer<String> consumer);
 }
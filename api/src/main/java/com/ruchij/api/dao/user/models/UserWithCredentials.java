@@ -0,0 +1,4 @@
+package com.ruchij.api.dao.user.models;
+
+public record UserWithCredentials(User user, UserCredentials userCredentials) {
+}
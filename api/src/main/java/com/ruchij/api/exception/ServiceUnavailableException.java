@@ -0,0 +1,7 @@
+package com.ruchij.api.exception;
+
+public class ServiceUnavailableException extends Exception {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,33 @@
+package com.ruchij.api.metrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-process counters and gauges which are exposed by the service routes
+ */
+public class MetricsRegistry {
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+    public LongAdder counter(String name) {
+        return this.counters.computeIfAbsent(name, __ -> new LongAdder());
+    }
+
+    public void gauge(String name, Supplier<? extends Number> supplier) {
+        this.gauges.put(name, supplier);
+    }
+
+    public SortedMap<String, Number> snapshot() {
+        SortedMap<String, Number> snapshot = new TreeMap<>();
+
+        this.counters.forEach((name, counter) -> snapshot.put(name, counter.sum()));
+        this.gauges.forEach((name, gauge) -> snapshot.put(name, gauge.get()));
+
+        return snapshot;
+    }
+}
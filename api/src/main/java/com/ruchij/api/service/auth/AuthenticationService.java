@@ -4,9 +4,11 @@ import com.ruchij.api.dao.auth.models.AuthToken;
 import com.ruchij.api.dao.user.models.User;
 import com.ruchij.api.exception.AuthenticationException;
 import com.ruchij.api.exception.ResourceNotFoundException;
+import com.ruchij.api.exception.ServiceUnavailableException;
 
 public interface AuthenticationService {
-    AuthToken createAuthToken(String email, String password) throws ResourceNotFoundException, AuthenticationException;
+    AuthToken createAuthToken(String email, String password)
+        throws ResourceNotFoundException, AuthenticationException, ServiceUnavailableException;
 
     AuthToken createAuthToken(String userId) throws ResourceNotFoundException;
 
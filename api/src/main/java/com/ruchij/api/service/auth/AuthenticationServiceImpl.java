@@ -1,56 +1,99 @@
 package com.ruchij.api.service.auth;
 
+import com.ruchij.api.config.AuthenticationCacheConfiguration;
 import com.ruchij.api.dao.auth.AuthTokenDao;
 import com.ruchij.api.dao.auth.models.AuthToken;
 import com.ruchij.api.dao.user.UserDao;
 import com.ruchij.api.dao.user.models.User;
 import com.ruchij.api.dao.user.models.UserCredentials;
+import com.ruchij.api.dao.user.models.UserWithCredentials;
 import com.ruchij.api.exception.AuthenticationException;
 import com.ruchij.api.exception.ResourceNotFoundException;
+import com.ruchij.api.exception.ServiceUnavailableException;
+import com.ruchij.api.metrics.MetricsRegistry;
 import com.ruchij.api.service.hashing.PasswordHashingService;
 import com.ruchij.api.service.random.RandomGenerator;
+import com.ruchij.api.utils.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 public class AuthenticationServiceImpl implements AuthenticationService {
+    private static final Logger logger = LoggerFactory.getLogger(AuthenticationServiceImpl.class);
+
     private final UserDao userDao;
     private final AuthTokenDao authTokenDao;
     private final PasswordHashingService passwordHashingService;
     private final RandomGenerator randomGenerator;
     private final Clock clock;
+    private final Duration cacheTtl;
+    private final ExpiringCache<String, User> authenticatedUsers;
+    private final AtomicLong removedAuthTokens = new AtomicLong();
+    private final LongAdder cacheHits;
+    private final LongAdder cacheMisses;
 
     public AuthenticationServiceImpl(
         UserDao userDao,
         AuthTokenDao authTokenDao,
         PasswordHashingService passwordHashingService,
         RandomGenerator randomGenerator,
-        Clock clock
+        Clock clock,
+        AuthenticationCacheConfiguration authenticationCacheConfiguration,
+        MetricsRegistry metricsRegistry
     ) {
         this.userDao = userDao;
         this.authTokenDao = authTokenDao;
         this.passwordHashingService = passwordHashingService;
         this.randomGenerator = randomGenerator;
         this.clock = clock;
+        this.cacheTtl = authenticationCacheConfiguration.ttl();
+        this.authenticatedUsers = new ExpiringCache<>(authenticationCacheConfiguration.maxSize(), clock);
+        this.cacheHits = metricsRegistry.counter("authentication.cache.hits");
+        this.cacheMisses = metricsRegistry.counter("authentication.cache.misses");
+
+        metricsRegistry.gauge("authentication.cache.size", this.authenticatedUsers::size);
     }
 
     @Override
-    public AuthToken createAuthToken(String email, String password) throws ResourceNotFoundException, AuthenticationException {
-        User user = this.userDao.findByEmail(email)
+    public AuthToken createAuthToken(String email, String password)
+        throws ResourceNotFoundException, AuthenticationException, ServiceUnavailableException {
+        UserWithCredentials userWithCredentials = this.userDao.findWithCredentialsByEmail(email)
             .orElseThrow(() -> new ResourceNotFoundException("Unable to find user with email=%s".formatted(email)));
 
-        UserCredentials userCredentials = this.userDao.findCredentialsById(user.id())
-            .orElseThrow(() -> new IllegalStateException("User credentials not found for userId=%s".formatted(user.id())));
+        User user = userWithCredentials.user();
+        UserCredentials userCredentials = userWithCredentials.userCredentials();
 
         boolean isPasswordMatch = this.passwordHashingService.verifyPassword(password, userCredentials.hashedPassword());
 
         if (isPasswordMatch) {
+            this.rehashPassword(userCredentials, password);
+
             return this.generateAuthToken(user.id());
         } else {
             throw new AuthenticationException("Invalid password for email=%s".formatted(email));
         }
     }
 
+    private void rehashPassword(UserCredentials userCredentials, String password) {
+        if (!this.passwordHashingService.needsRehash(userCredentials.hashedPassword())) {
+            return;
+        }
+
+        try {
+            String hashedPassword = this.passwordHashingService.hashPassword(password);
+            this.userDao.update(new UserCredentials(userCredentials.userId(), hashedPassword));
+        } catch (ServiceUnavailableException serviceUnavailableException) {
+            // The password is rehashed on a later login instead
+            logger.warn("Unable to rehash password of userId={}", userCredentials.userId(), serviceUnavailableException);
+        }
+    }
+
     @Override
     public AuthToken createAuthToken(String userId) throws ResourceNotFoundException {
         User user = this.userDao.findById(userId)
@@ -71,19 +114,44 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
     @Override
     public User authenticate(String token) throws AuthenticationException {
+        Optional<User> cachedUser = this.authenticatedUsers.get(token);
+
+        if (cachedUser.isPresent()) {
+            this.cacheHits.increment();
+            return cachedUser.get();
+        }
+
+        this.cacheMisses.increment();
+        long removedAuthTokens = this.removedAuthTokens.get();
+
         AuthToken authToken = this.authTokenDao.findByToken(token)
             .orElseThrow(() -> new AuthenticationException("Invalid token"));
 
         User user = this.userDao.findById(authToken.userId())
             .orElseThrow(() -> new IllegalStateException("User not found for userId=%s".formatted(authToken.userId())));
 
+        // Skip caching when a token was removed during the lookup, as it may have been this token
+        if (removedAuthTokens == this.removedAuthTokens.get()) {
+            Instant cacheExpiresAt = this.clock.instant().plus(this.cacheTtl);
+            Instant tokenExpiresAt = authToken.issuedAt().plus(AuthTokenDao.TOKEN_TTL);
+
+            this.authenticatedUsers.put(
+                token,
+                user,
+                cacheExpiresAt.isBefore(tokenExpiresAt) ? cacheExpiresAt : tokenExpiresAt
+            );
+        }
+
         return user;
     }
 
     @Override
     public User removeAuthToken(String token) throws AuthenticationException {
         User user = this.authenticate(token);
+
         this.authTokenDao.deleteByToken(token);
+        this.removedAuthTokens.incrementAndGet();
+        this.authenticatedUsers.invalidate(token);
 
         return user;
     }
@@ -0,0 +1,298 @@
+package com.ruchij.api.service.auth;
+
+import com.ruchij.api.config.AuthenticationCacheConfiguration;
+import com.ruchij.api.config.TokenRevocationConfiguration;
+import com.ruchij.api.dao.auth.AuthTokenDao;
+import com.ruchij.api.dao.auth.models.AuthToken;
+import com.ruchij.api.dao.user.UserDao;
+import com.ruchij.api.dao.user.models.User;
+import com.ruchij.api.dao.user.models.UserCredentials;
+import com.ruchij.api.dao.user.models.UserWithCredentials;
+import com.ruchij.api.exception.AuthenticationException;
+import com.ruchij.api.exception.ResourceNotFoundException;
+import com.ruchij.api.exception.ServiceUnavailableException;
+import com.ruchij.api.metrics.MetricsRegistry;
+import com.ruchij.api.service.hashing.PasswordHashingService;
+import com.ruchij.api.utils.BloomFilter;
+import com.ruchij.api.utils.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Issues self-contained tokens of the form {@code <userId>.<issuedAt epoch millis>.<HMAC-SHA256 signature>}, which are
+ * verified without looking them up. Revoked tokens are stored in their own collection, whose TTL index removes them
+ * once they would have expired anyway, and mirrored in a {@link BloomFilter} so that only revoked tokens and
+ * false positives of the filter are looked up.
+ */
+public class SignedAuthenticationServiceImpl implements AuthenticationService {
+    private static final Logger logger = LoggerFactory.getLogger(SignedAuthenticationServiceImpl.class);
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final double REVOCATION_FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final UserDao userDao;
+    private final AuthTokenDao revokedAuthTokenDao;
+    private final PasswordHashingService passwordHashingService;
+    private final Clock clock;
+    private final Mac mac;
+    private final int expectedRevocationCount;
+    private final ReentrantLock revocationLock = new ReentrantLock();
+    private volatile BloomFilter revokedTokens;
+    private final Duration cacheTtl;
+    private final ExpiringCache<String, User> users;
+    private final LongAdder cacheHits;
+    private final LongAdder cacheMisses;
+    private final LongAdder revocationFalsePositives;
+
+    public SignedAuthenticationServiceImpl(
+        UserDao userDao,
+        AuthTokenDao revokedAuthTokenDao,
+        PasswordHashingService passwordHashingService,
+        Clock clock,
+        String signingKey,
+        AuthenticationCacheConfiguration authenticationCacheConfiguration,
+        TokenRevocationConfiguration tokenRevocationConfiguration,
+        MetricsRegistry metricsRegistry
+    ) {
+        this.userDao = userDao;
+        this.revokedAuthTokenDao = revokedAuthTokenDao;
+        this.passwordHashingService = passwordHashingService;
+        this.clock = clock;
+        this.expectedRevocationCount = tokenRevocationConfiguration.expectedCount();
+        this.revokedTokens = new BloomFilter(this.expectedRevocationCount, REVOCATION_FALSE_POSITIVE_PROBABILITY);
+        this.cacheTtl = authenticationCacheConfiguration.ttl();
+        this.users = new ExpiringCache<>(authenticationCacheConfiguration.maxSize(), clock);
+        this.cacheHits = metricsRegistry.counter("authentication.cache.hits");
+        this.cacheMisses = metricsRegistry.counter("authentication.cache.misses");
+        this.revocationFalsePositives = metricsRegistry.counter("authentication.revocations.false-positives");
+
+        try {
+            this.mac = Mac.getInstance(HMAC_ALGORITHM);
+            this.mac.init(new SecretKeySpec(signingKey.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+        } catch (GeneralSecurityException generalSecurityException) {
+            throw new IllegalStateException("Unable to initialise %s".formatted(HMAC_ALGORITHM), generalSecurityException);
+        }
+
+        metricsRegistry.gauge("authentication.cache.size", this.users::size);
+    }
+
+    /**
+     * Loads the revoked tokens and then reloads them every {@code reloadInterval}, to pick up the tokens revoked by
+     * other instances
+     */
+    public static SignedAuthenticationServiceImpl create(
+        UserDao userDao,
+        AuthTokenDao revokedAuthTokenDao,
+        PasswordHashingService passwordHashingService,
+        Clock clock,
+        String signingKey,
+        AuthenticationCacheConfiguration authenticationCacheConfiguration,
+        TokenRevocationConfiguration tokenRevocationConfiguration,
+        MetricsRegistry metricsRegistry,
+        ScheduledExecutorService scheduledExecutorService
+    ) {
+        SignedAuthenticationServiceImpl signedAuthenticationService = new SignedAuthenticationServiceImpl(
+            userDao,
+            revokedAuthTokenDao,
+            passwordHashingService,
+            clock,
+            signingKey,
+            authenticationCacheConfiguration,
+            tokenRevocationConfiguration,
+            metricsRegistry
+        );
+
+        signedAuthenticationService.reloadRevokedTokens();
+
+        long reloadInterval = tokenRevocationConfiguration.reloadInterval().toMillis();
+
+        scheduledExecutorService.scheduleAtFixedRate(
+            () -> {
+                try {
+                    signedAuthenticationService.reloadRevokedTokens();
+                } catch (Exception exception) {
+                    logger.error("Error reloading revoked auth tokens", exception);
+                }
+            },
+            reloadInterval,
+            reloadInterval,
+            TimeUnit.MILLISECONDS
+        );
+
+        return signedAuthenticationService;
+    }
+
+    @Override
+    public AuthToken createAuthToken(String email, String password)
+        throws ResourceNotFoundException, AuthenticationException, ServiceUnavailableException {
+        UserWithCredentials userWithCredentials = this.userDao.findWithCredentialsByEmail(email)
+            .orElseThrow(() -> new ResourceNotFoundException("Unable to find user with email=%s".formatted(email)));
+
+        User user = userWithCredentials.user();
+        UserCredentials userCredentials = userWithCredentials.userCredentials();
+
+        boolean isPasswordMatch = this.passwordHashingService.verifyPassword(password, userCredentials.hashedPassword());
+
+        if (isPasswordMatch) {
+            this.rehashPassword(userCredentials, password);
+
+            return this.generateAuthToken(user.id());
+        } else {
+            throw new AuthenticationException("Invalid password for email=%s".formatted(email));
+        }
+    }
+
+    private void rehashPassword(UserCredentials userCredentials, String password) {
+        if (!this.passwordHashingService.needsRehash(userCredentials.hashedPassword())) {
+            return;
+        }
+
+        try {
+            String hashedPassword = this.passwordHashingService.hashPassword(password);
+            this.userDao.update(new UserCredentials(userCredentials.userId(), hashedPassword));
+        } catch (ServiceUnavailableException serviceUnavailableException) {
+            // The password is rehashed on a later login instead
+            logger.warn("Unable to rehash password of userId={}", userCredentials.userId(), serviceUnavailableException);
+        }
+    }
+
+    @Override
+    public AuthToken createAuthToken(String userId) throws ResourceNotFoundException {
+        User user = this.userDao.findById(userId)
+            .orElseThrow(() -> new ResourceNotFoundException("Unable to find user with userId=%s".formatted(userId)));
+
+        return this.generateAuthToken(user.id());
+    }
+
+    private AuthToken generateAuthToken(String userId) {
+        // The token only carries milliseconds
+        Instant timestamp = this.clock.instant().truncatedTo(ChronoUnit.MILLIS);
+        String payload = "%s.%s".formatted(userId, timestamp.toEpochMilli());
+        String token = payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(this.sign(payload));
+
+        return new AuthToken(token, userId, timestamp);
+    }
+
+    @Override
+    public User authenticate(String token) throws AuthenticationException {
+        AuthToken authToken = this.verify(token);
+
+        return this.user(authToken.userId());
+    }
+
+    @Override
+    public User removeAuthToken(String token) throws AuthenticationException {
+        AuthToken authToken = this.verify(token);
+        User user = this.user(authToken.userId());
+
+        this.revocationLock.lock();
+
+        try {
+            this.revokedAuthTokenDao.insert(authToken);
+            this.revokedTokens.put(token);
+        } finally {
+            this.revocationLock.unlock();
+        }
+
+        return user;
+    }
+
+    /**
+     * Replaces the revoked tokens with the ones in the revoked tokens collection, which also drops the tokens removed by
+     * the TTL index
+     */
+    void reloadRevokedTokens() {
+        this.revocationLock.lock();
+
+        try {
+            BloomFilter revokedTokens = new BloomFilter(this.expectedRevocationCount, REVOCATION_FALSE_POSITIVE_PROBABILITY);
+            this.revokedAuthTokenDao.forEach(authToken -> revokedTokens.put(authToken.token()));
+
+            this.revokedTokens = revokedTokens;
+        } finally {
+            this.revocationLock.unlock();
+        }
+    }
+
+    private AuthToken verify(String token) throws AuthenticationException {
+        int signatureIndex = token.lastIndexOf('.');
+        int issuedAtIndex = signatureIndex < 0 ? -1 : token.lastIndexOf('.', signatureIndex - 1);
+
+        if (issuedAtIndex < 0) {
+            throw new AuthenticationException("Invalid token");
+        }
+
+        String payload = token.substring(0, signatureIndex);
+        byte[] signature;
+        Instant issuedAt;
+
+        try {
+            signature = Base64.getUrlDecoder().decode(token.substring(signatureIndex + 1));
+            issuedAt = Instant.ofEpochMilli(Long.parseLong(token.substring(issuedAtIndex + 1, signatureIndex)));
+        } catch (IllegalArgumentException illegalArgumentException) {
+            throw new AuthenticationException("Invalid token");
+        }
+
+        if (!MessageDigest.isEqual(this.sign(payload), signature)) {
+            throw new AuthenticationException("Invalid token");
+        }
+
+        if (!issuedAt.plus(AuthTokenDao.TOKEN_TTL).isAfter(this.clock.instant())) {
+            throw new AuthenticationException("Expired token");
+        }
+
+        if (this.revokedTokens.mightContain(token)) {
+            if (this.revokedAuthTokenDao.findByToken(token).isPresent()) {
+                throw new AuthenticationException("Invalid token");
+            }
+
+            this.revocationFalsePositives.increment();
+        }
+
+        return new AuthToken(token, payload.substring(0, issuedAtIndex), issuedAt);
+    }
+
+    private User user(String userId) {
+        Optional<User> cachedUser = this.users.get(userId);
+
+        if (cachedUser.isPresent()) {
+            this.cacheHits.increment();
+            return cachedUser.get();
+        }
+
+        this.cacheMisses.increment();
+
+        User user = this.userDao.findById(userId)
+            .orElseThrow(() -> new IllegalStateException("User not found for userId=%s".formatted(userId)));
+
+        this.users.put(userId, user, this.clock.instant().plus(this.cacheTtl));
+
+        return user;
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            // Mac instances are not thread safe
+            Mac mac = (Mac) this.mac.clone();
+
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (CloneNotSupportedException cloneNotSupportedException) {
+            throw new IllegalStateException(cloneNotSupportedException);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.ruchij.api.service.game;
+
+import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.exception.ValidationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link GameEngine} which packs the stones of each player into a {@code long}, one bit per cell.
+ * The masks of every winning line are computed once, so checking for a winner is a handful of AND/compare
+ * operations. Only grids with at most 64 cells are supported.
+ */
+public class BitboardGameEngine implements GameEngine {
+    public static final int MAX_GRID_SIZE = 8;
+    private static final int DEFAULT_GRID_SIZE = 3;
+
+    private final int gridSize;
+    private final WinningLine[] winningLines;
+
+    public BitboardGameEngine(int gridSize) {
+        if (gridSize < 1) {
+            throw new IllegalArgumentException("gridSize must be greater than 0");
+        }
+
+        if (gridSize > MAX_GRID_SIZE) {
+            throw new IllegalArgumentException("gridSize must not be greater than %s".formatted(MAX_GRID_SIZE));
+        }
+
+        this.gridSize = gridSize;
+        this.winningLines = winningLines(gridSize);
+    }
+
+    public BitboardGameEngine() {
+        this(DEFAULT_GRID_SIZE);
+    }
+
+    @Override
+    public void checkMove(Game game, String playerId, Game.Coordinate coordinate) throws ValidationException {
+        if (game.winner().isPresent()) {
+            throw new ValidationException("Game gameId=%s already has a winner".formatted(game.id()));
+        }
+
+        if (!game.playerOneId().equals(playerId) && !game.playerTwoId().equals(playerId)) {
+            throw new ValidationException("playerId=%s is not a player in gameId=%s".formatted(playerId, game.id()));
+        }
+
+        boolean isInBounds = isInBounds(coordinate);
+        boolean isVacant = !isInBounds || (occupied(game.moves()) & bit(coordinate)) == 0;
+
+        if (!isVacant) {
+            throw new ValidationException("%s is NOT vacant".formatted(coordinate));
+        }
+
+        boolean isPlayerTurn = game.moves().isEmpty() ?
+            game.playerOneId().equals(playerId) :
+            !game.moves().getLast().playerId().equals(playerId);
+
+        if (!isPlayerTurn) {
+            throw new ValidationException(
+                "It is NOT the current turn for playerId=%s in gameId=%s"
+                    .formatted(playerId, game.moves())
+            );
+        }
+
+        if (!isInBounds) {
+            throw new ValidationException("Coordinate x=%s, y=%s is out of bounds".formatted(coordinate.x(), coordinate.y()));
+        }
+    }
+
+    @Override
+    public Optional<Game.Winner> getWinner(Game game) {
+        List<Game.Move> moves = game.moves();
+        long playerOneStones = 0;
+        long playerTwoStones = 0;
+
+        for (int index = windowStart(moves); index < moves.size(); index++) {
+            Game.Move move = moves.get(index);
+
+            if (isInBounds(move.coordinate())) {
+                if (game.playerOneId().equals(move.playerId())) {
+                    playerOneStones |= bit(move.coordinate());
+                } else if (game.playerTwoId().equals(move.playerId())) {
+                    playerTwoStones |= bit(move.coordinate());
+                }
+            }
+        }
+
+        Optional<Game.Winner> playerOneWinner = winner(game.playerOneId(), playerOneStones);
+
+        if (playerOneWinner.isPresent()) {
+            return playerOneWinner;
+        }
+
+        return winner(game.playerTwoId(), playerTwoStones);
+    }
+
+    private Optional<Game.Winner> winner(String playerId, long stones) {
+        if (Long.bitCount(stones) >= gridSize) {
+            for (WinningLine winningLine : this.winningLines) {
+                if ((stones & winningLine.mask()) == winningLine.mask()) {
+                    return Optional.of(new Game.Winner(playerId, winningLine.winningRule(), winningLine.coordinates()));
+                }
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private long occupied(List<Game.Move> moves) {
+        long occupied = 0;
+
+        for (int index = windowStart(moves); index < moves.size(); index++) {
+            Game.Coordinate coordinate = moves.get(index).coordinate();
+
+            if (isInBounds(coordinate)) {
+                occupied |= bit(coordinate);
+            }
+        }
+
+        return occupied;
+    }
+
+    private int windowStart(List<Game.Move> moves) {
+        return Math.max(0, moves.size() - gridSize * 2);
+    }
+
+    private boolean isInBounds(Game.Coordinate coordinate) {
+        return coordinate.x() >= 0 && coordinate.x() < gridSize && coordinate.y() >= 0 && coordinate.y() < gridSize;
+    }
+
+    private long bit(Game.Coordinate coordinate) {
+        return 1L << (coordinate.y() * gridSize + coordinate.x());
+    }
+
+    private static WinningLine[] winningLines(int gridSize) {
+        List<WinningLine> winningLines = new ArrayList<>(gridSize * 2 + 2);
+
+        for (int y = 0; y < gridSize; y++) {
+            List<Game.Coordinate> coordinates = new ArrayList<>(gridSize);
+
+            for (int x = 0; x < gridSize; x++) {
+                coordinates.add(new Game.Coordinate(x, y));
+            }
+
+            winningLines.add(WinningLine.of(Game.WinningRule.Horizontal, coordinates, gridSize));
+        }
+
+        for (int x = 0; x < gridSize; x++) {
+            List<Game.Coordinate> coordinates = new ArrayList<>(gridSize);
+
+            for (int y = 0; y < gridSize; y++) {
+                coordinates.add(new Game.Coordinate(x, y));
+            }
+
+            winningLines.add(WinningLine.of(Game.WinningRule.Vertical, coordinates, gridSize));
+        }
+
+        List<Game.Coordinate> backDiagonal = new ArrayList<>(gridSize);
+        List<Game.Coordinate> forwardDiagonal = new ArrayList<>(gridSize);
+
+        for (int i = 0; i < gridSize; i++) {
+            backDiagonal.add(new Game.Coordinate(i, i));
+            forwardDiagonal.add(new Game.Coordinate(gridSize - 1 - i, i));
+        }
+
+        winningLines.add(WinningLine.of(Game.WinningRule.BackwardDiagonal, backDiagonal, gridSize));
+        winningLines.add(WinningLine.of(Game.WinningRule.ForwardDiagonal, forwardDiagonal, gridSize));
+
+        return winningLines.toArray(WinningLine[]::new);
+    }
+
+    record WinningLine(Game.WinningRule winningRule, List<Game.Coordinate> coordinates, long mask) {
+        static WinningLine of(Game.WinningRule winningRule, List<Game.Coordinate> coordinates, int gridSize) {
+            long mask = 0;
+
+            for (Game.Coordinate coordinate : coordinates) {
+                mask |= 1L << (coordinate.y() * gridSize + coordinate.x());
+            }
+
+            return new WinningLine(winningRule, List.copyOf(coordinates), mask);
+        }
+    }
+}
@@ -1,16 +1,24 @@
 package com.ruchij.api.service.game;
 
 import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.dao.game.models.PageCursor;
 import com.ruchij.api.dao.game.models.PendingGame;
 import com.ruchij.api.exception.ResourceConflictException;
 import com.ruchij.api.exception.ResourceNotFoundException;
 import com.ruchij.api.exception.ValidationException;
+import com.ruchij.api.service.game.models.CursorPage;
+import com.ruchij.api.service.game.models.GameDelta;
+import com.ruchij.api.service.game.models.GameVersion;
+import com.ruchij.api.service.game.models.PendingGameVersion;
 import com.ruchij.api.utils.ThrowableConsumer;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 public interface GameService {
+    int MAX_MOVES_LIMIT = 100;
+
     PendingGame createGame(String name, String playerId);
 
     Game startGame(String pendingGameId, String otherPlayerId)
@@ -20,12 +28,46 @@ public interface GameService {
         String gameId,
         String playerId,
         Game.Coordinate coordinate
-    ) throws ResourceNotFoundException, ValidationException;
+    ) throws ResourceNotFoundException, ValidationException, ResourceConflictException;
 
     Game getGameById(String gameId) throws ResourceNotFoundException;
 
+    /**
+     * Moves of the game in the order they were played, starting at {@code offset} and capped at
+     * {@link #MAX_MOVES_LIMIT}. Games only hold their latest moves, so this is how their earlier moves are read.
+     */
+    List<Game.Move> getMoves(String gameId, int limit, int offset)
+        throws ResourceNotFoundException, ValidationException;
+
+    /**
+     * Moves made after the first {@code sequence} moves of the game, capped at {@link #MAX_MOVES_LIMIT}
+     */
+    GameDelta getGameDelta(String gameId, int sequence) throws ResourceNotFoundException, ValidationException;
+
+    /**
+     * The version of the game as of its latest start or move through this instance, which is known without reading
+     * the game
+     */
+    Optional<GameVersion> getGameVersion(String gameId);
+
+    /**
+     * The version of the pending game as of its creation or start through this instance, which is known without
+     * reading the pending game
+     */
+    Optional<PendingGameVersion> getPendingGameVersion(String pendingGameId);
+
     PendingGame getPendingGameById(String pendingGameId) throws ResourceNotFoundException;
 
+    /**
+     * Changes whenever a pending game is created or started through this instance, so the pending games which were
+     * read at the same version have not changed since
+     */
+    String getLobbyVersion();
+
+    /**
+     * Listeners are called in the order of the moves of the game, once the move has been applied. They may be called
+     * on the thread which applied a later move, so they must hand the update off rather than block on slow I/O.
+     */
     String registerForUpdates(
         String gameId,
         ThrowableConsumer<Game.Move, IOException> moveUpdates,
@@ -39,4 +81,10 @@ public interface GameService {
     List<Game> getUnfinishedGamesByPlayerId(String playerId, int limit, int offset);
 
     List<PendingGame> getPendingGamesByPlayerId(String playerId, int limit, int offset);
+
+    CursorPage<PendingGame> getPendingGames(int limit, Optional<PageCursor> cursor);
+
+    CursorPage<Game> getUnfinishedGamesByPlayerId(String playerId, int limit, Optional<PageCursor> cursor);
+
+    CursorPage<PendingGame> getPendingGamesByPlayerId(String playerId, int limit, Optional<PageCursor> cursor);
 }
@@ -2,11 +2,17 @@ package com.ruchij.api.service.game;
 
 import com.ruchij.api.dao.game.GameDao;
 import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.dao.game.models.PageCursor;
 import com.ruchij.api.dao.game.models.PendingGame;
 import com.ruchij.api.exception.ResourceConflictException;
 import com.ruchij.api.exception.ResourceNotFoundException;
 import com.ruchij.api.exception.ValidationException;
 import com.ruchij.api.service.random.RandomGenerator;
+import com.ruchij.api.service.game.models.CursorPage;
+import com.ruchij.api.service.game.models.GameDelta;
+import com.ruchij.api.service.game.models.GameVersion;
+import com.ruchij.api.service.game.models.PendingGameVersion;
+import com.ruchij.api.utils.ExpiringCache;
 import com.ruchij.api.utils.ThrowableConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,32 +22,49 @@ import java.time.Clock;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class GameServiceImpl implements GameService {
     private static final Logger logger = LoggerFactory.getLogger(GameServiceImpl.class);
+    private static final int MOVE_LOCK_STRIPES = 1024;
+    private static final int GAME_VERSIONS_MAX_SIZE = 100_000;
 
     private final GameDao gameDao;
     private final GameEngine gameEngine;
-    private final ExecutorService executorService;
     private final Clock clock;
     private final RandomGenerator randomGenerator;
     private final Map<String, Map<String, ThrowableConsumer<Game.Move, IOException>>> moveUpdates = new ConcurrentHashMap<>();
     private final Map<String, Map<String, ThrowableConsumer<Game.Winner, IOException>>> winnerUpdates = new ConcurrentHashMap<>();
     private final Map<String, String> registrationIdToGameId = new ConcurrentHashMap<>();
+    private final Lock[] moveLocks = new Lock[MOVE_LOCK_STRIPES];
+    private final NotificationQueue[] notificationQueues = new NotificationQueue[MOVE_LOCK_STRIPES];
+    private final AtomicLong lobbyChanges = new AtomicLong();
+    private final ExpiringCache<String, GameVersion> gameVersions;
+    private final ExpiringCache<String, PendingGameVersion> pendingGameVersions;
+    private final long lobbyEpoch;
 
     public GameServiceImpl(
         GameDao gameDao,
         GameEngine gameEngine,
-        ExecutorService executorService,
         Clock clock,
         RandomGenerator randomGenerator
     ) {
         this.gameDao = gameDao;
         this.gameEngine = gameEngine;
-        this.executorService = executorService;
         this.clock = clock;
         this.randomGenerator = randomGenerator;
+        this.lobbyEpoch = clock.millis();
+        this.gameVersions = new ExpiringCache<>(GAME_VERSIONS_MAX_SIZE, clock);
+        this.pendingGameVersions = new ExpiringCache<>(GAME_VERSIONS_MAX_SIZE, clock);
+
+        for (int i = 0; i < MOVE_LOCK_STRIPES; i++) {
+            this.moveLocks[i] = new ReentrantLock();
+            this.notificationQueues[i] = new NotificationQueue();
+        }
     }
 
     @Override
@@ -51,6 +74,8 @@ public class GameServiceImpl implements GameService {
 
         PendingGame pendingGame = new PendingGame(uuid.toString(), name, instant, playerId, Optional.empty());
         this.gameDao.insertPendingGame(pendingGame);
+        this.lobbyChanges.incrementAndGet();
+        this.pendingGameVersions.put(pendingGame.id(), PendingGameVersion.of(pendingGame), Instant.MAX);
 
         return pendingGame;
     }
@@ -83,6 +108,9 @@ public class GameServiceImpl implements GameService {
             throw new ResourceConflictException("PendingGame had no updates");
         }
 
+        this.lobbyChanges.incrementAndGet();
+        this.pendingGameVersions.put(pendingGameId, PendingGameVersion.of(updatedPendingGame), Instant.MAX);
+
         String playerOneId = this.randomGenerator.booleanValue() ? pendingGame.createdBy() : otherPlayerId;
         String playerTwoId = playerOneId.equals(otherPlayerId) ? pendingGame.createdBy() : otherPlayerId;
 
@@ -99,13 +127,37 @@ public class GameServiceImpl implements GameService {
         );
 
         this.gameDao.insertGame(game);
+        this.gameVersions.put(game.id(), GameVersion.of(game), Instant.MAX);
 
         return game;
     }
 
     @Override
     public Game addMove(String gameId, String playerId, Game.Coordinate coordinate)
-        throws ResourceNotFoundException, ValidationException {
+        throws ResourceNotFoundException, ValidationException, ResourceConflictException {
+        // Moves of the same game are applied one at a time, while moves of other games carry on in parallel
+        int stripe = stripe(gameId);
+        Lock moveLock = this.moveLocks[stripe];
+        moveLock.lock();
+
+        try {
+            return this.applyMove(gameId, playerId, coordinate);
+        } finally {
+            moveLock.unlock();
+
+            // Listeners are notified once the move lock is released, so slow listeners never hold up other moves
+            this.notificationQueues[stripe].run();
+        }
+    }
+
+    private static int stripe(String gameId) {
+        int hash = gameId.hashCode();
+
+        return (hash ^ (hash >>> 16)) & (MOVE_LOCK_STRIPES - 1);
+    }
+
+    private Game applyMove(String gameId, String playerId, Game.Coordinate coordinate)
+        throws ResourceNotFoundException, ValidationException, ResourceConflictException {
         Game game = this.getGameById(gameId);
 
         if (game.winner().isPresent()) {
@@ -115,8 +167,8 @@ public class GameServiceImpl implements GameService {
         this.gameEngine.checkMove(game, playerId, coordinate);
 
         Instant instant = this.clock.instant();
-        String moveId = this.randomGenerator.uuid().toString();
-        Game.Move move = new Game.Move(moveId, playerId, instant, coordinate);
+        int moveCount = game.moveCount();
+        Game.Move move = new Game.Move(Game.Move.moveId(gameId, moveCount), playerId, instant, coordinate);
         game.moves().add(move);
 
         Optional<Game.Winner> winner = this.gameEngine.getWinner(game);
@@ -131,52 +183,52 @@ public class GameServiceImpl implements GameService {
                 game.playerOneId(),
                 game.playerTwoId(),
                 game.moves(),
-                winner
+                winner,
+                game.moveOffset()
             );
 
-        this.gameDao.updateGame(updatedGame);
-
-        this.moveUpdates.getOrDefault(gameId, new HashMap<>())
-            .forEach((registrationId, moveUpdates) ->
-                this.executorService.submit(() -> {
-                        try {
-                            moveUpdates.accept(move);
-                        } catch (IOException e) {
-                            this.unregisterForUpdates(registrationId);
-                        } catch (Exception e) {
-                            logger.error(
-                                "Error notifying for move updates. gameId=%s, registrationId=%s".formatted(gameId, registrationId),
-                                e
-                            );
-                            this.unregisterForUpdates(registrationId);
-                        }
-                    }
-                )
-            );
+        boolean isMoveAppended = this.gameDao.appendMoves(game, moveCount, List.of(move), winner);
+
+        if (!isMoveAppended) {
+            this.gameVersions.invalidate(gameId);
+            throw new ResourceConflictException("Game gameId=%s was updated by another request".formatted(gameId));
+        }
+
+        // Versions are recorded while the move lock is held, so they are recorded in the order of the moves
+        this.gameVersions.put(gameId, GameVersion.of(updatedGame), Instant.MAX);
 
+        // Notifications are queued while the move lock is still held, so listeners receive the moves of a game in order
+        NotificationQueue notificationQueue = this.notificationQueues[stripe(gameId)];
+        notificationQueue.add(() -> this.notifyListeners(gameId, this.moveUpdates, move, "move"));
         winner.ifPresent(gameWinner ->
-            this.winnerUpdates.getOrDefault(gameId, new HashMap<>())
-                .forEach((registrationId, winnerUpdates) ->
-                    this.executorService.submit(() -> {
-                            try {
-                                winnerUpdates.accept(gameWinner);
-                            } catch (IOException e) {
-                                this.unregisterForUpdates(registrationId);
-                            } catch (Exception e) {
-                                logger.error(
-                                    "Error notifying for winner updates. gameId=%s, registrationId=%s".formatted(gameId, registrationId),
-                                    e
-                                );
-                                this.unregisterForUpdates(registrationId);
-                            }
-                        }
-                    )
-                )
+            notificationQueue.add(() -> this.notifyListeners(gameId, this.winnerUpdates, gameWinner, "winner"))
         );
 
         return updatedGame;
     }
 
+    private <T> void notifyListeners(
+        String gameId,
+        Map<String, Map<String, ThrowableConsumer<T, IOException>>> listeners,
+        T update,
+        String updateType
+    ) {
+        listeners.getOrDefault(gameId, Map.of())
+            .forEach((registrationId, listener) -> {
+                try {
+                    listener.accept(update);
+                } catch (IOException e) {
+                    this.unregisterForUpdates(registrationId);
+                } catch (Exception e) {
+                    logger.error(
+                        "Error notifying for %s updates. gameId=%s, registrationId=%s".formatted(updateType, gameId, registrationId),
+                        e
+                    );
+                    this.unregisterForUpdates(registrationId);
+                }
+            });
+    }
+
     @Override
     public Game getGameById(String gameId) throws ResourceNotFoundException {
         Game game = this.gameDao.findGameById(gameId)
@@ -185,6 +237,57 @@ public class GameServiceImpl implements GameService {
         return game;
     }
 
+    @Override
+    public List<Game.Move> getMoves(String gameId, int limit, int offset)
+        throws ResourceNotFoundException, ValidationException {
+        if (limit < 1) {
+            throw new ValidationException("limit=%s must be greater than 0".formatted(limit));
+        }
+
+        if (offset < 0) {
+            throw new ValidationException("offset=%s must not be negative".formatted(offset));
+        }
+
+        return this.gameDao.findMoves(gameId, Math.min(limit, MAX_MOVES_LIMIT), offset)
+            .orElseThrow(() -> new ResourceNotFoundException("Game with gameId=%s not found".formatted(gameId)));
+    }
+
+    @Override
+    public GameDelta getGameDelta(String gameId, int sequence) throws ResourceNotFoundException, ValidationException {
+        Game game = this.getGameById(gameId);
+
+        if (sequence < 0 || sequence > game.moveCount()) {
+            throw new ValidationException(
+                "sequence=%s must be between 0 and moveCount=%s".formatted(sequence, game.moveCount())
+            );
+        }
+
+        // Pollers which keep up only need the moves which the game holds
+        List<Game.Move> moves = sequence >= game.moveOffset() ?
+            game.heldMoves(MAX_MOVES_LIMIT, sequence) :
+            this.getMoves(gameId, MAX_MOVES_LIMIT, sequence);
+
+        return new GameDelta(gameId, sequence + moves.size(), moves, game.winner());
+    }
+
+    /**
+     * Versions differ between instances, so that a version from another instance never matches
+     */
+    @Override
+    public String getLobbyVersion() {
+        return "%s-%s".formatted(this.lobbyEpoch, this.lobbyChanges.get());
+    }
+
+    @Override
+    public Optional<GameVersion> getGameVersion(String gameId) {
+        return this.gameVersions.get(gameId);
+    }
+
+    @Override
+    public Optional<PendingGameVersion> getPendingGameVersion(String pendingGameId) {
+        return this.pendingGameVersions.get(pendingGameId);
+    }
+
     @Override
     public PendingGame getPendingGameById(String pendingGameId) throws ResourceNotFoundException {
         PendingGame pendingGame = this.gameDao.findPendingGameById(pendingGameId)
@@ -241,4 +344,67 @@ public class GameServiceImpl implements GameService {
     public List<PendingGame> getPendingGamesByPlayerId(String playerId, int limit, int offset) {
         return this.gameDao.getPendingGamesByPlayerId(playerId, limit, offset);
     }
+
+    @Override
+    public CursorPage<PendingGame> getPendingGames(int limit, Optional<PageCursor> cursor) {
+        return CursorPage.of(this.gameDao.getPendingGames(limit, cursor), limit, GameServiceImpl::pageCursor);
+    }
+
+    @Override
+    public CursorPage<Game> getUnfinishedGamesByPlayerId(String playerId, int limit, Optional<PageCursor> cursor) {
+        return CursorPage.of(
+            this.gameDao.findGamesByPlayerId(playerId, limit, cursor),
+            limit,
+            GameServiceImpl::pageCursor
+        );
+    }
+
+    @Override
+    public CursorPage<PendingGame> getPendingGamesByPlayerId(String playerId, int limit, Optional<PageCursor> cursor) {
+        return CursorPage.of(
+            this.gameDao.getPendingGamesByPlayerId(playerId, limit, cursor),
+            limit,
+            GameServiceImpl::pageCursor
+        );
+    }
+
+    private static PageCursor pageCursor(PendingGame pendingGame) {
+        return new PageCursor(pendingGame.createdAt(), pendingGame.id());
+    }
+
+    private static PageCursor pageCursor(Game game) {
+        return new PageCursor(game.createdAt(), game.id());
+    }
+
+    /**
+     * Runs the queued notifications one at a time in the order they were queued, on whichever thread finds that no
+     * other thread is already running them
+     */
+    private static final class NotificationQueue {
+        private final Queue<Runnable> notifications = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger runRequests = new AtomicInteger();
+
+        void add(Runnable notification) {
+            this.notifications.add(notification);
+        }
+
+        void run() {
+            if (this.runRequests.getAndIncrement() != 0) {
+                return;
+            }
+
+            int runRequests = 1;
+
+            do {
+                Runnable notification;
+
+                while ((notification = this.notifications.poll()) != null) {
+                    notification.run();
+                }
+
+                // Notifications which were queued while running are run by this thread as well
+                runRequests = this.runRequests.addAndGet(-runRequests);
+            } while (runRequests != 0);
+        }
+    }
 }
@@ -0,0 +1,198 @@
+package com.ruchij.api.service.game;
+
+import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.exception.ValidationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link GameEngine} for arbitrarily sized grids where a player wins with {@code winLength} stones in a row.
+ * Only the lines through the last move can have changed, so the winner check counts the stones of the last player
+ * on the row, column and both diagonals through that move, and only looks for a run on lines which have enough of them.
+ * Just like {@link GameEngineImpl}, only the last {@code gridSize * 2} moves are on the board.
+ */
+public class IncrementalGameEngine implements GameEngine {
+    private static final Line[] LINES = Line.values();
+
+    private final int gridSize;
+    private final int winLength;
+
+    public IncrementalGameEngine(int gridSize, int winLength) {
+        if (gridSize < 1) {
+            throw new IllegalArgumentException("gridSize must be greater than 0");
+        }
+
+        if (winLength < 1 || winLength > gridSize) {
+            throw new IllegalArgumentException("winLength must be between 1 and gridSize=%s".formatted(gridSize));
+        }
+
+        this.gridSize = gridSize;
+        this.winLength = winLength;
+    }
+
+    public IncrementalGameEngine(int gridSize) {
+        this(gridSize, gridSize);
+    }
+
+    @Override
+    public void checkMove(Game game, String playerId, Game.Coordinate coordinate) throws ValidationException {
+        if (game.winner().isPresent()) {
+            throw new ValidationException("Game gameId=%s already has a winner".formatted(game.id()));
+        }
+
+        if (!game.playerOneId().equals(playerId) && !game.playerTwoId().equals(playerId)) {
+            throw new ValidationException("playerId=%s is not a player in gameId=%s".formatted(playerId, game.id()));
+        }
+
+        List<Game.Move> moves = game.moves();
+
+        for (int index = windowStart(moves); index < moves.size(); index++) {
+            if (moves.get(index).coordinate().equals(coordinate)) {
+                throw new ValidationException("%s is NOT vacant".formatted(coordinate));
+            }
+        }
+
+        boolean isPlayerTurn = moves.isEmpty() ?
+            game.playerOneId().equals(playerId) :
+            !moves.getLast().playerId().equals(playerId);
+
+        if (!isPlayerTurn) {
+            throw new ValidationException(
+                "It is NOT the current turn for playerId=%s in gameId=%s"
+                    .formatted(playerId, game.moves())
+            );
+        }
+
+        if (!isInBounds(coordinate)) {
+            throw new ValidationException("Coordinate x=%s, y=%s is out of bounds".formatted(coordinate.x(), coordinate.y()));
+        }
+    }
+
+    @Override
+    public Optional<Game.Winner> getWinner(Game game) {
+        List<Game.Move> moves = game.moves();
+
+        if (moves.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Game.Move lastMove = moves.getLast();
+        Game.Coordinate lastCoordinate = lastMove.coordinate();
+
+        if (!isInBounds(lastCoordinate)) {
+            return Optional.empty();
+        }
+
+        int[] lineCounts = new int[LINES.length];
+
+        for (int index = windowStart(moves); index < moves.size(); index++) {
+            Game.Move move = moves.get(index);
+
+            if (move.playerId().equals(lastMove.playerId())) {
+                for (Line line : LINES) {
+                    if (line.offset(lastCoordinate, move.coordinate()) != Line.NOT_ON_LINE) {
+                        lineCounts[line.ordinal()]++;
+                    }
+                }
+            }
+        }
+
+        for (Line line : LINES) {
+            if (lineCounts[line.ordinal()] >= winLength) {
+                List<Game.Coordinate> coordinates = run(moves, lastMove, line);
+
+                if (coordinates.size() >= winLength) {
+                    return Optional.of(new Game.Winner(lastMove.playerId(), line.winningRule, coordinates));
+                }
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private List<Game.Coordinate> run(List<Game.Move> moves, Game.Move lastMove, Line line) {
+        Game.Coordinate origin = lastMove.coordinate();
+        boolean[] stones = new boolean[gridSize * 2 - 1];
+
+        for (int index = windowStart(moves); index < moves.size(); index++) {
+            Game.Move move = moves.get(index);
+
+            if (move.playerId().equals(lastMove.playerId())) {
+                int offset = line.offset(origin, move.coordinate());
+
+                if (offset != Line.NOT_ON_LINE) {
+                    stones[offset + gridSize - 1] = true;
+                }
+            }
+        }
+
+        int start = 0;
+        int end = 0;
+
+        while (start - 1 > -gridSize && stones[start - 1 + gridSize - 1]) {
+            start--;
+        }
+
+        while (end + 1 < gridSize && stones[end + 1 + gridSize - 1]) {
+            end++;
+        }
+
+        List<Game.Coordinate> coordinates = new ArrayList<>(end - start + 1);
+
+        for (int offset = start; offset <= end; offset++) {
+            coordinates.add(line.coordinate(origin, offset));
+        }
+
+        return coordinates;
+    }
+
+    private int windowStart(List<Game.Move> moves) {
+        return Math.max(0, moves.size() - gridSize * 2);
+    }
+
+    private boolean isInBounds(Game.Coordinate coordinate) {
+        return coordinate.x() >= 0 && coordinate.x() < gridSize && coordinate.y() >= 0 && coordinate.y() < gridSize;
+    }
+
+    private enum Line {
+        Horizontal(Game.WinningRule.Horizontal, 1, 0),
+        Vertical(Game.WinningRule.Vertical, 0, 1),
+        BackwardDiagonal(Game.WinningRule.BackwardDiagonal, 1, 1),
+        ForwardDiagonal(Game.WinningRule.ForwardDiagonal, -1, 1);
+
+        static final int NOT_ON_LINE = Integer.MIN_VALUE;
+
+        private final Game.WinningRule winningRule;
+        private final int deltaX;
+        private final int deltaY;
+
+        Line(Game.WinningRule winningRule, int deltaX, int deltaY) {
+            this.winningRule = winningRule;
+            this.deltaX = deltaX;
+            this.deltaY = deltaY;
+        }
+
+        /**
+         * Number of steps along this line from the origin to the coordinate, or {@link #NOT_ON_LINE} when the
+         * coordinate is not on the line through the origin.
+         */
+        int offset(Game.Coordinate origin, Game.Coordinate coordinate) {
+            int differenceX = coordinate.x() - origin.x();
+            int differenceY = coordinate.y() - origin.y();
+
+            if (deltaY == 0) {
+                return differenceY == 0 ? differenceX : NOT_ON_LINE;
+            } else if (deltaX == 0) {
+                return differenceX == 0 ? differenceY : NOT_ON_LINE;
+            } else {
+                return differenceX == deltaX * differenceY ? differenceY : NOT_ON_LINE;
+            }
+        }
+
+        Game.Coordinate coordinate(Game.Coordinate origin, int offset) {
+            return new Game.Coordinate(origin.x() + deltaX * offset, origin.y() + deltaY * offset);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.ruchij.api.service.game.models;
+
+import com.ruchij.api.dao.game.models.PageCursor;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * @param next the cursor of the following page, which is empty when this is the last page
+ */
+public record CursorPage<T>(List<T> data, Optional<PageCursor> next) {
+    /**
+     * A page shorter than the limit is the last page. A full page may be the last page too, in which case the
+     * following page is empty.
+     */
+    public static <T> CursorPage<T> of(List<T> data, int limit, Function<T, PageCursor> cursor) {
+        Optional<PageCursor> next =
+            data.isEmpty() || data.size() < limit ? Optional.empty() : Optional.of(cursor.apply(data.getLast()));
+
+        return new CursorPage<>(data, next);
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> function) {
+        return new CursorPage<>(this.data.stream().map(function).toList(), this.next);
+    }
+}
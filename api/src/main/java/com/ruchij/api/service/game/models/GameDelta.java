@@ -0,0 +1,13 @@
+package com.ruchij.api.service.game.models;
+
+import com.ruchij.api.dao.game.models.Game;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * @param sequence the number of moves of the game which are known once the moves are applied, which is the sequence
+ *                 to read the next delta from
+ */
+public record GameDelta(String gameId, int sequence, List<Game.Move> moves, Optional<Game.Winner> winner) {
+}
@@ -0,0 +1,12 @@
+package com.ruchij.api.service.game.models;
+
+import com.ruchij.api.dao.game.models.Game;
+
+/**
+ * Games only change by their moves and their winner, so two reads of a game at the same version are the same
+ */
+public record GameVersion(String gameId, int moveCount, boolean isFinished) {
+    public static GameVersion of(Game game) {
+        return new GameVersion(game.id(), game.moveCount(), game.winner().isPresent());
+    }
+}
@@ -0,0 +1,12 @@
+package com.ruchij.api.service.game.models;
+
+import com.ruchij.api.dao.game.models.PendingGame;
+
+/**
+ * Pending games only change when they are started, so two reads of a pending game at the same version are the same
+ */
+public record PendingGameVersion(String pendingGameId, boolean isStarted) {
+    public static PendingGameVersion of(PendingGame pendingGame) {
+        return new PendingGameVersion(pendingGame.id(), pendingGame.gameStartedAt().isPresent());
+    }
+}
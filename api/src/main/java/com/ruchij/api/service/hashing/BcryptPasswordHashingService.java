@@ -1,15 +1,145 @@
 package com.ruchij.api.service.hashing;
 
+import com.ruchij.api.config.PasswordHashingConfiguration;
+import com.ruchij.api.exception.ServiceUnavailableException;
+import com.ruchij.api.metrics.MetricsRegistry;
 import org.mindrot.jbcrypt.BCrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hashes passwords on a bounded pool of platform threads, so that the CPU bound bcrypt rounds do not pin the carrier
+ * threads of the virtual request threads. Hashes are rejected straight away once the queue of the pool is full.
+ */
 public class BcryptPasswordHashingService implements PasswordHashingService {
+    private static final Logger logger = LoggerFactory.getLogger(BcryptPasswordHashingService.class);
+    private static final int MAX_COST = 30;
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+    private static final int CALIBRATION_SAMPLES = 5;
+
+    private final ExecutorService executorService;
+    private final int cost;
+    private final LongAdder rejectedHashes;
+
+    public BcryptPasswordHashingService(ExecutorService executorService, int cost, MetricsRegistry metricsRegistry) {
+        this.executorService = executorService;
+        this.cost = cost;
+        this.rejectedHashes = metricsRegistry.counter("password-hashing.rejected");
+    }
+
+    public static BcryptPasswordHashingService create(
+        PasswordHashingConfiguration passwordHashingConfiguration,
+        MetricsRegistry metricsRegistry
+    ) {
+        int cost = calibrateCost(passwordHashingConfiguration.latencyBudget(), passwordHashingConfiguration.minCost());
+
+        logger.info(
+            "Using bcrypt cost={} for latencyBudget={} with threads={}",
+            cost,
+            passwordHashingConfiguration.latencyBudget(),
+            passwordHashingConfiguration.threads()
+        );
+
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+            passwordHashingConfiguration.threads(),
+            passwordHashingConfiguration.threads(),
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(passwordHashingConfiguration.queueCapacity()),
+            Thread.ofPlatform().name("password-hashing-", 0).daemon(true).factory()
+        );
+
+        return new BcryptPasswordHashingService(threadPoolExecutor, cost, metricsRegistry);
+    }
+
+    /**
+     * The highest cost, starting from {@code minCost}, which is expected to hash a password within the latency budget.
+     * The median of several timed hashes is used, so that the cost does not change between restarts on the same host.
+     */
+    static int calibrateCost(Duration latencyBudget, int minCost) {
+        // The first hash warms up the JIT compiler
+        BCrypt.hashpw(CALIBRATION_PASSWORD, BCrypt.gensalt(minCost));
+
+        long[] durations = new long[CALIBRATION_SAMPLES];
+
+        for (int i = 0; i < durations.length; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw(CALIBRATION_PASSWORD, BCrypt.gensalt(minCost));
+            durations[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(durations);
+        long duration = durations[durations.length / 2];
+
+        int cost = minCost;
+
+        // Every increment of the cost doubles the number of rounds
+        while (cost < MAX_COST && duration * 2 <= latencyBudget.toNanos()) {
+            cost++;
+            duration *= 2;
+        }
+
+        return cost;
+    }
+
+    @Override
+    public String hashPassword(String password) throws ServiceUnavailableException {
+        return this.run(() -> BCrypt.hashpw(password, BCrypt.gensalt(this.cost)));
+    }
+
     @Override
-    public String hashPassword(String password) {
-        return BCrypt.hashpw(password, BCrypt.gensalt());
+    public boolean verifyPassword(String password, String hashedPassword) throws ServiceUnavailableException {
+        return this.run(() -> BCrypt.checkpw(password, hashedPassword));
     }
 
     @Override
-    public boolean verifyPassword(String password, String hashedPassword) {
-        return BCrypt.checkpw(password, hashedPassword);
+    public boolean needsRehash(String hashedPassword) {
+        // Hashes are formatted as $2a$<cost>$<salt and hash>
+        String[] parts = hashedPassword.split("\\$");
+
+        try {
+            // Hashes with a higher cost are at least as strong, so they are kept when the calibrated cost drops
+            return parts.length < 3 || Integer.parseInt(parts[2]) < this.cost;
+        } catch (NumberFormatException numberFormatException) {
+            return true;
+        }
+    }
+
+    private <T> T run(Callable<T> callable) throws ServiceUnavailableException {
+        Future<T> future;
+
+        try {
+            future = this.executorService.submit(callable);
+        } catch (RejectedExecutionException rejectedExecutionException) {
+            this.rejectedHashes.increment();
+            throw new ServiceUnavailableException("Too many concurrent password hashing requests");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException interruptedException) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Interrupted while hashing password", interruptedException);
+        } catch (ExecutionException executionException) {
+            if (executionException.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+
+            throw new IllegalStateException(executionException.getCause());
+        }
     }
 }
@@ -1,7 +1,14 @@
 package com.ruchij.api.service.hashing;
 
+import com.ruchij.api.exception.ServiceUnavailableException;
+
 public interface PasswordHashingService {
-    String hashPassword(String password);
+    String hashPassword(String password) throws ServiceUnavailableException;
+
+    boolean verifyPassword(String password, String hashedPassword) throws ServiceUnavailableException;
 
-    boolean verifyPassword(String password, String hashedPassword);
+    /**
+     * Whether the password was hashed with weaker settings than {@link #hashPassword(String)} currently uses
+     */
+    boolean needsRehash(String hashedPassword);
 }
@@ -2,34 +2,60 @@ package com.ruchij.api.service.random;
 
 import com.github.javafaker.Faker;
 import com.ruchij.api.dao.user.UserDao;
-import com.ruchij.api.dao.user.models.User;
+import com.ruchij.api.utils.BloomFilter;
 
-import java.util.Optional;
 import java.util.UUID;
 
 public class RandomGeneratorImpl implements RandomGenerator {
-    private final UserDao userDao;
+    private static final int MIN_USERNAME_CAPACITY = 100_000;
+    private static final double USERNAME_FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final int MAX_USERNAME_ATTEMPTS = 8;
+    private static final long INITIAL_DISAMBIGUATOR_BOUND = 100;
+
     private final Faker faker;
+    private final BloomFilter usernames;
 
-    public RandomGeneratorImpl(UserDao userDao, Faker faker) {
-        this.userDao = userDao;
+    public RandomGeneratorImpl(Faker faker, BloomFilter usernames) {
         this.faker = faker;
+        this.usernames = usernames;
+    }
+
+    /**
+     * Loads the usernames of the existing users into a {@link BloomFilter} with room for twice as many users
+     */
+    public static RandomGeneratorImpl create(UserDao userDao, Faker faker) {
+        long capacity = Math.max(MIN_USERNAME_CAPACITY, 2 * userDao.count());
+        BloomFilter usernames =
+            new BloomFilter((int) Math.min(Integer.MAX_VALUE, capacity), USERNAME_FALSE_POSITIVE_PROBABILITY);
+
+        userDao.forEachUsername(usernames::put);
+
+        return new RandomGeneratorImpl(faker, usernames);
     }
 
+    /**
+     * Usernames are checked against the usernames known to this instance only, which may be wrong in either
+     * direction. The unique index of usernames catches the usernames which turn out to be taken.
+     */
     @Override
     public String username() {
         String color = this.faker.color().name();
         String animal = this.faker.animal().name();
 
-        String username = "%s.%s".formatted(color, animal).replaceAll(" ", ".");
-
-        Optional<User> user = userDao.findByUsername(username);
+        String name = "%s.%s".formatted(color, animal).replaceAll(" ", ".");
+        String username = name;
+        long disambiguatorBound = INITIAL_DISAMBIGUATOR_BOUND;
 
-        if (user.isPresent()) {
-            return username();
-        } else {
-            return username;
+        // Every attempt draws the disambiguator from a 10 times larger range, so that a free username is found within
+        // a few attempts no matter how many usernames are taken
+        for (int attempt = 1; attempt < MAX_USERNAME_ATTEMPTS && this.usernames.mightContain(username); attempt++) {
+            username = "%s.%s".formatted(name, this.faker.random().nextLong(disambiguatorBound));
+            disambiguatorBound *= 10;
         }
+
+        this.usernames.put(username);
+
+        return username;
     }
 
     @Override
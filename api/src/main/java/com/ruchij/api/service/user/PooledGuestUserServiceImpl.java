@@ -0,0 +1,156 @@
+package com.ruchij.api.service.user;
+
+import com.ruchij.api.config.GuestPoolConfiguration;
+import com.ruchij.api.dao.user.models.User;
+import com.ruchij.api.exception.ResourceConflictException;
+import com.ruchij.api.exception.ResourceNotFoundException;
+import com.ruchij.api.exception.ServiceUnavailableException;
+import com.ruchij.api.exception.ValidationException;
+import com.ruchij.api.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link UserService} which hands out guest users that were registered ahead of time by another {@link UserService},
+ * so that a guest registration does not wait for a free username, a password hash and the inserts. The pool is
+ * refilled in the background up to {@code highWatermark} whenever it drops below {@code lowWatermark}, and guests are
+ * registered inline while it is empty.
+ * <p>
+ * The pool is only kept in memory, so up to {@code highWatermark} registered guests are never handed out when the
+ * application stops. A pooled guest keeps the {@code createdAt} of when it was registered ahead of time, which may be
+ * up to the lifetime of the application before it is handed out.
+ */
+public class PooledGuestUserServiceImpl implements UserService {
+    private static final Logger logger = LoggerFactory.getLogger(PooledGuestUserServiceImpl.class);
+
+    private final UserService userService;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final Executor executor;
+    private final LinkedBlockingQueue<User> guests = new LinkedBlockingQueue<>();
+    private final AtomicBoolean isRefilling = new AtomicBoolean(false);
+    private final LongAdder claimedGuests;
+    private final LongAdder inlineGuests;
+    private final LongAdder provisionedGuests;
+
+    public PooledGuestUserServiceImpl(
+        UserService userService,
+        int lowWatermark,
+        int highWatermark,
+        Executor executor,
+        MetricsRegistry metricsRegistry
+    ) {
+        this.userService = userService;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.executor = executor;
+        this.claimedGuests = metricsRegistry.counter("guest-pool.claimed");
+        this.inlineGuests = metricsRegistry.counter("guest-pool.misses");
+        this.provisionedGuests = metricsRegistry.counter("guest-pool.provisioned");
+
+        metricsRegistry.gauge("guest-pool.size", this.guests::size);
+    }
+
+    public static PooledGuestUserServiceImpl create(
+        UserService userService,
+        GuestPoolConfiguration guestPoolConfiguration,
+        ScheduledExecutorService scheduledExecutorService,
+        MetricsRegistry metricsRegistry
+    ) {
+        PooledGuestUserServiceImpl pooledGuestUserService = new PooledGuestUserServiceImpl(
+            userService,
+            guestPoolConfiguration.lowWatermark(),
+            guestPoolConfiguration.highWatermark(),
+            scheduledExecutorService,
+            metricsRegistry
+        );
+
+        long refillInterval = guestPoolConfiguration.refillInterval().toMillis();
+
+        scheduledExecutorService.scheduleWithFixedDelay(
+            pooledGuestUserService::refillIfLow,
+            0,
+            refillInterval,
+            TimeUnit.MILLISECONDS
+        );
+
+        return pooledGuestUserService;
+    }
+
+    /**
+     * @return a pooled guest, whose {@code createdAt} is when it was registered ahead of time rather than now
+     */
+    @Override
+    public User registerUser() throws ResourceConflictException, ServiceUnavailableException {
+        User guest = this.guests.poll();
+
+        if (this.guests.size() < this.lowWatermark && !this.isRefilling.get()) {
+            this.executor.execute(this::refillIfLow);
+        }
+
+        if (guest == null) {
+            this.inlineGuests.increment();
+            return this.userService.registerUser();
+        }
+
+        this.claimedGuests.increment();
+
+        return guest;
+    }
+
+    @Override
+    public User registerUser(String username, String password, String email)
+        throws ResourceConflictException, ServiceUnavailableException {
+        return this.userService.registerUser(username, password, email);
+    }
+
+    @Override
+    public User getUserById(String userId) throws ResourceNotFoundException {
+        return this.userService.getUserById(userId);
+    }
+
+    @Override
+    public Map<String, String> getUsernames(Collection<String> userIds) throws ValidationException {
+        return this.userService.getUsernames(userIds);
+    }
+
+    @Override
+    public List<User> searchUsers(String usernamePrefix, int limit) throws ValidationException {
+        return this.userService.searchUsers(usernamePrefix, limit);
+    }
+
+    /**
+     * Registers guests until the pool reaches the high watermark, if it is below the low watermark
+     */
+    void refillIfLow() {
+        if (this.guests.size() >= this.lowWatermark || !this.isRefilling.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            while (this.guests.size() < this.highWatermark) {
+                this.guests.add(this.userService.registerUser());
+                this.provisionedGuests.increment();
+            }
+        } catch (Exception exception) {
+            // The pool is topped up again on the next refill
+            logger.warn("Unable to register pooled guest user", exception);
+        } finally {
+            this.isRefilling.set(false);
+        }
+    }
+
+    int size() {
+        return this.guests.size();
+    }
+}
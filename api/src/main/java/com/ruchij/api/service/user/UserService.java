@@ -4,11 +4,31 @@ package com.ruchij.api.service.user;
 import com.ruchij.api.dao.user.models.User;
 import com.ruchij.api.exception.ResourceConflictException;
 import com.ruchij.api.exception.ResourceNotFoundException;
+import com.ruchij.api.exception.ServiceUnavailableException;
+import com.ruchij.api.exception.ValidationException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public interface UserService {
-    User registerUser() throws ResourceConflictException;
+    int MAX_SEARCH_LIMIT = 50;
+    int MAX_USERNAMES = 100;
+
+    User registerUser() throws ResourceConflictException, ServiceUnavailableException;
 
-    User registerUser(String username, String password, String email) throws ResourceConflictException;
+    User registerUser(String username, String password, String email)
+        throws ResourceConflictException, ServiceUnavailableException;
 
     User getUserById(String userId) throws ResourceNotFoundException;
+
+    /**
+     * Usernames of the users which exist by their ID, for at most {@link #MAX_USERNAMES} IDs at once
+     */
+    Map<String, String> getUsernames(Collection<String> userIds) throws ValidationException;
+
+    /**
+     * Users whose username starts with the prefix, ordered by username and capped at {@link #MAX_SEARCH_LIMIT}
+     */
+    List<User> searchUsers(String usernamePrefix, int limit) throws ValidationException;
 }
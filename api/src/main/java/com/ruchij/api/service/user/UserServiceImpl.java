@@ -5,17 +5,32 @@ import com.ruchij.api.dao.user.models.User;
 import com.ruchij.api.dao.user.models.UserCredentials;
 import com.ruchij.api.exception.ResourceConflictException;
 import com.ruchij.api.exception.ResourceNotFoundException;
+import com.ruchij.api.exception.ServiceUnavailableException;
+import com.ruchij.api.exception.ValidationException;
 import com.ruchij.api.service.hashing.PasswordHashingService;
 import com.ruchij.api.service.random.RandomGenerator;
+import com.ruchij.api.utils.ExpiringCache;
 
 import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public class UserServiceImpl implements UserService {
+    private static final int USER_DIRECTORY_MAX_SIZE = 100_000;
+
     private final UserDao userDao;
     private final PasswordHashingService passwordHashingService;
     private final RandomGenerator randomGenerator;
     private final Clock clock;
+    private final ExpiringCache<String, String> usernames;
 
     public UserServiceImpl(
         UserDao userDao, PasswordHashingService passwordHashingService,
@@ -26,23 +41,29 @@ public class UserServiceImpl implements UserService {
         this.passwordHashingService = passwordHashingService;
         this.randomGenerator = randomGenerator;
         this.clock = clock;
+        this.usernames = new ExpiringCache<>(USER_DIRECTORY_MAX_SIZE, clock);
     }
 
     @Override
-    public User registerUser() throws ResourceConflictException {
-        return this.registerUser(
-            this.randomGenerator.username(),
-            this.randomGenerator.password(),
-            Optional.empty()
-        );
+    public User registerUser() throws ResourceConflictException, ServiceUnavailableException {
+        String hashedPassword = this.passwordHashingService.hashPassword(this.randomGenerator.password());
+
+        // Generated usernames are expected to be free, so they are only checked by the unique index of usernames
+        try {
+            return this.insertUser(this.randomGenerator.username(), hashedPassword, Optional.empty());
+        } catch (ResourceConflictException resourceConflictException) {
+            return this.insertUser(this.randomGenerator.username(), hashedPassword, Optional.empty());
+        }
     }
 
     @Override
-    public User registerUser(String username, String password, String email) throws ResourceConflictException {
+    public User registerUser(String username, String password, String email)
+        throws ResourceConflictException, ServiceUnavailableException {
         return this.registerUser(username, password, Optional.of(email));
     }
 
-    private User registerUser(String username, String password, Optional<String> email) throws ResourceConflictException {
+    private User registerUser(String username, String password, Optional<String> email)
+        throws ResourceConflictException, ServiceUnavailableException {
         boolean isExistingUsername = this.userDao.findByUsername(username).isPresent();
 
         if (isExistingUsername) {
@@ -55,6 +76,13 @@ public class UserServiceImpl implements UserService {
             throw new ResourceConflictException("email=%s already exists".formatted(email.get()));
         }
 
+        String hashedPassword = this.passwordHashingService.hashPassword(password);
+
+        return this.insertUser(username, hashedPassword, email);
+    }
+
+    private User insertUser(String username, String hashedPassword, Optional<String> email)
+        throws ResourceConflictException {
         User user = new User(
             this.randomGenerator.uuid().toString(),
             username,
@@ -62,11 +90,9 @@ public class UserServiceImpl implements UserService {
             this.clock.instant()
         );
 
-        String hashedPassword = this.passwordHashingService.hashPassword(password);
-        UserCredentials userCredentials = new UserCredentials(user.id(), hashedPassword);
-
         this.userDao.insert(user);
-        this.userDao.insert(userCredentials);
+        this.userDao.insert(new UserCredentials(user.id(), hashedPassword));
+        this.usernames.put(user.id(), user.username(), Instant.MAX);
 
         return user;
     }
@@ -79,4 +105,60 @@ public class UserServiceImpl implements UserService {
             () -> new ResourceNotFoundException("Unable to find user with ID=%s".formatted(userId))
         );
     }
+
+    /**
+     * Usernames never change, so they are cached until they are evicted by newer ones
+     */
+    @Override
+    public Map<String, String> getUsernames(Collection<String> userIds) throws ValidationException {
+        if (userIds.size() > MAX_USERNAMES) {
+            throw new ValidationException(
+                "Unable to resolve %s usernames, at most %s are resolved at once".formatted(userIds.size(), MAX_USERNAMES)
+            );
+        }
+
+        Set<String> distinctUserIds = new LinkedHashSet<>(userIds);
+        Map<String, String> foundUsernames = new HashMap<>();
+        List<String> uncachedUserIds = new ArrayList<>();
+
+        for (String userId : distinctUserIds) {
+            this.usernames.get(userId).ifPresentOrElse(
+                username -> foundUsernames.put(userId, username),
+                () -> uncachedUserIds.add(userId)
+            );
+        }
+
+        if (!uncachedUserIds.isEmpty()) {
+            for (User user : this.userDao.findByIds(uncachedUserIds)) {
+                foundUsernames.put(user.id(), user.username());
+                this.usernames.put(user.id(), user.username(), Instant.MAX);
+            }
+        }
+
+        // Usernames are returned in the order they were asked for
+        Map<String, String> usernames = new LinkedHashMap<>();
+
+        for (String userId : distinctUserIds) {
+            String username = foundUsernames.get(userId);
+
+            if (username != null) {
+                usernames.put(userId, username);
+            }
+        }
+
+        return usernames;
+    }
+
+    @Override
+    public List<User> searchUsers(String usernamePrefix, int limit) throws ValidationException {
+        if (usernamePrefix.isBlank()) {
+            throw new ValidationException("Username prefix must not be blank");
+        }
+
+        if (limit < 1) {
+            throw new ValidationException("limit=%s must be greater than 0".formatted(limit));
+        }
+
+        return this.userDao.searchByUsername(usernamePrefix, Math.min(limit, MAX_SEARCH_LIMIT));
+    }
 }
@@ -0,0 +1,92 @@
+package com.ruchij.api.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size set of strings which may report values that were never added, but never misses a value that was.
+ * Values can be added and looked up concurrently.
+ */
+public class BloomFilter {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomFilter(int expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("expectedInsertions must be greater than 0");
+        }
+
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("falsePositiveProbability must be between 0 and 1");
+        }
+
+        long optimalBitCount =
+            (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+
+        this.words = new AtomicLongArray(Math.toIntExact((optimalBitCount + Long.SIZE - 1) / Long.SIZE));
+        this.bitCount = (long) this.words.length() * Long.SIZE;
+        this.hashCount = Math.max(1, (int) Math.round((double) this.bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(String value) {
+        long hash = hash(value);
+        long step = mix(hash);
+
+        for (int i = 0; i < this.hashCount; i++) {
+            long bit = Math.floorMod(hash + i * step, this.bitCount);
+            long mask = 1L << bit;
+            int index = (int) (bit / Long.SIZE);
+
+            while (true) {
+                long word = this.words.get(index);
+
+                if ((word & mask) != 0 || this.words.compareAndSet(index, word, word | mask)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        long step = mix(hash);
+
+        for (int i = 0; i < this.hashCount; i++) {
+            long bit = Math.floorMod(hash + i * step, this.bitCount);
+
+            if ((this.words.get((int) (bit / Long.SIZE)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static long hash(String value) {
+        long hash = FNV_OFFSET_BASIS;
+
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+
+        return mix(hash);
+    }
+
+    /**
+     * Finalizer of MurmurHash3, which spreads every input bit across the whole hash
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+}
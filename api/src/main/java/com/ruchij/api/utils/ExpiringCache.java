@@ -0,0 +1,79 @@
+package com.ruchij.api.utils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded in-memory cache where every entry has its own expiry. When the cache is full, the least recently used
+ * entry is evicted.
+ */
+public class ExpiringCache<K, V> {
+    private final Clock clock;
+    private final int maxSize;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    public ExpiringCache(int maxSize, Clock clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+
+        this.clock = clock;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return this.size() > ExpiringCache.this.maxSize;
+            }
+        };
+    }
+
+    public Optional<V> get(K key) {
+        Instant now = this.clock.instant();
+
+        synchronized (this.entries) {
+            Entry<V> entry = this.entries.get(key);
+
+            if (entry == null) {
+                return Optional.empty();
+            }
+
+            if (!entry.expiresAt().isAfter(now)) {
+                this.entries.remove(key);
+                return Optional.empty();
+            }
+
+            return Optional.of(entry.value());
+        }
+    }
+
+    /**
+     * Caches the value until {@code expiresAt}, values which have already expired are not cached
+     */
+    public void put(K key, V value, Instant expiresAt) {
+        if (!expiresAt.isAfter(this.clock.instant())) {
+            return;
+        }
+
+        synchronized (this.entries) {
+            this.entries.put(key, new Entry<>(value, expiresAt));
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (this.entries) {
+            this.entries.remove(key);
+        }
+    }
+
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    private record Entry<V>(V value, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,95 @@
+package com.ruchij.api.utils;
+
+import com.ruchij.api.metrics.MetricsRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one call per key at a time. Callers which ask for a key while a call for it is in flight wait for
+ * that call and share its result, or its exception, instead of making their own call.
+ * <p>
+ * Results are shared between the callers, so they must not be modified.
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+    private final LongAdder requests;
+    private final LongAdder coalescedRequests;
+
+    public SingleFlight(String name, MetricsRegistry metricsRegistry) {
+        LongAdder requests = metricsRegistry.counter("%s.requests".formatted(name));
+        LongAdder coalescedRequests = metricsRegistry.counter("%s.coalesced".formatted(name));
+
+        this.requests = requests;
+        this.coalescedRequests = coalescedRequests;
+
+        // The gauges only capture the counters and the calls, so this is never handed out before it is constructed
+        metricsRegistry.gauge("%s.in-flight".formatted(name), this.calls::size);
+        metricsRegistry.gauge(
+            "%s.coalescing-ratio".formatted(name),
+            () -> coalescingRatio(requests.sum(), coalescedRequests.sum())
+        );
+    }
+
+    public V execute(K key, Supplier<V> call) {
+        this.requests.increment();
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = this.calls.putIfAbsent(key, future);
+
+        if (inFlight != null) {
+            this.coalescedRequests.increment();
+            return join(inFlight);
+        }
+
+        try {
+            V value = call.get();
+            future.complete(value);
+
+            return value;
+        } catch (RuntimeException | Error throwable) {
+            future.completeExceptionally(throwable);
+            throw throwable;
+        } finally {
+            // Callers which arrive from now on make a new call, so they never see a result older than their request
+            this.calls.remove(key, future);
+        }
+    }
+
+    /**
+     * Callers which arrive after a write of the key must not share a call which started before the write, so writers
+     * forget the call in flight once they are done
+     */
+    public void forget(K key) {
+        this.calls.remove(key);
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException completionException) {
+            if (completionException.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (completionException.getCause() instanceof Error error) {
+                throw error;
+            }
+
+            throw completionException;
+        }
+    }
+
+    /**
+     * Share of the requests which were answered by a call made for another request
+     */
+    double coalescingRatio() {
+        return coalescingRatio(this.requests.sum(), this.coalescedRequests.sum());
+    }
+
+    private static double coalescingRatio(long requestCount, long coalescedRequestCount) {
+        return requestCount == 0 ? 0 : (double) coalescedRequestCount / requestCount;
+    }
+}
@@ -1,17 +1,19 @@
 package com.ruchij.api.web;
 
+import com.ruchij.api.metrics.MetricsRegistry;
 import com.ruchij.api.service.auth.AuthenticationService;
 import com.ruchij.api.service.game.GameService;
 import com.ruchij.api.service.health.HealthService;
 import com.ruchij.api.service.user.UserService;
+import com.ruchij.api.web.broadcast.GameUpdatesBroadcaster;
+import com.ruchij.api.web.broadcast.HeartbeatService;
 import com.ruchij.api.web.routes.AuthRoute;
 import com.ruchij.api.web.routes.GameRoute;
 import com.ruchij.api.web.routes.ServiceRoute;
 import com.ruchij.api.web.routes.UserRoute;
 import io.javalin.apibuilder.EndpointGroup;
 
-import java.time.Clock;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Optional;
 
 import static io.javalin.apibuilder.ApiBuilder.path;
 
@@ -26,12 +28,15 @@ public class Routes implements EndpointGroup {
         GameService gameService,
         AuthenticationService authenticationService,
         HealthService healthService,
-        ScheduledExecutorService scheduledExecutorService,
-        Clock clock
+        GameUpdatesBroadcaster gameUpdatesBroadcaster,
+        MetricsRegistry metricsRegistry,
+        Optional<String> metricsToken,
+        HeartbeatService heartbeatService
     ) {
         this.userRoute = new UserRoute(userService, authenticationService);
-        this.serviceRoute = new ServiceRoute(healthService);
-        this.gameRoute = new GameRoute(gameService, authenticationService, scheduledExecutorService, clock);
+        this.serviceRoute = new ServiceRoute(healthService, metricsRegistry, metricsToken);
+        this.gameRoute =
+            new GameRoute(gameService, authenticationService, gameUpdatesBroadcaster, heartbeatService);
         this.authRoute = new AuthRoute(authenticationService);
     }
 
@@ -0,0 +1,219 @@
+package com.ruchij.api.web.broadcast;
+
+import com.ruchij.api.config.BroadcastConfiguration;
+import com.ruchij.api.utils.ThrowableConsumer;
+import com.ruchij.api.web.responses.WebSocketResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * A single SSE or WebSocket client of a game. Frames are queued in a bounded queue and written in order by at most
+ * one task at a time, so a slow client only ever holds {@code queueCapacity} frames and a single thread.
+ */
+public class GameSubscription {
+    private static final Logger logger = LoggerFactory.getLogger(GameSubscription.class);
+
+    /**
+     * Placeholder for the latest state of the game, which is only loaded once the frame is about to be sent
+     */
+    private static final GameUpdateFrame GAME_STATE = new GameUpdateFrame(WebSocketResponse.Type.GAME_STATE, null, null, null);
+
+    private final String id;
+    private final String gameId;
+    private final ThrowableConsumer<GameUpdateFrame, IOException> sender;
+    private final Runnable onDisconnect;
+    private final GameUpdatesBroadcaster gameUpdatesBroadcaster;
+    private final ArrayDeque<GameUpdateFrame> queue = new ArrayDeque<>();
+    private boolean isDraining;
+    private boolean isGameStateQueued;
+    private boolean isClosed;
+
+    GameSubscription(
+        String id,
+        String gameId,
+        ThrowableConsumer<GameUpdateFrame, IOException> sender,
+        Runnable onDisconnect,
+        GameUpdatesBroadcaster gameUpdatesBroadcaster
+    ) {
+        this.id = id;
+        this.gameId = gameId;
+        this.sender = sender;
+        this.onDisconnect = onDisconnect;
+        this.gameUpdatesBroadcaster = gameUpdatesBroadcaster;
+    }
+
+    public String id() {
+        return this.id;
+    }
+
+    public String gameId() {
+        return this.gameId;
+    }
+
+    /**
+     * Queues the frame to be sent to the client
+     *
+     * @return false when the subscription has been closed
+     */
+    public boolean offer(GameUpdateFrame gameUpdateFrame) {
+        synchronized (this.queue) {
+            if (this.isClosed) {
+                return false;
+            }
+
+            // The game state will be loaded after this update has been applied, so it already includes the update
+            if (this.isGameStateQueued && !gameUpdateFrame.isPing()) {
+                this.gameUpdatesBroadcaster.metrics().coalescedFrames().increment();
+                return true;
+            }
+
+            Overflow overflow =
+                this.queue.size() < this.gameUpdatesBroadcaster.configuration().queueCapacity() ?
+                    Overflow.Enqueue :
+                    this.overflow(gameUpdateFrame);
+
+            if (overflow == Overflow.Enqueue) {
+                this.enqueue(gameUpdateFrame);
+            } else if (overflow == Overflow.Disconnect) {
+                this.isClosed = true;
+                this.clear();
+            }
+
+            if (overflow != Overflow.Disconnect) {
+                if (!this.isDraining) {
+                    this.isDraining = true;
+                    this.gameUpdatesBroadcaster.executorService().execute(this::drain);
+                }
+
+                return true;
+            }
+        }
+
+        logger.info("Disconnecting slow subscriber gameId={} subscriptionId={}", this.gameId, this.id);
+        this.gameUpdatesBroadcaster.metrics().disconnectedSubscribers().increment();
+
+        // Updates are offered while the move of the game is being applied, so the connection is closed off that thread
+        this.gameUpdatesBroadcaster.executorService().execute(this::disconnect);
+
+        return false;
+    }
+
+    int queueDepth() {
+        synchronized (this.queue) {
+            return this.queue.size();
+        }
+    }
+
+    void close() {
+        synchronized (this.queue) {
+            this.isClosed = true;
+            this.clear();
+        }
+    }
+
+    private Overflow overflow(GameUpdateFrame gameUpdateFrame) {
+        BroadcastConfiguration.OverflowPolicy overflowPolicy = this.gameUpdatesBroadcaster.configuration().overflowPolicy();
+
+        if (overflowPolicy == BroadcastConfiguration.OverflowPolicy.Disconnect) {
+            return Overflow.Disconnect;
+        }
+
+        if (gameUpdateFrame.isPing()) {
+            this.gameUpdatesBroadcaster.metrics().droppedFrames().increment();
+            return Overflow.Drop;
+        }
+
+        Iterator<GameUpdateFrame> iterator = this.queue.iterator();
+
+        while (iterator.hasNext()) {
+            if (iterator.next().isPing()) {
+                iterator.remove();
+                this.gameUpdatesBroadcaster.metrics().queuedFrames().decrement();
+                this.gameUpdatesBroadcaster.metrics().droppedFrames().increment();
+
+                return Overflow.Enqueue;
+            }
+        }
+
+        if (overflowPolicy == BroadcastConfiguration.OverflowPolicy.DropPings) {
+            return Overflow.Disconnect;
+        }
+
+        this.gameUpdatesBroadcaster.metrics().coalescedFrames().add(this.queue.size() + 1);
+        this.clear();
+        this.enqueue(GAME_STATE);
+        this.isGameStateQueued = true;
+
+        return Overflow.Drop;
+    }
+
+    private void enqueue(GameUpdateFrame gameUpdateFrame) {
+        this.queue.add(gameUpdateFrame);
+        this.gameUpdatesBroadcaster.metrics().queuedFrames().increment();
+    }
+
+    private void clear() {
+        this.gameUpdatesBroadcaster.metrics().queuedFrames().add(-this.queue.size());
+        this.queue.clear();
+    }
+
+    private void drain() {
+        while (true) {
+            GameUpdateFrame gameUpdateFrame;
+
+            synchronized (this.queue) {
+                gameUpdateFrame = this.isClosed ? null : this.queue.poll();
+
+                if (gameUpdateFrame == null) {
+                    this.isDraining = false;
+                    return;
+                }
+
+                this.gameUpdatesBroadcaster.metrics().queuedFrames().decrement();
+
+                if (gameUpdateFrame == GAME_STATE) {
+                    this.isGameStateQueued = false;
+                }
+            }
+
+            try {
+                if (gameUpdateFrame == GAME_STATE) {
+                    gameUpdateFrame = this.gameUpdatesBroadcaster.gameStateFrame(this.gameId);
+                }
+
+                this.sender.accept(gameUpdateFrame);
+            } catch (Exception exception) {
+                logger.info(
+                    "Disconnecting subscriber after failing to send type={} for gameId={} subscriptionId={}",
+                    gameUpdateFrame.type(),
+                    this.gameId,
+                    this.id,
+                    exception
+                );
+
+                this.close();
+                this.disconnect();
+
+                return;
+            }
+        }
+    }
+
+    private void disconnect() {
+        this.gameUpdatesBroadcaster.unsubscribe(this);
+
+        try {
+            this.onDisconnect.run();
+        } catch (Exception exception) {
+            logger.warn("Error disconnecting gameId={} subscriptionId={}", this.gameId, this.id, exception);
+        }
+    }
+
+    private enum Overflow {
+        Enqueue, Drop, Disconnect
+    }
+}
@@ -0,0 +1,12 @@
+package com.ruchij.api.web.broadcast;
+
+import com.ruchij.api.web.responses.WebSocketResponse;
+
+/**
+ * A game update which has already been serialized for both the SSE and the WebSocket endpoints
+ */
+public record GameUpdateFrame(WebSocketResponse.Type type, String sseEvent, String sseData, String webSocketMessage) {
+    public boolean isPing() {
+        return this.type == WebSocketResponse.Type.PING;
+    }
+}
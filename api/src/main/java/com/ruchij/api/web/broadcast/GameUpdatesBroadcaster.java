@@ -0,0 +1,232 @@
+package com.ruchij.api.web.broadcast;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.ruchij.api.config.BroadcastConfiguration;
+import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.exception.ResourceNotFoundException;
+import com.ruchij.api.metrics.MetricsRegistry;
+import com.ruchij.api.service.game.GameService;
+import com.ruchij.api.utils.ThrowableConsumer;
+import com.ruchij.api.web.responses.GameResponse;
+import com.ruchij.api.web.responses.SseEvent;
+import com.ruchij.api.web.responses.WebSocketResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fans out the updates of a game to all of its SSE and WebSocket subscribers. Each game is registered with the
+ * {@link GameService} once, no matter how many clients are watching it, and every update is serialized once into a
+ * {@link GameUpdateFrame} which is then queued as is to each {@link GameSubscription}.
+ */
+public class GameUpdatesBroadcaster {
+    private static final Logger logger = LoggerFactory.getLogger(GameUpdatesBroadcaster.class);
+
+    private final GameService gameService;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executorService;
+    private final BroadcastConfiguration broadcastConfiguration;
+    private final BroadcastMetrics broadcastMetrics;
+    private final AtomicLong subscriptionIds = new AtomicLong();
+    private final Map<String, GameChannel> gameChannels = new ConcurrentHashMap<>();
+
+    public GameUpdatesBroadcaster(
+        GameService gameService,
+        ObjectMapper objectMapper,
+        ExecutorService executorService,
+        BroadcastConfiguration broadcastConfiguration,
+        MetricsRegistry metricsRegistry
+    ) {
+        this.gameService = gameService;
+        this.objectMapper = objectMapper;
+        this.executorService = executorService;
+        this.broadcastConfiguration = broadcastConfiguration;
+        this.broadcastMetrics = new BroadcastMetrics(
+            new LongAdder(),
+            metricsRegistry.counter("broadcast.frames.dropped"),
+            metricsRegistry.counter("broadcast.frames.coalesced"),
+            metricsRegistry.counter("broadcast.subscribers.disconnected")
+        );
+
+        // The gauges only capture the game channels, so this is never handed out before it is constructed
+        Map<String, GameChannel> gameChannels = this.gameChannels;
+
+        metricsRegistry.gauge("broadcast.subscribers", () -> subscriberCount(gameChannels));
+        metricsRegistry.gauge("broadcast.queue.depth", this.broadcastMetrics.queuedFrames()::sum);
+        metricsRegistry.gauge("broadcast.queue.max-depth", () -> maxQueueDepth(gameChannels));
+    }
+
+    /**
+     * @param sender       writes a frame to the client, frames of a subscription are never sent concurrently
+     * @param onDisconnect closes the client connection when the subscription is dropped for falling behind or
+     *                     failing to send a frame
+     */
+    public GameSubscription subscribe(
+        String gameId,
+        ThrowableConsumer<GameUpdateFrame, IOException> sender,
+        Runnable onDisconnect
+    ) throws ResourceNotFoundException {
+        GameSubscription gameSubscription = new GameSubscription(
+            Long.toString(this.subscriptionIds.incrementAndGet()),
+            gameId,
+            sender,
+            onDisconnect,
+            this
+        );
+
+        while (true) {
+            GameChannel gameChannel = this.gameChannels.computeIfAbsent(gameId, GameChannel::new);
+            gameChannel.lock.lock();
+
+            try {
+                // The channel was closed by the last subscriber leaving after it was looked up
+                if (gameChannel.isClosed) {
+                    continue;
+                }
+
+                if (gameChannel.registrationId == null) {
+                    try {
+                        gameChannel.registrationId =
+                            this.gameService.registerForUpdates(gameId, gameChannel::onMove, gameChannel::onWinner);
+                    } catch (ResourceNotFoundException resourceNotFoundException) {
+                        gameChannel.isClosed = true;
+                        this.gameChannels.remove(gameId, gameChannel);
+
+                        throw resourceNotFoundException;
+                    }
+                }
+
+                gameChannel.subscriptions.put(gameSubscription.id(), gameSubscription);
+
+                return gameSubscription;
+            } finally {
+                gameChannel.lock.unlock();
+            }
+        }
+    }
+
+    public void unsubscribe(GameSubscription gameSubscription) {
+        gameSubscription.close();
+
+        GameChannel gameChannel = this.gameChannels.get(gameSubscription.gameId());
+
+        if (gameChannel == null) {
+            return;
+        }
+
+        gameChannel.lock.lock();
+
+        try {
+            if (gameChannel.subscriptions.remove(gameSubscription.id(), gameSubscription) &&
+                gameChannel.subscriptions.isEmpty()) {
+                gameChannel.isClosed = true;
+                this.gameChannels.remove(gameSubscription.gameId(), gameChannel);
+                this.gameService.unregisterForUpdates(gameChannel.registrationId);
+            }
+        } finally {
+            gameChannel.lock.unlock();
+        }
+    }
+
+    GameUpdateFrame frame(SseEvent sseEvent, WebSocketResponse.Type type, Object data)
+        throws JsonProcessingException {
+        String json = this.objectMapper.writeValueAsString(data);
+        String webSocketMessage = this.objectMapper.writeValueAsString(new WebSocketResponse<>(type, new RawValue(json)));
+
+        return new GameUpdateFrame(type, sseEvent.name(), json, webSocketMessage);
+    }
+
+    GameUpdateFrame gameStateFrame(String gameId) throws ResourceNotFoundException, JsonProcessingException {
+        Game game = this.gameService.getGameById(gameId);
+
+        return this.frame(SseEvent.GAME_STATE, WebSocketResponse.Type.GAME_STATE, GameResponse.of(game));
+    }
+
+    BroadcastConfiguration configuration() {
+        return this.broadcastConfiguration;
+    }
+
+    BroadcastMetrics metrics() {
+        return this.broadcastMetrics;
+    }
+
+    ExecutorService executorService() {
+        return this.executorService;
+    }
+
+    int subscriberCount() {
+        return subscriberCount(this.gameChannels);
+    }
+
+    int subscriberCount(String gameId) {
+        GameChannel gameChannel = this.gameChannels.get(gameId);
+
+        return gameChannel == null ? 0 : gameChannel.subscriptions.size();
+    }
+
+    private static int subscriberCount(Map<String, GameChannel> gameChannels) {
+        return gameChannels.values().stream().mapToInt(gameChannel -> gameChannel.subscriptions.size()).sum();
+    }
+
+    private static int maxQueueDepth(Map<String, GameChannel> gameChannels) {
+        return gameChannels.values().stream()
+            .flatMap(gameChannel -> gameChannel.subscriptions.values().stream())
+            .mapToInt(GameSubscription::queueDepth)
+            .max()
+            .orElse(0);
+    }
+
+    record BroadcastMetrics(
+        LongAdder queuedFrames,
+        LongAdder droppedFrames,
+        LongAdder coalescedFrames,
+        LongAdder disconnectedSubscribers
+    ) {
+    }
+
+    private final class GameChannel {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, GameSubscription> subscriptions = new ConcurrentHashMap<>();
+        private final String gameId;
+        private String registrationId;
+        private boolean isClosed;
+
+        private GameChannel(String gameId) {
+            this.gameId = gameId;
+        }
+
+        private void onMove(Game.Move move) {
+            this.broadcast(SseEvent.MOVE_UPDATE, WebSocketResponse.Type.MOVE_UPDATE, move);
+        }
+
+        private void onWinner(Game.Winner winner) {
+            this.broadcast(SseEvent.MOVE_UPDATE, WebSocketResponse.Type.WINNER, winner);
+        }
+
+        private void broadcast(SseEvent sseEvent, WebSocketResponse.Type type, Object data) {
+            if (this.subscriptions.isEmpty()) {
+                return;
+            }
+
+            GameUpdateFrame gameUpdateFrame;
+
+            try {
+                gameUpdateFrame = frame(sseEvent, type, data);
+            } catch (JsonProcessingException jsonProcessingException) {
+                logger.error("Unable to serialize type={} update for gameId={}", type, this.gameId, jsonProcessingException);
+                return;
+            }
+
+            this.subscriptions.values().forEach(gameSubscription -> gameSubscription.offer(gameUpdateFrame));
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.ruchij.api.web.broadcast;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.ruchij.api.dao.user.models.User;
+import com.ruchij.api.metrics.MetricsRegistry;
+import com.ruchij.api.web.responses.PingResponse;
+import com.ruchij.api.web.responses.SseEvent;
+import com.ruchij.api.web.responses.WebSocketResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the keepalive pings of every SSE and WebSocket connection from a single hashed timing wheel.
+ * Each connection is placed in one of {@code ticksPerWheel} buckets and the wheel advances one bucket per tick, so every
+ * connection is pinged once per revolution without any per-connection timers. The ping of a connection is serialized
+ * up front around its timestamp, which is serialized once per tick.
+ */
+public class HeartbeatService {
+    private static final Logger logger = LoggerFactory.getLogger(HeartbeatService.class);
+
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final List<Set<Heartbeat>> wheel;
+    private final PingTemplate webSocketPingTemplate;
+    private final AtomicLong ticks = new AtomicLong();
+
+    public HeartbeatService(int ticksPerWheel, ObjectMapper objectMapper, Clock clock, MetricsRegistry metricsRegistry) {
+        if (ticksPerWheel < 1) {
+            throw new IllegalArgumentException("ticksPerWheel must be greater than 0");
+        }
+
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.wheel = new ArrayList<>(ticksPerWheel);
+        this.webSocketPingTemplate = this.webSocketPingTemplate();
+
+        for (int i = 0; i < ticksPerWheel; i++) {
+            this.wheel.add(ConcurrentHashMap.newKeySet());
+        }
+
+        // The gauge only captures the wheel, so this is never handed out before it is constructed
+        List<Set<Heartbeat>> wheel = this.wheel;
+        metricsRegistry.gauge("heartbeat.connections", () -> size(wheel));
+    }
+
+    public static HeartbeatService create(
+        Duration interval,
+        int ticksPerWheel,
+        ScheduledExecutorService scheduledExecutorService,
+        ObjectMapper objectMapper,
+        Clock clock,
+        MetricsRegistry metricsRegistry
+    ) {
+        HeartbeatService heartbeatService = new HeartbeatService(ticksPerWheel, objectMapper, clock, metricsRegistry);
+        long tickDuration = Math.max(1, interval.toMillis() / ticksPerWheel);
+
+        scheduledExecutorService.scheduleAtFixedRate(
+            () -> {
+                try {
+                    heartbeatService.tick();
+                } catch (Exception exception) {
+                    logger.error("Error sending heartbeats", exception);
+                }
+            },
+            tickDuration,
+            tickDuration,
+            TimeUnit.MILLISECONDS
+        );
+
+        return heartbeatService;
+    }
+
+    /**
+     * Pings the subscription straight away and then once per revolution of the wheel, until the returned
+     * {@link Heartbeat} is cancelled or the subscription is closed
+     */
+    public Heartbeat register(User user, GameSubscription gameSubscription) {
+        Heartbeat heartbeat = new Heartbeat(gameSubscription, this.pingTemplate(user), this.webSocketPingTemplate);
+        heartbeat.ping(this.timestamp());
+
+        // The bucket which was ticked last is the furthest away from being ticked again
+        long lastTick = this.ticks.get() - 1;
+        heartbeat.bucket = this.wheel.get(Math.floorMod(lastTick, this.wheel.size()));
+        heartbeat.bucket.add(heartbeat);
+
+        return heartbeat;
+    }
+
+    /**
+     * Pings every connection in the next bucket of the wheel
+     */
+    void tick() {
+        long tick = this.ticks.getAndIncrement();
+        Set<Heartbeat> bucket = this.wheel.get((int) (tick % this.wheel.size()));
+
+        if (bucket.isEmpty()) {
+            return;
+        }
+
+        String timestamp = this.timestamp();
+
+        for (Heartbeat heartbeat : bucket) {
+            if (!heartbeat.ping(timestamp)) {
+                bucket.remove(heartbeat);
+            }
+        }
+    }
+
+    int size() {
+        return size(this.wheel);
+    }
+
+    private static int size(List<Set<Heartbeat>> wheel) {
+        return wheel.stream().mapToInt(Set::size).sum();
+    }
+
+    private String timestamp() {
+        return this.json(this.clock.instant());
+    }
+
+    /**
+     * The serialized {@link PingResponse} of the user, split around its timestamp
+     */
+    private PingTemplate pingTemplate(User user) {
+        String timestamp = this.json(Instant.EPOCH);
+        String ping = this.json(new PingResponse(user.id(), user.username(), Instant.EPOCH));
+        int index = ping.lastIndexOf(timestamp);
+
+        return new PingTemplate(ping.substring(0, index), ping.substring(index + timestamp.length()));
+    }
+
+    /**
+     * The serialized {@link WebSocketResponse} of a ping, split around its data
+     */
+    private PingTemplate webSocketPingTemplate() {
+        String data = "{}";
+        String ping = this.json(new WebSocketResponse<>(WebSocketResponse.Type.PING, new RawValue(data)));
+        int index = ping.lastIndexOf(data);
+
+        return new PingTemplate(ping.substring(0, index), ping.substring(index + data.length()));
+    }
+
+    private String json(Object value) {
+        try {
+            return this.objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException jsonProcessingException) {
+            throw new UncheckedIOException(jsonProcessingException);
+        }
+    }
+
+    public static final class Heartbeat {
+        private final GameSubscription gameSubscription;
+        private final PingTemplate pingTemplate;
+        private final PingTemplate webSocketPingTemplate;
+        private volatile Set<Heartbeat> bucket;
+
+        private Heartbeat(GameSubscription gameSubscription, PingTemplate pingTemplate, PingTemplate webSocketPingTemplate) {
+            this.gameSubscription = gameSubscription;
+            this.pingTemplate = pingTemplate;
+            this.webSocketPingTemplate = webSocketPingTemplate;
+        }
+
+        public void cancel() {
+            Set<Heartbeat> bucket = this.bucket;
+
+            if (bucket != null) {
+                bucket.remove(this);
+            }
+        }
+
+        private boolean ping(String timestamp) {
+            String sseData = this.pingTemplate.wrap(timestamp);
+
+            return this.gameSubscription.offer(
+                new GameUpdateFrame(
+                    WebSocketResponse.Type.PING,
+                    SseEvent.PING.name(),
+                    sseData,
+                    this.webSocketPingTemplate.wrap(sseData)
+                )
+            );
+        }
+    }
+
+    private record PingTemplate(String prefix, String suffix) {
+        private String wrap(String value) {
+            return this.prefix + value + this.suffix;
+        }
+    }
+}
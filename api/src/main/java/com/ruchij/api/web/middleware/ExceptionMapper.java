@@ -3,6 +3,7 @@ package com.ruchij.api.web.middleware;
 import com.ruchij.api.exception.AuthenticationException;
 import com.ruchij.api.exception.ResourceConflictException;
 import com.ruchij.api.exception.ResourceNotFoundException;
+import com.ruchij.api.exception.ServiceUnavailableException;
 import com.ruchij.api.exception.ValidationException;
 import com.ruchij.api.web.responses.ErrorResponse;
 import io.javalin.Javalin;
@@ -27,6 +28,8 @@ public class ExceptionMapper {
 
         app.exception(ResourceConflictException.class, ExceptionMapper.handle(HttpStatus.CONFLICT));
 
+        app.exception(ServiceUnavailableException.class, ExceptionMapper.handle(HttpStatus.SERVICE_UNAVAILABLE));
+
         app.exception(Exception.class, ExceptionMapper.handle(HttpStatus.INTERNAL_SERVER_ERROR));
 
         app.error(HttpStatus.NOT_FOUND, context -> {
@@ -0,0 +1,7 @@
+package com.ruchij.api.web.responses;
+
+import java.util.Collection;
+import java.util.Optional;
+
+public record CursorPaginatedResponse<T>(Collection<T> data, int limit, Optional<String> next) {
+}
@@ -0,0 +1,40 @@
+package com.ruchij.api.web.responses;
+
+import com.ruchij.api.dao.game.models.Game;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Games only hold their latest moves, which are the ones on the board, so {@code moves} holds at most the latest
+ * gridSize * 2 moves. {@code moveCount} is the number of moves played, and every move is read from
+ * {@code GET /game/id/{gameId}/moves}.
+ */
+public record GameResponse(
+    String id,
+    String title,
+    Instant createdAt,
+    String createdBy,
+    Instant startedAt,
+    String playerOneId,
+    String playerTwoId,
+    List<Game.Move> moves,
+    int moveCount,
+    Optional<Game.Winner> winner
+) {
+    public static GameResponse of(Game game) {
+        return new GameResponse(
+            game.id(),
+            game.title(),
+            game.createdAt(),
+            game.createdBy(),
+            game.startedAt(),
+            game.playerOneId(),
+            game.playerTwoId(),
+            game.moves(),
+            game.moveCount(),
+            game.winner()
+        );
+    }
+}
@@ -0,0 +1,8 @@
+package com.ruchij.api.web.responses;
+
+import com.ruchij.api.dao.game.models.Game;
+
+import java.util.Optional;
+
+public record MoveResponse(Game.Move move, int sequence, Optional<Game.Winner> winner) {
+}
@@ -5,5 +5,6 @@ public enum SseEvent {
     PING,
     NOT_FOUND,
     MOVE_UPDATE,
+    GAME_STATE,
     WINNER
 }
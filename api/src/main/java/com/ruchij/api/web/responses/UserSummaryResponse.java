@@ -0,0 +1,4 @@
+package com.ruchij.api.web.responses;
+
+public record UserSummaryResponse(String id, String username) {
+}
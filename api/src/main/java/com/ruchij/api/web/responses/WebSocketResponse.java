@@ -4,6 +4,7 @@ public record WebSocketResponse<T>(Type type, T data) {
     public enum Type {
         WINNER,
         MOVE_UPDATE,
+        GAME_STATE,
         PING
     }
 }
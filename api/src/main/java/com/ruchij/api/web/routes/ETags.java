@@ -0,0 +1,88 @@
+package com.ruchij.api.web.routes;
+
+import com.ruchij.api.service.game.models.GameVersion;
+import com.ruchij.api.service.game.models.PendingGameVersion;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.http.HttpStatus;
+
+import java.util.Arrays;
+
+/**
+ * Strong entity tags for conditional reads, which are cheap to compute from what is already in memory
+ */
+final class ETags {
+    // Finished games never change, so they are cached for as long as clients allow
+    private static final String IMMUTABLE = "private, max-age=31536000, immutable";
+    private static final String REVALIDATE = "no-cache";
+
+    private ETags() {
+    }
+
+    static String game(GameVersion gameVersion) {
+        return "\"game-%s-%s-%s\"".formatted(
+            gameVersion.gameId(),
+            gameVersion.moveCount(),
+            gameVersion.isFinished() ? "finished" : "active"
+        );
+    }
+
+    static String pendingGame(PendingGameVersion pendingGameVersion) {
+        return "\"pending-%s-%s\"".formatted(
+            pendingGameVersion.pendingGameId(),
+            pendingGameVersion.isStarted() ? "started" : "open"
+        );
+    }
+
+    static String lobby(String lobbyVersion) {
+        return "\"lobby-%s\"".formatted(lobbyVersion);
+    }
+
+    /**
+     * Responds with 304 Not Modified if the client already holds the entity tag, otherwise the entity tag is left
+     * for the response to set once it has been read successfully
+     *
+     * @return whether the response is complete
+     */
+    static boolean isNotModified(Context context, String etag) {
+        if (!matches(context.header(Header.IF_NONE_MATCH), etag)) {
+            return false;
+        }
+
+        context.header(Header.ETAG, etag).status(HttpStatus.NOT_MODIFIED);
+
+        return true;
+    }
+
+    /**
+     * Sets the entity tag and the cache headers of the game, and responds with 304 Not Modified if the client
+     * already holds it
+     *
+     * @return whether the response is complete
+     */
+    static boolean isNotModified(Context context, GameVersion gameVersion) {
+        context.header(Header.CACHE_CONTROL, gameVersion.isFinished() ? IMMUTABLE : REVALIDATE);
+
+        if (isNotModified(context, game(gameVersion))) {
+            return true;
+        }
+
+        context.header(Header.ETAG, game(gameVersion));
+
+        return false;
+    }
+
+    /**
+     * If-None-Match compares entity tags weakly, so weak tags sent by clients match as well
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        return Arrays.stream(ifNoneMatch.split(","))
+            .map(String::trim)
+            .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+            .anyMatch(tag -> tag.equals("*") || tag.equals(etag));
+    }
+}
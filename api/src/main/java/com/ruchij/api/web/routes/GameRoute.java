@@ -1,32 +1,40 @@
 package com.ruchij.api.web.routes;
 
 import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.dao.game.models.PageCursor;
 import com.ruchij.api.dao.game.models.PendingGame;
 import com.ruchij.api.dao.user.models.User;
 import com.ruchij.api.exception.ResourceNotFoundException;
+import com.ruchij.api.exception.ValidationException;
 import com.ruchij.api.service.auth.AuthenticationService;
 import com.ruchij.api.service.game.GameService;
+import com.ruchij.api.service.game.models.CursorPage;
+import com.ruchij.api.service.game.models.GameDelta;
+import com.ruchij.api.service.game.models.GameVersion;
+import com.ruchij.api.service.game.models.PendingGameVersion;
+import com.ruchij.api.web.broadcast.GameSubscription;
+import com.ruchij.api.web.broadcast.GameUpdatesBroadcaster;
+import com.ruchij.api.web.broadcast.HeartbeatService;
 import com.ruchij.api.web.middleware.Authenticator;
 import com.ruchij.api.web.requests.NewGameRequest;
+import com.ruchij.api.web.responses.CursorPaginatedResponse;
+import com.ruchij.api.web.responses.GameResponse;
+import com.ruchij.api.web.responses.MoveResponse;
 import com.ruchij.api.web.responses.PaginatedResponse;
-import com.ruchij.api.web.responses.PingResponse;
 import com.ruchij.api.web.responses.SseEvent;
-import com.ruchij.api.web.responses.WebSocketResponse;
 import io.javalin.apibuilder.EndpointGroup;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
 import io.javalin.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Clock;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 
 import static io.javalin.apibuilder.ApiBuilder.path;
 import static io.javalin.apibuilder.ApiBuilder.ws;
@@ -36,20 +44,20 @@ public class GameRoute implements EndpointGroup {
 
     private final GameService gameService;
     private final Authenticator authenticator;
-    private final ScheduledExecutorService scheduledExecutorService;
-    private final Clock clock;
-    private final Map<String, ScheduledFuture<?>> pingScheduledFutures = new ConcurrentHashMap<>();
+    private final GameUpdatesBroadcaster gameUpdatesBroadcaster;
+    private final HeartbeatService heartbeatService;
+    private final Map<String, Runnable> webSocketConnections = new ConcurrentHashMap<>();
 
     public GameRoute(
         GameService gameService,
         AuthenticationService authenticationService,
-        ScheduledExecutorService scheduledExecutorService,
-        Clock clock
+        GameUpdatesBroadcaster gameUpdatesBroadcaster,
+        HeartbeatService heartbeatService
     ) {
         this.gameService = gameService;
         this.authenticator = new Authenticator(authenticationService);
-        this.scheduledExecutorService = scheduledExecutorService;
-        this.clock = clock;
+        this.gameUpdatesBroadcaster = gameUpdatesBroadcaster;
+        this.heartbeatService = heartbeatService;
     }
 
     @Override
@@ -64,24 +72,50 @@ public class GameRoute implements EndpointGroup {
             });
 
             this.authenticator.get((user, context) -> {
-                int offset = context.queryParamAsClass("offset", Integer.class).getOrDefault(0);
                 int limit = context.queryParamAsClass("limit", Integer.class).getOrDefault(10);
 
-                List<PendingGame> pendingGames = this.gameService.getPendingGames(limit, offset);
+                // The version is read before the pending games, so that it is never newer than them
+                String etag = ETags.lobby(this.gameService.getLobbyVersion());
+
+                if (ETags.isNotModified(context, etag)) {
+                    return;
+                }
+
+                if (isCursorPaginated(context)) {
+                    CursorPage<PendingGame> pendingGames = this.gameService.getPendingGames(limit, cursor(context));
 
-                context.status(HttpStatus.OK).json(new PaginatedResponse<>(pendingGames, offset, limit));
+                    context.header(Header.ETAG, etag)
+                        .status(HttpStatus.OK)
+                        .json(cursorPaginatedResponse(pendingGames, limit));
+                } else {
+                    int offset = context.queryParamAsClass("offset", Integer.class).getOrDefault(0);
+
+                    List<PendingGame> pendingGames = this.gameService.getPendingGames(limit, offset);
+
+                    context.header(Header.ETAG, etag)
+                        .status(HttpStatus.OK)
+                        .json(new PaginatedResponse<>(pendingGames, offset, limit));
+                }
             });
 
             path("/user", () -> {
                 this.authenticator.get((user, context) -> {
-                    int offset = context.queryParamAsClass("offset", Integer.class).getOrDefault(0);
                     int limit = context.queryParamAsClass("limit", Integer.class).getOrDefault(10);
 
-                    List<PendingGame> pendingGames =
-                        this.gameService.getPendingGamesByPlayerId(user.id(), limit, offset);
+                    if (isCursorPaginated(context)) {
+                        CursorPage<PendingGame> pendingGames =
+                            this.gameService.getPendingGamesByPlayerId(user.id(), limit, cursor(context));
 
-                    context.status(HttpStatus.OK)
-                        .json(new PaginatedResponse<>(pendingGames, offset, limit));
+                        context.status(HttpStatus.OK).json(cursorPaginatedResponse(pendingGames, limit));
+                    } else {
+                        int offset = context.queryParamAsClass("offset", Integer.class).getOrDefault(0);
+
+                        List<PendingGame> pendingGames =
+                            this.gameService.getPendingGamesByPlayerId(user.id(), limit, offset);
+
+                        context.status(HttpStatus.OK)
+                            .json(new PaginatedResponse<>(pendingGames, offset, limit));
+                    }
                 });
             });
 
@@ -89,9 +123,21 @@ public class GameRoute implements EndpointGroup {
                 this.authenticator.get((user, context) -> {
                     String gameId = context.pathParam("gameId");
 
+                    // A matching version which is known in memory does not read the pending game, while unknown
+                    // pending games are read, so that they are not found rather than unmodified
+                    Optional<PendingGameVersion> pendingGameVersion = this.gameService.getPendingGameVersion(gameId);
+
+                    if (pendingGameVersion.isPresent() &&
+                        ETags.isNotModified(context, ETags.pendingGame(pendingGameVersion.get()))) {
+                        return;
+                    }
+
                     PendingGame pendingGame = this.gameService.getPendingGameById(gameId);
+                    String etag = ETags.pendingGame(PendingGameVersion.of(pendingGame));
 
-                    context.status(HttpStatus.OK).json(pendingGame);
+                    if (!ETags.isNotModified(context, etag)) {
+                        context.header(Header.ETAG, etag).status(HttpStatus.OK).json(pendingGame);
+                    }
                 });
 
                 this.authenticator.post("/join", (user, context) -> {
@@ -99,20 +145,28 @@ public class GameRoute implements EndpointGroup {
 
                     Game game = this.gameService.startGame(gameId, user.id());
 
-                    context.status(HttpStatus.OK).json(game);
+                    context.status(HttpStatus.OK).json(GameResponse.of(game));
                 });
             });
         });
 
         path("/user", () -> {
             this.authenticator.get((user, context) -> {
-                int offset = context.queryParamAsClass("offset", Integer.class).getOrDefault(0);
                 int limit = context.queryParamAsClass("limit", Integer.class).getOrDefault(10);
 
-                List<Game> games = this.gameService.getUnfinishedGamesByPlayerId(user.id(), limit, offset);
+                if (isCursorPaginated(context)) {
+                    CursorPage<Game> games =
+                        this.gameService.getUnfinishedGamesByPlayerId(user.id(), limit, cursor(context));
+
+                    context.status(HttpStatus.OK).json(cursorPaginatedResponse(games.map(GameResponse::of), limit));
+                } else {
+                    int offset = context.queryParamAsClass("offset", Integer.class).getOrDefault(0);
+
+                    List<Game> games = this.gameService.getUnfinishedGamesByPlayerId(user.id(), limit, offset);
 
-                context.status(HttpStatus.OK)
-                    .json(new PaginatedResponse<>(games, offset, limit));
+                    context.status(HttpStatus.OK)
+                        .json(new PaginatedResponse<>(games.stream().map(GameResponse::of).toList(), offset, limit));
+                }
             });
         });
 
@@ -120,9 +174,36 @@ public class GameRoute implements EndpointGroup {
             this.authenticator.get((user, context) -> {
                 String gameId = context.pathParam("gameId");
 
-                Game game = this.gameService.getGameById(gameId);
+                // Pollers pass the sequence of the last delta to only read the moves made since
+                if (context.queryParamMap().containsKey("since")) {
+                    int since = context.queryParamAsClass("since", Integer.class).get();
+
+                    GameDelta gameDelta = this.gameService.getGameDelta(gameId, since);
+                    context.status(HttpStatus.OK).json(gameDelta);
+                } else {
+                    // A matching version which is known in memory does not read the game
+                    Optional<GameVersion> gameVersion = this.gameService.getGameVersion(gameId);
+
+                    if (gameVersion.isPresent() && ETags.isNotModified(context, gameVersion.get())) {
+                        return;
+                    }
+
+                    Game game = this.gameService.getGameById(gameId);
+
+                    if (!ETags.isNotModified(context, GameVersion.of(game))) {
+                        context.status(HttpStatus.OK).json(GameResponse.of(game));
+                    }
+                }
+            });
+
+            this.authenticator.get("/moves", (user, context) -> {
+                String gameId = context.pathParam("gameId");
+                int limit = context.queryParamAsClass("limit", Integer.class).getOrDefault(GameService.MAX_MOVES_LIMIT);
+                int offset = context.queryParamAsClass("offset", Integer.class).getOrDefault(0);
+
+                List<Game.Move> moves = this.gameService.getMoves(gameId, limit, offset);
 
-                context.status(HttpStatus.OK).json(game);
+                context.status(HttpStatus.OK).json(new PaginatedResponse<>(moves, offset, limit));
             });
 
             this.authenticator.post("/move", (user, context) -> {
@@ -130,86 +211,42 @@ public class GameRoute implements EndpointGroup {
                 Game.Coordinate coordinate = context.bodyAsClass(Game.Coordinate.class);
 
                 Game game = this.gameService.addMove(gameId, user.id(), coordinate);
-                context.status(HttpStatus.OK).json(game);
+                context.status(HttpStatus.OK).json(new MoveResponse(game.moves().getLast(), game.moveCount(), game.winner()));
             });
 
             this.authenticator.sse("/updates", (user, sseClient) -> {
                 String gameId = sseClient.ctx().pathParam("gameId");
 
                 try {
-                    String registrationId = this.gameService.registerForUpdates(
+                    GameSubscription gameSubscription = this.gameUpdatesBroadcaster.subscribe(
                         gameId,
-                        move -> {
-                            sseClient.sendEvent(SseEvent.MOVE_UPDATE.name(), move);
+                        gameUpdateFrame -> {
+                            sseClient.sendEvent(gameUpdateFrame.sseEvent(), gameUpdateFrame.sseData());
                         },
-                        winner -> {
-                            sseClient.sendEvent(SseEvent.MOVE_UPDATE.name(), winner);
-                        }
+                        sseClient::close
                     );
 
-                    logger.info("userId={} connected to SSE game updates for gameId={} registrationId={}",
+                    logger.info("userId={} connected to SSE game updates for gameId={} subscriptionId={}",
                         user.id(),
                         gameId,
-                        registrationId
+                        gameSubscription.id()
                     );
 
+                    HeartbeatService.Heartbeat heartbeat = this.heartbeatService.register(user, gameSubscription);
+
                     Runnable closeConnection = () -> {
-                        logger.info("Removing SSE for userId={} gameId={} registrationId={}",
+                        logger.info("Removing SSE for userId={} gameId={} subscriptionId={}",
                             user.id(),
                             gameId,
-                            registrationId
+                            gameSubscription.id()
                         );
 
-                        this.gameService.unregisterForUpdates(registrationId);
-
-                        Optional.ofNullable(this.pingScheduledFutures.remove(registrationId))
-                            .ifPresent(scheduledFuture -> scheduledFuture.cancel(true));
+                        heartbeat.cancel();
+                        this.gameUpdatesBroadcaster.unsubscribe(gameSubscription);
 
                         sseClient.close();
                     };
 
-                    this.scheduledExecutorService.scheduleAtFixedRate(
-                        () -> {
-                            logger.debug(
-                                "Sending SSE ping for userId={} gameId={} registrationId={}",
-                                user.id(),
-                                gameId,
-                                registrationId
-                            );
-
-                            try {
-                                sseClient.sendEvent(SseEvent.PING.name(),
-                                    new PingResponse(
-                                        user.id(),
-                                        user.username(),
-                                        this.clock.instant()
-                                    )
-                                );
-
-                                logger.debug(
-                                    "Sent SSE ping for userId={} gameId={} registrationId={}",
-                                    user.id(),
-                                    gameId,
-                                    registrationId
-                                );
-                            } catch (Exception exception) {
-                                logger.info(
-                                    "Error sending SSE ping for userId={} gameId={} registrationId={}",
-                                    user.id(),
-                                    gameId,
-                                    registrationId,
-                                    exception
-                                );
-
-                                closeConnection.run();
-                            }
-
-                        },
-                        0,
-                        10,
-                        TimeUnit.SECONDS
-                    );
-
                     sseClient.onClose(closeConnection);
                 } catch (ResourceNotFoundException resourceNotFoundException) {
                     logger.error("Unable to find gameId={}", gameId, resourceNotFoundException);
@@ -225,101 +262,86 @@ public class GameRoute implements EndpointGroup {
                     User user = this.authenticator.authenticate(wsConnectContext);
                     String gameId = wsConnectContext.pathParam("gameId");
 
-                    String registrationId =
-                        this.gameService.registerForUpdates(
+                    GameSubscription gameSubscription =
+                        this.gameUpdatesBroadcaster.subscribe(
                             gameId,
-                            move -> {
-                                wsConnectContext.send(new WebSocketResponse<>(WebSocketResponse.Type.MOVE_UPDATE, move));
+                            gameUpdateFrame -> {
+                                wsConnectContext.send(gameUpdateFrame.webSocketMessage());
                             },
-                            winner -> {
-                                wsConnectContext.send(new WebSocketResponse<>(WebSocketResponse.Type.WINNER, winner));
-                            }
+                            wsConnectContext::closeSession
                         );
 
+                    HeartbeatService.Heartbeat heartbeat = this.heartbeatService.register(user, gameSubscription);
+
                     Runnable closeConnection = () -> {
                         logger.info(
-                            "Removing WebSocket for userId={} gameId={} registrationId={}",
+                            "Removing WebSocket for userId={} gameId={} subscriptionId={}",
                             user.id(),
                             gameId,
-                            registrationId
+                            gameSubscription.id()
                         );
 
-                        this.gameService.unregisterForUpdates(registrationId);
-
-                        Optional.ofNullable(pingScheduledFutures.remove(registrationId))
-                            .ifPresent(scheduledFuture -> {
-                                scheduledFuture.cancel(false);
-                            });
+                        heartbeat.cancel();
+                        this.gameUpdatesBroadcaster.unsubscribe(gameSubscription);
 
                         wsConnectContext.closeSession();
                     };
 
+                    this.webSocketConnections.put(wsConnectContext.sessionId(), closeConnection);
+
                     logger.info(
-                        "userId={} connected to WebSocket game updates for gameId={} registrationId={}",
+                        "userId={} connected to WebSocket game updates for gameId={} subscriptionId={}",
                         user.id(),
                         gameId,
-                        registrationId
+                        gameSubscription.id()
                     );
+                });
 
-                    ScheduledFuture<?> pingScheduledFuture = this.scheduledExecutorService.scheduleAtFixedRate(
-                        () -> {
-                            logger.debug(
-                                "Sending WebSocket ping for userId={} gameId={} registrationId={}",
-                                user.id(),
-                                gameId,
-                                registrationId
-                            );
-
-                            try {
-                                wsConnectContext.send(
-                                    new WebSocketResponse<>(WebSocketResponse.Type.PING,
-                                        new PingResponse(
-                                            user.id(),
-                                            user.username(),
-                                            this.clock.instant()
-                                        )
-                                    ));
-                                logger.debug(
-                                    "Sent WebSocket ping for userId={} gameId={} registrationId={}",
-                                    user.id(),
-                                    gameId,
-                                    registrationId
-                                );
-                            } catch (Exception exception) {
-                                logger.info(
-                                    "Error sending WebSocket ping for userId={} gameId={} registrationId={} error={}",
-                                    user.id(),
-                                    gameId,
-                                    registrationId,
-                                    exception.getMessage()
-                                );
-                                closeConnection.run();
-                            }
-                        },
-                        0,
-                        10,
-                        TimeUnit.SECONDS
+                // The handlers are shared by every connection, which is looked up by its session
+                ws.onError(wsErrorContext -> {
+                    logger.error(
+                        "Error in game updates for gameId={} sessionId={}",
+                        wsErrorContext.pathParam("gameId"),
+                        wsErrorContext.sessionId(),
+                        wsErrorContext.error()
                     );
 
-                    pingScheduledFutures.put(registrationId, pingScheduledFuture);
-
-                    ws.onError(wsErrorContext -> {
-                        logger.error(
-                            "Error in game updates for userId={} gameId={} registrationId={}",
-                            user.id(),
-                            gameId,
-                            registrationId,
-                            wsErrorContext.error()
-                        );
-
-                        closeConnection.run();
-                    });
+                    this.closeWebSocket(wsErrorContext.sessionId());
+                });
 
-                    ws.onClose(wsCloseContext -> {
-                        closeConnection.run();
-                    });
+                ws.onClose(wsCloseContext -> {
+                    this.closeWebSocket(wsCloseContext.sessionId());
                 });
             });
         });
     }
+
+    private void closeWebSocket(String sessionId) {
+        Runnable closeConnection = this.webSocketConnections.remove(sessionId);
+
+        if (closeConnection != null) {
+            closeConnection.run();
+        }
+    }
+
+    /**
+     * Listings are paginated by cursor when the cursor query parameter is present, which is empty for the first page
+     */
+    private static boolean isCursorPaginated(Context context) {
+        return context.queryParamMap().containsKey("cursor");
+    }
+
+    private static Optional<PageCursor> cursor(Context context) throws ValidationException {
+        String cursor = context.queryParam("cursor");
+
+        if (cursor == null || cursor.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(PageCursor.decode(cursor));
+    }
+
+    private static <T> CursorPaginatedResponse<T> cursorPaginatedResponse(CursorPage<T> cursorPage, int limit) {
+        return new CursorPaginatedResponse<>(cursorPage.data(), limit, cursorPage.next().map(PageCursor::encode));
+    }
 }
@@ -1,18 +1,29 @@
 package com.ruchij.api.web.routes;
 
+import com.ruchij.api.exception.AuthenticationException;
+import com.ruchij.api.metrics.MetricsRegistry;
 import com.ruchij.api.service.health.HealthService;
 import com.ruchij.api.service.health.models.HealthCheck;
 import com.ruchij.api.service.health.models.ServiceInformation;
+import com.ruchij.api.web.middleware.Authenticator;
 import io.javalin.apibuilder.EndpointGroup;
 import io.javalin.http.HttpStatus;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Optional;
+
 import static io.javalin.apibuilder.ApiBuilder.get;
 
 public class ServiceRoute implements EndpointGroup {
     private final HealthService healthService;
+    private final MetricsRegistry metricsRegistry;
+    private final Optional<String> metricsToken;
 
-    public ServiceRoute(HealthService healthService) {
+    public ServiceRoute(HealthService healthService, MetricsRegistry metricsRegistry, Optional<String> metricsToken) {
         this.healthService = healthService;
+        this.metricsRegistry = metricsRegistry;
+        this.metricsToken = metricsToken;
     }
 
     @Override
@@ -29,5 +40,18 @@ public class ServiceRoute implements EndpointGroup {
                 .status(healthCheck.isHealthy() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
                 .json(healthCheck);
         });
+
+        // The metrics are internal, so they are only served to the holders of the metrics token
+        this.metricsToken.ifPresent(metricsToken ->
+            get("/metrics", context -> {
+                byte[] token = Authenticator.getToken(context).getBytes(StandardCharsets.UTF_8);
+
+                if (!MessageDigest.isEqual(metricsToken.getBytes(StandardCharsets.UTF_8), token)) {
+                    throw new AuthenticationException("Invalid metrics token");
+                }
+
+                context.status(HttpStatus.OK).json(this.metricsRegistry.snapshot());
+            })
+        );
     }
 }
@@ -7,10 +7,14 @@ import com.ruchij.api.service.user.UserService;
 import com.ruchij.api.web.middleware.Authenticator;
 import com.ruchij.api.web.requests.UserRegistrationRequest;
 import com.ruchij.api.web.responses.UserRegistrationResponse;
+import com.ruchij.api.web.responses.UserSummaryResponse;
 import com.ruchij.api.web.responses.UsernameResponse;
 import io.javalin.apibuilder.EndpointGroup;
 import io.javalin.http.HttpStatus;
 
+import java.util.List;
+import java.util.Map;
+
 import static io.javalin.apibuilder.ApiBuilder.post;
 
 public class UserRoute implements EndpointGroup {
@@ -53,6 +57,28 @@ public class UserRoute implements EndpointGroup {
             context.status(HttpStatus.OK).json(new UsernameResponse(user.username()));
         }));
 
+        // Resolves the usernames of all the players shown at once, e.g. /usernames?userId=a&userId=b
+        this.authenticator.get("/usernames", (__, context) -> {
+            Map<String, String> usernames = this.userService.getUsernames(context.queryParams("userId"));
+
+            List<UserSummaryResponse> users = usernames.entrySet().stream()
+                .map(entry -> new UserSummaryResponse(entry.getKey(), entry.getValue()))
+                .toList();
+
+            context.status(HttpStatus.OK).json(users);
+        });
+
+        this.authenticator.get("/search", (__, context) -> {
+            String usernamePrefix = context.queryParamAsClass("username", String.class).get();
+            int limit = context.queryParamAsClass("limit", Integer.class).getOrDefault(10);
+
+            List<UserSummaryResponse> users = this.userService.searchUsers(usernamePrefix, limit).stream()
+                .map(user -> new UserSummaryResponse(user.id(), user.username()))
+                .toList();
+
+            context.status(HttpStatus.OK).json(users);
+        });
+
         post("/guest", context -> {
             User user = this.userService.registerUser();
             AuthToken authToken = this.authenticationService.createAuthToken(user.id());
@@ -0,0 +1,30 @@
+package com.ruchij.api.dao;
+
+import com.mongodb.client.FindIterable;
+import org.bson.Document;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class MongoExplain {
+    /**
+     * Fails if the winning plan of the query scans the whole collection
+     */
+    public static void assertUsesIndex(FindIterable<?> query) {
+        Document winningPlan = query.explain().get("queryPlanner", Document.class).get("winningPlan", Document.class);
+
+        assertFalse(hasCollectionScan(winningPlan), () -> "Query scans the whole collection: " + winningPlan.toJson());
+    }
+
+    private static boolean hasCollectionScan(Object plan) {
+        if (plan instanceof Document document) {
+            return "COLLSCAN".equals(document.getString("stage")) ||
+                document.values().stream().anyMatch(MongoExplain::hasCollectionScan);
+        } else if (plan instanceof List<?> list) {
+            return list.stream().anyMatch(MongoExplain::hasCollectionScan);
+        } else {
+            return false;
+        }
+    }
+}
@@ -4,16 +4,34 @@ import com.github.javafaker.Faker;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
+import com.ruchij.api.config.AuthenticationCacheConfiguration;
+import com.ruchij.api.config.TokenRevocationConfiguration;
+import com.ruchij.api.dao.MongoIndexManager;
 import com.ruchij.api.dao.auth.models.AuthToken;
+import com.ruchij.api.dao.user.UserDao;
+import com.ruchij.api.dao.user.models.User;
+import com.ruchij.api.exception.AuthenticationException;
+import com.ruchij.api.metrics.MetricsRegistry;
+import com.ruchij.api.service.auth.AuthenticationServiceImpl;
+import com.ruchij.api.service.auth.SignedAuthenticationServiceImpl;
+import com.ruchij.api.service.hashing.PasswordHashingService;
+import com.ruchij.api.service.random.RandomGenerator;
 import org.junit.jupiter.api.*;
 import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
 @Testcontainers
 class MongoAuthTokenDaoImplTest {
     private static final String MONGO_DB_NAME = "mongo_auth_token_dao_test";
@@ -22,7 +40,8 @@ class MongoAuthTokenDaoImplTest {
     private static final MongoDBContainer MONGO_DB_CONTAINER = new MongoDBContainer("mongo:8");
     private final Faker faker = Faker.instance();
     private MongoClient mongoClient;
-    private AuthTokenDao authTokenDao;
+    private MongoAuthTokenDaoImpl authTokenDao;
+    private MongoAuthTokenDaoImpl revokedAuthTokenDao;
 
     @BeforeAll
     static void beforeAll() {
@@ -40,6 +59,9 @@ class MongoAuthTokenDaoImplTest {
         MongoDatabase mongoDatabase = this.mongoClient.getDatabase(MONGO_DB_NAME);
         String suffix = UUID.randomUUID().toString().substring(0, 8);
         this.authTokenDao = new MongoAuthTokenDaoImpl(mongoDatabase, suffix);
+        this.revokedAuthTokenDao = MongoAuthTokenDaoImpl.revokedAuthTokens(mongoDatabase, suffix);
+        MongoIndexManager.ensureIndexes(this.authTokenDao.indexes());
+        MongoIndexManager.ensureIndexes(this.revokedAuthTokenDao.indexes());
     }
 
     @Test
@@ -111,6 +133,62 @@ class MongoAuthTokenDaoImplTest {
         Assertions.assertTrue(result.isEmpty());
     }
 
+    @Test
+    void forEachShouldVisitEveryAuthToken() {
+        String firstToken = UUID.randomUUID().toString();
+        String secondToken = UUID.randomUUID().toString();
+        String userId = UUID.randomUUID().toString();
+
+        this.authTokenDao.insert(new AuthToken(firstToken, userId, Instant.now()));
+        this.authTokenDao.insert(new AuthToken(secondToken, userId, Instant.now()));
+
+        Set<String> tokens = new HashSet<>();
+        this.authTokenDao.forEach(authToken -> tokens.add(authToken.token()));
+
+        Assertions.assertTrue(tokens.containsAll(Set.of(firstToken, secondToken)));
+    }
+
+    @Test
+    void revokedSignedTokensShouldNotBeValidPersistentTokens() throws Exception {
+        User user = new User(UUID.randomUUID().toString(), this.faker.name().username(), Optional.empty(), Instant.now());
+        UserDao userDao = mock(UserDao.class);
+        when(userDao.findById(user.id())).thenReturn(Optional.of(user));
+
+        AuthenticationCacheConfiguration authenticationCacheConfiguration =
+            new AuthenticationCacheConfiguration(10, Duration.ofMinutes(5));
+
+        SignedAuthenticationServiceImpl signedAuthenticationService = new SignedAuthenticationServiceImpl(
+            userDao,
+            this.revokedAuthTokenDao,
+            mock(PasswordHashingService.class),
+            Clock.systemUTC(),
+            "0123456789abcdef0123456789abcdef",
+            authenticationCacheConfiguration,
+            new TokenRevocationConfiguration(1_000, Duration.ofMinutes(1)),
+            new MetricsRegistry()
+        );
+
+        AuthToken signedAuthToken = signedAuthenticationService.createAuthToken(user.id());
+        signedAuthenticationService.removeAuthToken(signedAuthToken.token());
+
+        // The token type is switched back to persistent tokens
+        AuthenticationServiceImpl authenticationService = new AuthenticationServiceImpl(
+            userDao,
+            this.authTokenDao,
+            mock(PasswordHashingService.class),
+            mock(RandomGenerator.class),
+            Clock.systemUTC(),
+            authenticationCacheConfiguration,
+            new MetricsRegistry()
+        );
+
+        Assertions.assertThrows(
+            AuthenticationException.class,
+            () -> authenticationService.authenticate(signedAuthToken.token())
+        );
+        Assertions.assertTrue(this.revokedAuthTokenDao.findByToken(signedAuthToken.token()).isPresent());
+    }
+
     @AfterEach
     void tearDown() {
         this.mongoClient.close();
@@ -0,0 +1,310 @@
+package com.ruchij.api.dao.game;
+
+import com.ruchij.api.dao.game.models.Game;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingGameDaoImplTest {
+    private static final Instant START_INSTANT = Instant.parse("2023-01-01T12:00:00Z");
+    private static final String PLAYER_ONE_ID = "player-one-id";
+    private static final String PLAYER_TWO_ID = "player-two-id";
+    private static final int LIVE_MOVES = 4;
+
+    private GameDao gameDao;
+    private Clock clock;
+    private CachingGameDaoImpl cachingGameDao;
+
+    @BeforeEach
+    void setUp() {
+        gameDao = mock(GameDao.class);
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(START_INSTANT);
+
+        cachingGameDao = new CachingGameDaoImpl(gameDao, clock, 2, Duration.ofMinutes(10), LIVE_MOVES);
+
+        when(gameDao.appendMoves(any(Game.class), anyInt(), anyList(), any())).thenReturn(true);
+    }
+
+    private Game game(String gameId, List<Game.Move> moves, Optional<Game.Winner> winner) {
+        return new Game(
+            gameId,
+            "Test Game",
+            START_INSTANT,
+            PLAYER_ONE_ID,
+            START_INSTANT,
+            PLAYER_ONE_ID,
+            PLAYER_TWO_ID,
+            new ArrayList<>(moves),
+            winner
+        );
+    }
+
+    private Game game(String gameId) {
+        return game(gameId, List.of(), Optional.empty());
+    }
+
+    private static Game withId(String gameId) {
+        return argThat(game -> game.id().equals(gameId));
+    }
+
+    private Game.Move move(String playerId, int x, int y) {
+        return new Game.Move("move-%s-%s".formatted(x, y), playerId, START_INSTANT, new Game.Coordinate(x, y));
+    }
+
+    @Test
+    void findGameByIdShouldOnlyReadActiveGamesOnce() {
+        Game game = game("game-1", List.of(), Optional.empty());
+        when(gameDao.findGameById("game-1")).thenReturn(Optional.of(game));
+
+        assertEquals(Optional.of(game), cachingGameDao.findGameById("game-1"));
+        assertEquals(Optional.of(game), cachingGameDao.findGameById("game-1"));
+
+        verify(gameDao, times(1)).findGameById("game-1");
+    }
+
+    @Test
+    void findGameByIdShouldNotCacheFinishedGames() {
+        Game.Winner winner = new Game.Winner(PLAYER_ONE_ID, Game.WinningRule.Horizontal, List.of());
+        Game game = game("game-1", List.of(), Optional.of(winner));
+        when(gameDao.findGameById("game-1")).thenReturn(Optional.of(game));
+
+        cachingGameDao.findGameById("game-1");
+        cachingGameDao.findGameById("game-1");
+
+        verify(gameDao, times(2)).findGameById("game-1");
+        assertEquals(0, cachingGameDao.size());
+    }
+
+    @Test
+    void appendMovesShouldBeWrittenBehind() {
+        cachingGameDao.insertGame(game("game-1", List.of(), Optional.empty()));
+
+        Game.Move firstMove = move(PLAYER_ONE_ID, 1, 1);
+        Game.Move secondMove = move(PLAYER_TWO_ID, 0, 0);
+
+        assertTrue(cachingGameDao.appendMoves(game("game-1"), 0, List.of(firstMove), Optional.empty()));
+
+        verify(gameDao, never()).appendMoves(any(Game.class), anyInt(), anyList(), any());
+        assertEquals(List.of(firstMove), cachingGameDao.findGameById("game-1").orElseThrow().moves());
+
+        cachingGameDao.flush();
+        cachingGameDao.flush();
+
+        verify(gameDao, times(1)).appendMoves(withId("game-1"), eq(0), eq(List.of(firstMove)), eq(Optional.empty()));
+
+        assertTrue(cachingGameDao.appendMoves(game("game-1"), 1, List.of(secondMove), Optional.empty()));
+        cachingGameDao.flush();
+
+        // Only the moves which have not been written yet are appended
+        verify(gameDao, times(1)).appendMoves(withId("game-1"), eq(1), eq(List.of(secondMove)), eq(Optional.empty()));
+        verify(gameDao, never()).findGameById(anyString());
+    }
+
+    @Test
+    void appendMovesToDifferentGamesShouldBeAppliedConcurrently() throws Exception {
+        int moveCount = 100;
+        cachingGameDao.insertGame(game("game-1"));
+        cachingGameDao.insertGame(game("game-2"));
+
+        try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> results = new ArrayList<>();
+
+            for (String gameId : List.of("game-1", "game-2")) {
+                results.add(executorService.submit(() -> {
+                    for (int index = 0; index < moveCount; index++) {
+                        assertTrue(
+                            cachingGameDao.appendMoves(game(gameId), index, List.of(move(PLAYER_ONE_ID, index, 0)), Optional.empty())
+                        );
+                        cachingGameDao.findGameById(gameId);
+                    }
+                }));
+            }
+
+            results.add(executorService.submit(() -> {
+                for (int index = 0; index < moveCount; index++) {
+                    cachingGameDao.flush();
+                }
+            }));
+
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+
+        cachingGameDao.flush();
+
+        assertEquals(moveCount, cachingGameDao.findGameById("game-1").orElseThrow().moveCount());
+        assertEquals(moveCount, cachingGameDao.findGameById("game-2").orElseThrow().moveCount());
+        assertEquals(2, cachingGameDao.size());
+    }
+
+    @Test
+    void appendMovesShouldRejectStaleMoveCounts() {
+        cachingGameDao.insertGame(game("game-1", List.of(), Optional.empty()));
+
+        assertTrue(cachingGameDao.appendMoves(game("game-1"), 0, List.of(move(PLAYER_ONE_ID, 1, 1)), Optional.empty()));
+        assertFalse(cachingGameDao.appendMoves(game("game-1"), 0, List.of(move(PLAYER_TWO_ID, 0, 0)), Optional.empty()));
+
+        assertEquals(1, cachingGameDao.findGameById("game-1").orElseThrow().moves().size());
+    }
+
+    @Test
+    void appendMovesWithWinnerShouldBeWrittenThrough() {
+        cachingGameDao.insertGame(game("game-1", List.of(), Optional.empty()));
+
+        Game.Winner winner = new Game.Winner(PLAYER_ONE_ID, Game.WinningRule.Horizontal, List.of());
+        Game.Move move = move(PLAYER_ONE_ID, 1, 1);
+
+        assertTrue(cachingGameDao.appendMoves(game("game-1"), 0, List.of(move), Optional.of(winner)));
+
+        verify(gameDao).appendMoves(withId("game-1"), eq(0), eq(List.of(move)), eq(Optional.of(winner)));
+        assertEquals(0, cachingGameDao.size());
+    }
+
+    @Test
+    void appendMovesShouldBeDelegatedForGamesWhichAreNotCached() {
+        Game.Move move = move(PLAYER_ONE_ID, 1, 1);
+        when(gameDao.appendMoves(game("game-1"), 0, List.of(move), Optional.empty())).thenReturn(false);
+
+        assertFalse(cachingGameDao.appendMoves(game("game-1"), 0, List.of(move), Optional.empty()));
+        assertEquals(0, cachingGameDao.size());
+    }
+
+    @Test
+    void rejectedWritesShouldEvictTheGame() {
+        cachingGameDao.insertGame(game("game-1", List.of(), Optional.empty()));
+        cachingGameDao.appendMoves(game("game-1"), 0, List.of(move(PLAYER_ONE_ID, 1, 1)), Optional.empty());
+
+        when(gameDao.appendMoves(any(Game.class), anyInt(), anyList(), any())).thenReturn(false);
+        cachingGameDao.flush();
+
+        assertEquals(0, cachingGameDao.size());
+
+        // The conflict is reported to the next mover rather than the unwritten move going missing unnoticed
+        when(gameDao.appendMoves(any(Game.class), anyInt(), anyList(), any())).thenReturn(true);
+        assertFalse(cachingGameDao.appendMoves(game("game-1"), 1, List.of(move(PLAYER_TWO_ID, 0, 0)), Optional.empty()));
+        assertTrue(cachingGameDao.appendMoves(game("game-1"), 1, List.of(move(PLAYER_TWO_ID, 0, 0)), Optional.empty()));
+    }
+
+    @Test
+    void rejectedWritesOfMovesWhichAreAlreadyStoredShouldBeApplied() {
+        Game.Move move = move(PLAYER_ONE_ID, 1, 1);
+
+        cachingGameDao.insertGame(game("game-1", List.of(), Optional.empty()));
+        cachingGameDao.appendMoves(game("game-1"), 0, List.of(move), Optional.empty());
+
+        // An earlier write of the move was applied, but failed before it was acknowledged
+        when(gameDao.appendMoves(any(Game.class), anyInt(), anyList(), any())).thenReturn(false);
+        when(gameDao.findMoves("game-1", 1, 0)).thenReturn(Optional.of(List.of(move)));
+        cachingGameDao.flush();
+
+        assertEquals(1, cachingGameDao.size());
+        assertEquals(List.of(move), cachingGameDao.findGameById("game-1").orElseThrow().moves());
+    }
+
+    @Test
+    void updateGameShouldBeWrittenThroughAndLeaveTheCache() {
+        cachingGameDao.insertGame(game("game-1", List.of(), Optional.empty()));
+
+        Game updatedGame = game("game-1", List.of(move(PLAYER_ONE_ID, 1, 1)), Optional.empty());
+        when(gameDao.updateGame(updatedGame)).thenReturn(Optional.of(updatedGame));
+
+        assertEquals(Optional.of(updatedGame), cachingGameDao.updateGame(updatedGame));
+
+        verify(gameDao).updateGame(updatedGame);
+        assertEquals(0, cachingGameDao.size());
+    }
+
+    @Test
+    void idleGamesShouldBeWrittenAndEvicted() {
+        cachingGameDao.insertGame(game("game-1", List.of(), Optional.empty()));
+        Game.Move move = move(PLAYER_ONE_ID, 0, 0);
+        cachingGameDao.appendMoves(game("game-1"), 0, List.of(move), Optional.empty());
+
+        when(clock.instant()).thenReturn(START_INSTANT.plus(Duration.ofMinutes(11)));
+        cachingGameDao.evictIdleGames();
+
+        verify(gameDao).appendMoves(withId("game-1"), eq(0), eq(List.of(move)), eq(Optional.empty()));
+        assertEquals(0, cachingGameDao.size());
+    }
+
+    @Test
+    void cacheShouldBeBoundedAndWriteEvictedGames() {
+        cachingGameDao.insertGame(game("game-1", List.of(), Optional.empty()));
+        Game.Move move = move(PLAYER_ONE_ID, 0, 0);
+        cachingGameDao.appendMoves(game("game-1"), 0, List.of(move), Optional.empty());
+
+        cachingGameDao.insertGame(game("game-2", List.of(), Optional.empty()));
+        cachingGameDao.insertGame(game("game-3", List.of(), Optional.empty()));
+
+        ArgumentCaptor<List<Game.Move>> movesCaptor = ArgumentCaptor.captor();
+        verify(gameDao).appendMoves(withId("game-1"), eq(0), movesCaptor.capture(), eq(Optional.empty()));
+
+        assertEquals(List.of(move), movesCaptor.getValue());
+        assertEquals(2, cachingGameDao.size());
+    }
+
+    @Test
+    void returnedGamesShouldNotShareMovesWithTheCache() {
+        cachingGameDao.insertGame(game("game-1", List.of(), Optional.empty()));
+
+        Game game = cachingGameDao.findGameById("game-1").orElseThrow();
+        game.moves().add(move(PLAYER_ONE_ID, 0, 0));
+
+        assertTrue(cachingGameDao.findGameById("game-1").orElseThrow().moves().isEmpty());
+    }
+
+    @Test
+    void cachedGamesShouldOnlyHoldTheLatestMovesOnceTheyAreWritten() {
+        cachingGameDao.insertGame(game("game-1", List.of(), Optional.empty()));
+
+        List<Game.Move> moves = new ArrayList<>();
+        for (int index = 0; index < 6; index++) {
+            Game.Move move = move(index % 2 == 0 ? PLAYER_ONE_ID : PLAYER_TWO_ID, index, 0);
+            assertTrue(cachingGameDao.appendMoves(game("game-1"), index, List.of(move), Optional.empty()));
+            moves.add(move);
+        }
+
+        // The moves which have not been written yet are held on to
+        assertEquals(moves, cachingGameDao.findGameById("game-1").orElseThrow().moves());
+
+        cachingGameDao.flush();
+        assertTrue(cachingGameDao.appendMoves(game("game-1"), 6, List.of(move(PLAYER_ONE_ID, 6, 0)), Optional.empty()));
+
+        Game game = cachingGameDao.findGameById("game-1").orElseThrow();
+
+        assertEquals(7, game.moveCount());
+        assertEquals(LIVE_MOVES, game.moves().size());
+        assertEquals(moves.subList(3, 6), game.moves().subList(0, 3));
+    }
+
+    @Test
+    void findMovesShouldReadTheMovesWhichTheCachedGameNoLongerHolds() {
+        List<Game.Move> moves = new ArrayList<>();
+        for (int index = 0; index < 6; index++) {
+            moves.add(move(index % 2 == 0 ? PLAYER_ONE_ID : PLAYER_TWO_ID, index, 0));
+        }
+
+        cachingGameDao.insertGame(game("game-1", moves, Optional.empty()));
+        when(gameDao.findMoves("game-1", 2, 0)).thenReturn(Optional.of(moves.subList(0, 2)));
+
+        assertEquals(Optional.of(moves.subList(3, 6)), cachingGameDao.findMoves("game-1", 10, 3));
+        assertEquals(Optional.of(moves.subList(0, 5)), cachingGameDao.findMoves("game-1", 5, 0));
+
+        verify(gameDao, times(1)).findMoves(anyString(), anyInt(), anyInt());
+    }
+}
@@ -0,0 +1,87 @@
+package com.ruchij.api.dao.game;
+
+import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.metrics.MetricsRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class CoalescingGameDaoImplTest {
+    private static final Instant TIMESTAMP = Instant.parse("2023-01-01T12:00:00Z");
+
+    private GameDao gameDao;
+    private CoalescingGameDaoImpl coalescingGameDao;
+    private ExecutorService executorService;
+
+    @BeforeEach
+    void setUp() {
+        gameDao = mock(GameDao.class);
+        coalescingGameDao = new CoalescingGameDaoImpl(gameDao, new MetricsRegistry());
+        executorService = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    private static Game game(int moveCount) {
+        List<Game.Move> moves = new ArrayList<>();
+
+        for (int index = 0; index < moveCount; index++) {
+            moves.add(new Game.Move(Game.Move.moveId("game-id", index), "player-id", TIMESTAMP, new Game.Coordinate(index, 0)));
+        }
+
+        return new Game("game-id", "Title", TIMESTAMP, "player-id", TIMESTAMP, "player-id", "other-player-id", moves, Optional.empty());
+    }
+
+    @Test
+    void readsAfterAFailedAppendShouldNotShareAReadWhichStartedBeforeIt() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(gameDao.findGameById("game-id"))
+            .thenAnswer(invocation -> {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return Optional.of(game(0));
+            })
+            .thenReturn(Optional.of(game(1)));
+        when(gameDao.appendMoves(any(Game.class), anyInt(), anyList(), any()))
+            .thenThrow(new IllegalStateException("Write timed out"));
+
+        Future<Optional<Game>> staleRead = executorService.submit(() -> coalescingGameDao.findGameById("game-id"));
+        started.await();
+
+        // Act
+        assertThrows(
+            IllegalStateException.class,
+            () -> coalescingGameDao.appendMoves(game(0), 0, game(1).moves(), Optional.empty())
+        );
+        Optional<Game> read = coalescingGameDao.findGameById("game-id");
+        release.countDown();
+
+        // Assert
+        assertEquals(1, read.orElseThrow().moveCount());
+        assertEquals(0, staleRead.get().orElseThrow().moveCount());
+        verify(gameDao, times(2)).findGameById("game-id");
+    }
+}
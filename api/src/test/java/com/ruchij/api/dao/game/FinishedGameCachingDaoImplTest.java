@@ -0,0 +1,128 @@
+package com.ruchij.api.dao.game;
+
+import com.ruchij.api.config.FinishedGameCacheConfiguration;
+import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.metrics.MetricsRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FinishedGameCachingDaoImplTest {
+    private static final Instant START_INSTANT = Instant.parse("2023-01-01T12:00:00Z");
+    private static final Duration MISS_TTL = Duration.ofSeconds(5);
+    private static final String PLAYER_ONE_ID = "player-one-id";
+    private static final String PLAYER_TWO_ID = "player-two-id";
+
+    private GameDao gameDao;
+    private Clock clock;
+    private FinishedGameCachingDaoImpl finishedGameCachingDao;
+
+    @BeforeEach
+    void setUp() {
+        gameDao = mock(GameDao.class);
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(START_INSTANT);
+
+        finishedGameCachingDao = new FinishedGameCachingDaoImpl(
+            gameDao,
+            clock,
+            new FinishedGameCacheConfiguration(2, 2, MISS_TTL),
+            new MetricsRegistry()
+        );
+    }
+
+    private Game game(String gameId, Optional<Game.Winner> winner) {
+        return new Game(
+            gameId,
+            "Test Game",
+            START_INSTANT,
+            PLAYER_ONE_ID,
+            START_INSTANT,
+            PLAYER_ONE_ID,
+            PLAYER_TWO_ID,
+            new ArrayList<>(List.of(new Game.Move("move-id", PLAYER_ONE_ID, START_INSTANT, new Game.Coordinate(0, 0)))),
+            winner
+        );
+    }
+
+    private Game finishedGame(String gameId) {
+        return game(gameId, Optional.of(new Game.Winner(PLAYER_ONE_ID, Game.WinningRule.Horizontal, List.of())));
+    }
+
+    @Test
+    void findGameByIdShouldOnlyReadFinishedGamesOnce() {
+        Game game = finishedGame("game-1");
+        when(gameDao.findGameById("game-1")).thenReturn(Optional.of(game));
+
+        assertEquals(Optional.of(game), finishedGameCachingDao.findGameById("game-1"));
+        finishedGameCachingDao.findGameById("game-1").orElseThrow().moves().clear();
+        assertEquals(Optional.of(game), finishedGameCachingDao.findGameById("game-1"));
+
+        verify(gameDao, times(1)).findGameById("game-1");
+    }
+
+    @Test
+    void findGameByIdShouldNotCacheUnfinishedGames() {
+        Game game = game("game-1", Optional.empty());
+        when(gameDao.findGameById("game-1")).thenReturn(Optional.of(game));
+
+        finishedGameCachingDao.findGameById("game-1");
+        finishedGameCachingDao.findGameById("game-1");
+
+        verify(gameDao, times(2)).findGameById("game-1");
+    }
+
+    @Test
+    void findGameByIdShouldRememberMissingGamesForTheMissTtl() {
+        when(gameDao.findGameById("unknown")).thenReturn(Optional.empty());
+
+        assertTrue(finishedGameCachingDao.findGameById("unknown").isEmpty());
+        assertTrue(finishedGameCachingDao.findGameById("unknown").isEmpty());
+        assertTrue(finishedGameCachingDao.findMoves("unknown", 10, 0).isEmpty());
+        verify(gameDao, times(1)).findGameById("unknown");
+        verify(gameDao, never()).findMoves(anyString(), anyInt(), anyInt());
+
+        when(clock.instant()).thenReturn(START_INSTANT.plus(MISS_TTL));
+
+        assertTrue(finishedGameCachingDao.findGameById("unknown").isEmpty());
+        verify(gameDao, times(2)).findGameById("unknown");
+    }
+
+    @Test
+    void insertGameShouldForgetThatTheGameWasMissing() {
+        Game game = game("game-1", Optional.empty());
+        when(gameDao.findGameById("game-1")).thenReturn(Optional.empty());
+        finishedGameCachingDao.findGameById("game-1");
+
+        when(gameDao.findGameById("game-1")).thenReturn(Optional.of(game));
+        finishedGameCachingDao.insertGame(game);
+
+        assertEquals(Optional.of(game), finishedGameCachingDao.findGameById("game-1"));
+    }
+
+    @Test
+    void insertGameShouldNotBeHiddenByAMissWhichWasReadBeforeIt() {
+        Game game = game("game-1", Optional.empty());
+
+        // The game is inserted while the read which does not find it is in flight
+        when(gameDao.findGameById("game-1")).thenAnswer(invocation -> {
+            finishedGameCachingDao.insertGame(game);
+            return Optional.empty();
+        });
+
+        assertEquals(Optional.empty(), finishedGameCachingDao.findGameById("game-1"));
+
+        doReturn(Optional.of(game)).when(gameDao).findGameById("game-1");
+
+        assertEquals(Optional.of(game), finishedGameCachingDao.findGameById("game-1"));
+    }
+}
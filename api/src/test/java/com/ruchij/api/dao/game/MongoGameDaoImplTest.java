@@ -4,8 +4,12 @@ import com.github.javafaker.Faker;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
+import com.ruchij.api.dao.MongoExplain;
+import com.ruchij.api.dao.MongoIndexManager;
 import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.dao.game.models.PageCursor;
 import com.ruchij.api.dao.game.models.PendingGame;
+import org.bson.Document;
 import org.junit.jupiter.api.*;
 import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
@@ -13,6 +17,8 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -20,12 +26,15 @@ import java.util.UUID;
 @Testcontainers
 class MongoGameDaoImplTest {
     private static final String MONGO_DB_NAME = "mongo_game_dao_test";
+    private static final int LIVE_MOVES = 6;
 
     @Container
     private static final MongoDBContainer MONGO_DB_CONTAINER = new MongoDBContainer("mongo:8");
     private final Faker faker = Faker.instance();
     private MongoClient mongoClient;
-    private GameDao gameDao;
+    private MongoDatabase mongoDatabase;
+    private String suffix;
+    private MongoGameDaoImpl gameDao;
 
     @BeforeAll
     static void beforeAll() {
@@ -42,7 +51,51 @@ class MongoGameDaoImplTest {
         this.mongoClient = MongoClients.create(MONGO_DB_CONTAINER.getConnectionString());
         MongoDatabase mongoDatabase = this.mongoClient.getDatabase(MONGO_DB_NAME);
         String suffix = UUID.randomUUID().toString().substring(0, 8);
-        this.gameDao = new MongoGameDaoImpl(mongoDatabase, suffix);
+        this.mongoDatabase = mongoDatabase;
+        this.suffix = suffix;
+        this.gameDao = new MongoGameDaoImpl(mongoDatabase, suffix, LIVE_MOVES);
+        MongoIndexManager.ensureIndexes(this.gameDao.indexes());
+    }
+
+    @Test
+    void queriesShouldUseIndexes() {
+        String playerId = UUID.randomUUID().toString();
+
+        MongoExplain.assertUsesIndex(this.gameDao.findGamesByPlayerIdQuery(playerId, 10, 0));
+        MongoExplain.assertUsesIndex(this.gameDao.getPendingGamesQuery(10, 0));
+        MongoExplain.assertUsesIndex(this.gameDao.getPendingGamesByPlayerIdQuery(playerId, 10, 0));
+
+        Optional<PageCursor> cursor = Optional.of(new PageCursor(Instant.now(), UUID.randomUUID().toString()));
+
+        MongoExplain.assertUsesIndex(this.gameDao.findGamesByPlayerIdQuery(playerId, 10, cursor));
+        MongoExplain.assertUsesIndex(this.gameDao.getPendingGamesQuery(10, cursor));
+        MongoExplain.assertUsesIndex(this.gameDao.getPendingGamesByPlayerIdQuery(playerId, 10, cursor));
+    }
+
+    @Test
+    void getPendingGamesShouldPageThroughGamesWithTheSameCreationTime() {
+        Instant createdAt = Instant.now();
+        List<String> ids = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            String id = UUID.randomUUID().toString();
+            this.gameDao.insertPendingGame(new PendingGame(id, "Game " + i, createdAt, "player", Optional.empty()));
+            ids.add(id);
+        }
+
+        List<String> pagedIds = new ArrayList<>();
+        Optional<PageCursor> cursor = Optional.empty();
+
+        for (int page = 0; page < 3; page++) {
+            List<PendingGame> pendingGames = this.gameDao.getPendingGames(2, cursor);
+            pendingGames.forEach(pendingGame -> pagedIds.add(pendingGame.id()));
+
+            cursor = pendingGames.isEmpty() ?
+                Optional.empty() :
+                Optional.of(new PageCursor(pendingGames.getLast().createdAt(), pendingGames.getLast().id()));
+        }
+
+        Assertions.assertEquals(ids.stream().sorted(Comparator.reverseOrder()).toList(), pagedIds);
     }
 
     @Test
@@ -254,6 +307,208 @@ class MongoGameDaoImplTest {
         Assertions.assertTrue(result.isEmpty());
     }
 
+    @Test
+    void appendMovesShouldAppendMovesToGame() {
+        String id = UUID.randomUUID().toString();
+        String playerOneId = UUID.randomUUID().toString();
+        String playerTwoId = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+
+        Game game = new Game(id, "Game " + faker.lorem().word(), now, playerOneId, now, playerOneId, playerTwoId, new ArrayList<>(), Optional.empty());
+        this.gameDao.insertGame(game);
+
+        Game.Move firstMove = new Game.Move("move-1", playerOneId, now, new Game.Coordinate(0, 0));
+        Game.Move secondMove = new Game.Move("move-2", playerTwoId, now, new Game.Coordinate(1, 1));
+
+        Assertions.assertTrue(this.gameDao.appendMoves(game, 0, List.of(firstMove), Optional.empty()));
+        Assertions.assertTrue(this.gameDao.appendMoves(game, 1, List.of(secondMove), Optional.empty()));
+
+        Game result = this.gameDao.findGameById(id).orElseThrow();
+
+        Assertions.assertEquals(2, result.moves().size());
+        Assertions.assertEquals("move-1", result.moves().get(0).id());
+        Assertions.assertEquals("move-2", result.moves().get(1).id());
+        Assertions.assertTrue(result.winner().isEmpty());
+    }
+
+    @Test
+    void appendMovesShouldRestorePackedMoves() {
+        String id = UUID.randomUUID().toString();
+        String playerOneId = UUID.randomUUID().toString();
+        String playerTwoId = UUID.randomUUID().toString();
+        Instant startedAt = Instant.ofEpochMilli(Instant.now().toEpochMilli());
+
+        Game game = new Game(id, "Game " + faker.lorem().word(), startedAt, playerOneId, startedAt, playerOneId, playerTwoId, new ArrayList<>(), Optional.empty());
+        this.gameDao.insertGame(game);
+
+        Game.Move firstMove = new Game.Move(Game.Move.moveId(id, 0), playerOneId, startedAt.plusMillis(1500), new Game.Coordinate(0, 2));
+        Game.Move secondMove = new Game.Move(Game.Move.moveId(id, 1), playerTwoId, startedAt.plusMillis(3200), new Game.Coordinate(1, 1));
+
+        Assertions.assertTrue(this.gameDao.appendMoves(game, 0, List.of(firstMove, secondMove), Optional.empty()));
+
+        Assertions.assertEquals(List.of(firstMove, secondMove), this.gameDao.findGameById(id).orElseThrow().moves());
+    }
+
+    @Test
+    void appendMovesShouldOnlyKeepTheLatestMovesInTheGame() {
+        String id = UUID.randomUUID().toString();
+        String playerOneId = UUID.randomUUID().toString();
+        String playerTwoId = UUID.randomUUID().toString();
+        Instant startedAt = Instant.ofEpochMilli(Instant.now().toEpochMilli());
+
+        Game game = new Game(id, "Game " + faker.lorem().word(), startedAt, playerOneId, startedAt, playerOneId, playerTwoId, new ArrayList<>(), Optional.empty());
+        this.gameDao.insertGame(game);
+
+        int moveCount = MongoGameDaoImpl.MOVES_PER_HISTORY_BUCKET + 10;
+        List<Game.Move> moves = new ArrayList<>();
+
+        for (int index = 0; index < moveCount; index++) {
+            Game.Move move = new Game.Move(
+                index == 7 ? "legacy-move-id" : Game.Move.moveId(id, index),
+                index % 2 == 0 ? playerOneId : playerTwoId,
+                startedAt.plusMillis(index),
+                new Game.Coordinate(index % 3, index % 5)
+            );
+
+            Assertions.assertTrue(this.gameDao.appendMoves(game, index, List.of(move), Optional.empty()));
+            moves.add(move);
+        }
+
+        Game result = this.gameDao.findGameById(id).orElseThrow();
+
+        Assertions.assertEquals(moveCount, result.moveCount());
+        Assertions.assertEquals(moves.subList(moveCount - LIVE_MOVES, moveCount), result.moves());
+        Assertions.assertEquals(Optional.of(moves), this.gameDao.findMoves(id, moveCount, 0));
+        Assertions.assertEquals(Optional.of(moves.subList(95, 105)), this.gameDao.findMoves(id, 10, 95));
+        Assertions.assertEquals(Optional.empty(), this.gameDao.findMoves(UUID.randomUUID().toString(), 10, 0));
+    }
+
+    @Test
+    void appendMovesShouldWriteMissingMoveHistoryBeforeTrimmingMoves() {
+        String id = UUID.randomUUID().toString();
+        String playerOneId = UUID.randomUUID().toString();
+        String playerTwoId = UUID.randomUUID().toString();
+        Instant startedAt = Instant.ofEpochMilli(Instant.now().toEpochMilli());
+
+        Game game = new Game(id, "Game " + faker.lorem().word(), startedAt, playerOneId, startedAt, playerOneId, playerTwoId, new ArrayList<>(), Optional.empty());
+        this.gameDao.insertGame(game);
+
+        List<Game.Move> moves = new ArrayList<>();
+
+        for (int index = 0; index < LIVE_MOVES * 3; index++) {
+            Game.Move move = new Game.Move(
+                Game.Move.moveId(id, index),
+                index % 2 == 0 ? playerOneId : playerTwoId,
+                startedAt.plusMillis(index),
+                new Game.Coordinate(index % 3, index % 5)
+            );
+
+            Assertions.assertTrue(this.gameDao.appendMoves(game, index, List.of(move), Optional.empty()));
+            moves.add(move);
+
+            // The history writes of the first moves are lost
+            if (index < LIVE_MOVES) {
+                this.mongoDatabase.getCollection("game-moves-%s".formatted(this.suffix)).deleteMany(new Document());
+                this.mongoDatabase.getCollection("games-%s".formatted(this.suffix))
+                    .updateOne(new Document("_id", id), new Document("$unset", new Document("historyMoveCount", "")));
+            }
+        }
+
+        Assertions.assertEquals(Optional.of(moves), this.gameDao.findMoves(id, moves.size(), 0));
+
+        // Moves which are missing from the history are reported rather than skipped
+        this.mongoDatabase.getCollection("game-moves-%s".formatted(this.suffix)).deleteMany(new Document());
+
+        Assertions.assertThrows(IllegalStateException.class, () -> this.gameDao.findMoves(id, moves.size(), 0));
+    }
+
+    @Test
+    void appendMovesShouldMigrateGamesWhichHoldAllOfTheirMoves() {
+        String id = UUID.randomUUID().toString();
+        String playerOneId = UUID.randomUUID().toString();
+        String playerTwoId = UUID.randomUUID().toString();
+        Instant startedAt = Instant.ofEpochMilli(Instant.now().toEpochMilli());
+
+        List<Game.Move> moves = new ArrayList<>();
+        List<Document> storedMoves = new ArrayList<>();
+
+        for (int index = 0; index < LIVE_MOVES + 2; index++) {
+            Game.Move move = new Game.Move(UUID.randomUUID().toString(), index % 2 == 0 ? playerOneId : playerTwoId, startedAt, new Game.Coordinate(index, 0));
+            moves.add(move);
+            storedMoves.add(
+                new Document("id", move.id())
+                    .append("playerId", move.playerId())
+                    .append("performedAt", Date.from(move.performedAt()))
+                    .append("coordinate", new Document("x", move.coordinate().x()).append("y", move.coordinate().y()))
+            );
+        }
+
+        // Games stored before the move history have no move count
+        this.mongoDatabase.getCollection("games-%s".formatted(this.suffix)).insertOne(
+            new Document("_id", id)
+                .append("title", "Game " + faker.lorem().word())
+                .append("createdAt", Date.from(startedAt))
+                .append("createdBy", playerOneId)
+                .append("startedAt", Date.from(startedAt))
+                .append("playerOneId", playerOneId)
+                .append("playerTwoId", playerTwoId)
+                .append("moves", storedMoves)
+        );
+
+        Game game = this.gameDao.findGameById(id).orElseThrow();
+        Game.Move move = new Game.Move(Game.Move.moveId(id, moves.size()), playerOneId, startedAt, new Game.Coordinate(0, 1));
+
+        Assertions.assertEquals(moves, game.moves());
+        Assertions.assertTrue(this.gameDao.appendMoves(game, moves.size(), List.of(move), Optional.empty()));
+        moves.add(move);
+
+        Game result = this.gameDao.findGameById(id).orElseThrow();
+
+        Assertions.assertEquals(moves.size(), result.moveCount());
+        Assertions.assertEquals(LIVE_MOVES, result.moves().size());
+        Assertions.assertEquals(Optional.of(moves), this.gameDao.findMoves(id, moves.size(), 0));
+    }
+
+    @Test
+    void appendMovesShouldNotAppendMovesWhenMoveCountDoesNotMatch() {
+        String id = UUID.randomUUID().toString();
+        String playerOneId = UUID.randomUUID().toString();
+        String playerTwoId = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+
+        Game game = new Game(id, "Game " + faker.lorem().word(), now, playerOneId, now, playerOneId, playerTwoId, new ArrayList<>(), Optional.empty());
+        this.gameDao.insertGame(game);
+
+        Game.Move move = new Game.Move("move-1", playerOneId, now, new Game.Coordinate(0, 0));
+
+        Assertions.assertTrue(this.gameDao.appendMoves(game, 0, List.of(move), Optional.empty()));
+        Assertions.assertFalse(this.gameDao.appendMoves(game, 0, List.of(move), Optional.empty()));
+        Game missingGame = new Game(UUID.randomUUID().toString(), game.title(), now, playerOneId, now, playerOneId, playerTwoId, new ArrayList<>(), Optional.empty());
+        Assertions.assertFalse(this.gameDao.appendMoves(missingGame, 0, List.of(move), Optional.empty()));
+
+        Assertions.assertEquals(1, this.gameDao.findGameById(id).orElseThrow().moves().size());
+    }
+
+    @Test
+    void appendMovesShouldNotAppendMovesToFinishedGame() {
+        String id = UUID.randomUUID().toString();
+        String playerOneId = UUID.randomUUID().toString();
+        String playerTwoId = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+
+        Game game = new Game(id, "Game " + faker.lorem().word(), now, playerOneId, now, playerOneId, playerTwoId, new ArrayList<>(), Optional.empty());
+        this.gameDao.insertGame(game);
+
+        Game.Winner winner = new Game.Winner(playerOneId, Game.WinningRule.Horizontal, List.of(new Game.Coordinate(0, 0)));
+        Game.Move move = new Game.Move("move-1", playerOneId, now, new Game.Coordinate(0, 0));
+
+        Assertions.assertTrue(this.gameDao.appendMoves(game, 0, List.of(move), Optional.of(winner)));
+        Assertions.assertEquals(Optional.of(winner), this.gameDao.findGameById(id).orElseThrow().winner());
+
+        Game.Move nextMove = new Game.Move("move-2", playerTwoId, now, new Game.Coordinate(1, 1));
+        Assertions.assertFalse(this.gameDao.appendMoves(game, 1, List.of(nextMove), Optional.empty()));
+    }
+
     @Test
     void getPendingGamesShouldReturnListOfPendingGames() {
         // Insert multiple pending games
@@ -0,0 +1,201 @@
+package com.ruchij.api.dao.game.codecs;
+
+import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.dao.game.models.PendingGame;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameCodecTest {
+    private static final Instant TIMESTAMP = Instant.parse("2023-01-01T12:00:00Z");
+
+    private final CoordinateCodec coordinateCodec = new CoordinateCodec();
+    private final GameCodec gameCodec =
+        new GameCodec(new MoveCodec(this.coordinateCodec), new WinnerCodec(this.coordinateCodec));
+    private final PendingGameCodec pendingGameCodec = new PendingGameCodec();
+
+    private static <T> BsonDocument encode(Codec<T> codec, T value) {
+        BsonDocument document = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(document), value, EncoderContext.builder().build());
+
+        return document;
+    }
+
+    private static <T> T decode(Codec<T> codec, BsonDocument document) {
+        return codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+
+    @Test
+    void shouldEncodeGamesInTheLayoutOfTheRecordCodec() {
+        // Arrange
+        Game game = new Game(
+            "game-id",
+            "Title",
+            TIMESTAMP,
+            "player-one",
+            TIMESTAMP.plusSeconds(10),
+            "player-one",
+            "player-two",
+            List.of(new Game.Move("move-id", "player-one", TIMESTAMP.plusSeconds(20), new Game.Coordinate(1, -1))),
+            Optional.of(
+                new Game.Winner(
+                    "player-one",
+                    Game.WinningRule.Horizontal,
+                    List.of(new Game.Coordinate(0, 0), new Game.Coordinate(1, 0))
+                )
+            )
+        );
+
+        // Act
+        BsonDocument document = encode(this.gameCodec, game);
+
+        // Assert
+        assertEquals(
+            BsonDocument.parse("""
+                {
+                    "_id": "game-id",
+                    "title": "Title",
+                    "createdAt": {"$date": "2023-01-01T12:00:00Z"},
+                    "createdBy": "player-one",
+                    "startedAt": {"$date": "2023-01-01T12:00:10Z"},
+                    "playerOneId": "player-one",
+                    "playerTwoId": "player-two",
+                    "moveCount": 1,
+                    "moves": [
+                        {
+                            "id": "move-id",
+                            "playerId": "player-one",
+                            "performedAt": {"$date": "2023-01-01T12:00:20Z"},
+                            "coordinate": {"x": 1, "y": -1}
+                        }
+                    ],
+                    "winner": {
+                        "playerId": "player-one",
+                        "winningRule": "Horizontal",
+                        "coordinates": [{"x": 0, "y": 0}, {"x": 1, "y": 0}]
+                    }
+                }
+                """),
+            document
+        );
+        assertEquals(game, decode(this.gameCodec, document));
+    }
+
+    @Test
+    void shouldStoreMovesWithDerivedIdsAsIntegers() {
+        // Arrange
+        Game game = new Game(
+            "game-id",
+            "Title",
+            TIMESTAMP,
+            "player-one",
+            TIMESTAMP,
+            "player-one",
+            "player-two",
+            List.of(
+                new Game.Move(Game.Move.moveId("game-id", 0), "player-one", TIMESTAMP, new Game.Coordinate(1, 1)),
+                new Game.Move("legacy-move-id", "player-two", TIMESTAMP.plusSeconds(5), new Game.Coordinate(0, 2)),
+                new Game.Move(Game.Move.moveId("game-id", 2), "player-two", TIMESTAMP.plusSeconds(9), new Game.Coordinate(2, 0))
+            ),
+            Optional.empty()
+        );
+
+        // Act
+        BsonDocument document = encode(this.gameCodec, game);
+
+        // Assert
+        assertTrue(document.getArray("moves").get(0).isInt64());
+        assertTrue(document.getArray("moves").get(1).isDocument());
+        assertTrue(document.getArray("moves").get(2).isInt64());
+        assertEquals(game, decode(this.gameCodec, document));
+    }
+
+    @Test
+    void shouldOnlyStoreTheMovesWhichTheGameHolds() {
+        // Arrange
+        Game game = new Game(
+            "game-id",
+            "Title",
+            TIMESTAMP,
+            "player-one",
+            TIMESTAMP,
+            "player-one",
+            "player-two",
+            List.of(
+                new Game.Move(Game.Move.moveId("game-id", 40), "player-one", TIMESTAMP.plusSeconds(40), new Game.Coordinate(1, 1)),
+                new Game.Move(Game.Move.moveId("game-id", 41), "player-two", TIMESTAMP.plusSeconds(41), new Game.Coordinate(0, 2))
+            ),
+            Optional.empty(),
+            40
+        );
+
+        // Act
+        BsonDocument document = encode(this.gameCodec, game);
+
+        // Assert
+        assertEquals(42, document.getInt32("moveCount").getValue());
+        assertTrue(document.getArray("moves").get(0).isInt64());
+        assertTrue(document.getArray("moves").get(1).isInt64());
+        assertEquals(game, decode(this.gameCodec, document));
+    }
+
+    @Test
+    void shouldDecodeNullWinnersAndUnknownFields() {
+        // Arrange
+        BsonDocument document = BsonDocument.parse("""
+            {
+                "_id": "game-id",
+                "title": "Title",
+                "createdAt": {"$date": "2023-01-01T12:00:00Z"},
+                "createdBy": "player-one",
+                "playerOneId": "player-one",
+                "moves": [],
+                "winner": null,
+                "unknown": {"field": [1, 2]}
+            }
+            """);
+
+        // Act
+        Game game = decode(this.gameCodec, document);
+
+        // Assert
+        assertEquals(
+            new Game("game-id", "Title", TIMESTAMP, "player-one", null, "player-one", null, List.of(), Optional.empty()),
+            game
+        );
+    }
+
+    @Test
+    void shouldOmitTheStartTimeOfPendingGamesWhichHaveNotStarted() {
+        // Arrange
+        PendingGame pendingGame = new PendingGame("pending-game-id", "Title", TIMESTAMP, "player-one", Optional.empty());
+
+        // Act
+        BsonDocument document = encode(this.pendingGameCodec, pendingGame);
+
+        // Assert
+        assertEquals(
+            BsonDocument.parse("""
+                {
+                    "_id": "pending-game-id",
+                    "title": "Title",
+                    "createdAt": {"$date": "2023-01-01T12:00:00Z"},
+                    "createdBy": "player-one"
+                }
+                """),
+            document
+        );
+        assertEquals(pendingGame, decode(this.pendingGameCodec, document));
+    }
+}
@@ -0,0 +1,79 @@
+package com.ruchij.api.dao.game.codecs;
+
+import com.ruchij.api.dao.game.models.Game;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PackedMovesTest {
+    private static final Instant STARTED_AT = Instant.parse("2023-01-01T12:00:00Z");
+    private static final String GAME_ID = "game-id";
+    private static final String PLAYER_ONE_ID = "player-one-id";
+    private static final String PLAYER_TWO_ID = "player-two-id";
+    private static final Game GAME = new Game(
+        GAME_ID,
+        "Title",
+        STARTED_AT,
+        PLAYER_ONE_ID,
+        STARTED_AT,
+        PLAYER_ONE_ID,
+        PLAYER_TWO_ID,
+        List.of(),
+        Optional.empty()
+    );
+
+    private static Game.Move move(int index, String playerId, Duration offset, int x, int y) {
+        return new Game.Move(
+            Game.Move.moveId(GAME_ID, index),
+            playerId,
+            STARTED_AT.plus(offset),
+            new Game.Coordinate(x, y)
+        );
+    }
+
+    private static Game.Move roundTrip(int index, Game.Move move) {
+        long packedMove = PackedMoves.pack(GAME, index, move).orElseThrow();
+
+        return PackedMoves.unpack(GAME_ID, STARTED_AT, PLAYER_ONE_ID, PLAYER_TWO_ID, index, packedMove);
+    }
+
+    @Test
+    void shouldUnpackPackedMoves() {
+        List<Game.Move> moves = List.of(
+            move(0, PLAYER_ONE_ID, Duration.ZERO, 0, 0),
+            move(1, PLAYER_TWO_ID, Duration.ofMillis(1_234), 2, 1),
+            move(2, PLAYER_ONE_ID, Duration.ofDays(365), -2048, 2047),
+            move(3, PLAYER_TWO_ID, Duration.ofMillis((1L << 39) - 1), 2047, -2048)
+        );
+
+        for (int index = 0; index < moves.size(); index++) {
+            assertEquals(moves.get(index), roundTrip(index, moves.get(index)));
+        }
+    }
+
+    @Test
+    void shouldNotPackMovesWhichCannotBeRestored() {
+        Game.Move move = move(0, PLAYER_ONE_ID, Duration.ofSeconds(1), 1, 1);
+
+        assertEquals(OptionalLong.empty(), PackedMoves.pack(GAME, 1, move));
+        assertEquals(
+            OptionalLong.empty(),
+            PackedMoves.pack(GAME, 0, new Game.Move("move-id", PLAYER_ONE_ID, move.performedAt(), move.coordinate()))
+        );
+        assertEquals(OptionalLong.empty(), PackedMoves.pack(GAME, 0, move(0, "other-player-id", Duration.ZERO, 1, 1)));
+        assertEquals(OptionalLong.empty(), PackedMoves.pack(GAME, 0, move(0, PLAYER_ONE_ID, Duration.ZERO, 2048, 0)));
+        assertEquals(OptionalLong.empty(), PackedMoves.pack(GAME, 0, move(0, PLAYER_ONE_ID, Duration.ofMillis(-1), 0, 0)));
+        assertEquals(
+            OptionalLong.empty(),
+            PackedMoves.pack(GAME, 0, move(0, PLAYER_ONE_ID, Duration.ofMillis(1L << 39), 0, 0))
+        );
+        assertTrue(PackedMoves.pack(GAME, 0, move).isPresent());
+    }
+}
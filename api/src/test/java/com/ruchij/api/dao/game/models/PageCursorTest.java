@@ -0,0 +1,30 @@
+package com.ruchij.api.dao.game.models;
+
+import com.ruchij.api.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PageCursorTest {
+    @Test
+    void shouldDecodeEncodedCursors() throws ValidationException {
+        // Arrange
+        PageCursor pageCursor = new PageCursor(Instant.parse("2023-01-01T12:00:00.123Z"), "game:1");
+
+        // Act
+        PageCursor decoded = PageCursor.decode(pageCursor.encode());
+
+        // Assert
+        assertEquals(pageCursor, decoded);
+    }
+
+    @Test
+    void shouldRejectInvalidCursors() {
+        assertThrows(ValidationException.class, () -> PageCursor.decode("not a cursor"));
+        assertThrows(ValidationException.class, () -> PageCursor.decode("bm8tc2VwYXJhdG9y"));
+        assertThrows(ValidationException.class, () -> PageCursor.decode("YWJjOmdhbWU"));
+    }
+}
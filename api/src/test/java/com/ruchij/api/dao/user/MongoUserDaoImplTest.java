@@ -4,17 +4,24 @@ import com.github.javafaker.Faker;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
+import com.ruchij.api.dao.MongoExplain;
+import com.ruchij.api.dao.MongoIndexManager;
 import com.ruchij.api.dao.user.models.User;
 import com.ruchij.api.dao.user.models.UserCredentials;
+import com.ruchij.api.dao.user.models.UserWithCredentials;
+import com.ruchij.api.exception.ResourceConflictException;
 import org.junit.jupiter.api.*;
 import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Testcontainers
 class MongoUserDaoImplTest {
@@ -24,7 +31,7 @@ class MongoUserDaoImplTest {
     private static final MongoDBContainer MONGO_DB_CONTAINER = new MongoDBContainer("mongo:8");
     private final Faker faker = Faker.instance();
     private MongoClient mongoClient;
-    private UserDao userDao;
+    private MongoUserDaoImpl userDao;
 
     @BeforeAll
     static void beforeAll() {
@@ -42,10 +49,17 @@ class MongoUserDaoImplTest {
         MongoDatabase mongoDatabase = this.mongoClient.getDatabase(MONGO_DB_NAME);
         String suffix = UUID.randomUUID().toString().substring(0, 8);
         this.userDao = new MongoUserDaoImpl(mongoDatabase, suffix);
+        MongoIndexManager.ensureIndexes(this.userDao.indexes());
     }
 
     @Test
-    void insertShouldReturnUser() {
+    void queriesShouldUseIndexes() {
+        MongoExplain.assertUsesIndex(this.userDao.findByEmailQuery("user@example.com"));
+        MongoExplain.assertUsesIndex(this.userDao.searchByUsernameQuery("Red", 10));
+    }
+
+    @Test
+    void insertShouldReturnUser() throws ResourceConflictException {
         String id = UUID.randomUUID().toString();
         String username = this.faker.name().username();
         String email = this.faker.internet().emailAddress();
@@ -77,7 +91,83 @@ class MongoUserDaoImplTest {
     }
 
     @Test
-    void findByUsername() {
+    void insertShouldRejectTakenUsernames() throws ResourceConflictException {
+        String username = this.faker.name().username();
+        this.userDao.insert(new User(UUID.randomUUID().toString(), username, Optional.empty(), Instant.now()));
+
+        Assertions.assertThrows(
+            ResourceConflictException.class,
+            () -> this.userDao.insert(new User(UUID.randomUUID().toString(), username, Optional.empty(), Instant.now()))
+        );
+    }
+
+    @Test
+    void insertShouldRejectTakenUserIds() throws ResourceConflictException {
+        String id = UUID.randomUUID().toString();
+        this.userDao.insert(new User(id, this.faker.name().username() + "-1", Optional.empty(), Instant.now()));
+
+        ResourceConflictException resourceConflictException = Assertions.assertThrows(
+            ResourceConflictException.class,
+            () -> this.userDao.insert(new User(id, this.faker.name().username() + "-2", Optional.empty(), Instant.now()))
+        );
+
+        Assertions.assertEquals("userId=%s already exists".formatted(id), resourceConflictException.getMessage());
+    }
+
+    @Test
+    void forEachUsernameShouldVisitEveryUser() throws ResourceConflictException {
+        List<String> usernames = List.of(this.faker.name().username() + "-1", this.faker.name().username() + "-2");
+
+        for (String username : usernames) {
+            this.userDao.insert(new User(UUID.randomUUID().toString(), username, Optional.empty(), Instant.now()));
+        }
+
+        List<String> result = new ArrayList<>();
+        this.userDao.forEachUsername(result::add);
+
+        Assertions.assertEquals(usernames.size(), this.userDao.count());
+        Assertions.assertEquals(Set.copyOf(usernames), Set.copyOf(result));
+    }
+
+    @Test
+    void findWithCredentialsByEmailShouldReturnUserAndCredentials() throws ResourceConflictException {
+        String id = UUID.randomUUID().toString();
+        String email = this.faker.internet().emailAddress();
+        String hashedPassword = this.faker.internet().password(10, 20);
+
+        User user = new User(id, this.faker.name().username(), Optional.of(email), Instant.now());
+        this.userDao.insert(user);
+        this.userDao.insert(new UserCredentials(id, hashedPassword));
+
+        UserWithCredentials result = this.userDao.findWithCredentialsByEmail(email).get();
+
+        Assertions.assertEquals(id, result.user().id());
+        Assertions.assertEquals(user.username(), result.user().username());
+        Assertions.assertEquals(Optional.of(email), result.user().email());
+        Assertions.assertEquals(id, result.userCredentials().userId());
+        Assertions.assertEquals(hashedPassword, result.userCredentials().hashedPassword());
+    }
+
+    @Test
+    void findWithCredentialsByEmailShouldReturnEmptyWhenEmailDoesNotExist() {
+        Assertions.assertTrue(this.userDao.findWithCredentialsByEmail(this.faker.internet().emailAddress()).isEmpty());
+    }
+
+    @Test
+    void updateUserCredentialsShouldReplaceHashedPassword() {
+        String userId = UUID.randomUUID().toString();
+        this.userDao.insert(new UserCredentials(userId, this.faker.internet().password(10, 20)));
+
+        String hashedPassword = this.faker.internet().password(10, 20);
+        this.userDao.update(new UserCredentials(userId, hashedPassword));
+
+        UserCredentials result = this.userDao.findCredentialsById(userId).get();
+
+        Assertions.assertEquals(hashedPassword, result.hashedPassword());
+    }
+
+    @Test
+    void findByUsername() throws ResourceConflictException {
         String id = UUID.randomUUID().toString();
         String username = this.faker.name().username();
         String email = this.faker.internet().emailAddress();
@@ -95,7 +185,7 @@ class MongoUserDaoImplTest {
     }
 
     @Test
-    void searchByUsername() {
+    void searchByUsername() throws ResourceConflictException {
         String id1 = UUID.randomUUID().toString();
         String username1 = "testuser123";
         String email1 = this.faker.internet().emailAddress();
@@ -119,7 +209,7 @@ class MongoUserDaoImplTest {
         this.userDao.insert(user2);
         this.userDao.insert(user3);
 
-        List<User> results = this.userDao.searchByUsername("testuser");
+        List<User> results = this.userDao.searchByUsername("testuser", 10);
 
         Assertions.assertEquals(2, results.size());
         Assertions.assertTrue(results.stream().anyMatch(user -> user.id().equals(id1)));
@@ -127,6 +217,18 @@ class MongoUserDaoImplTest {
         Assertions.assertFalse(results.stream().anyMatch(user -> user.id().equals(id3)));
     }
 
+    @Test
+    void findByIdsShouldOnlyReturnUsersWhichExist() throws ResourceConflictException {
+        User user1 = new User(UUID.randomUUID().toString(), this.faker.name().username() + "-1", Optional.empty(), Instant.now());
+        User user2 = new User(UUID.randomUUID().toString(), this.faker.name().username() + "-2", Optional.empty(), Instant.now());
+        this.userDao.insert(user1);
+        this.userDao.insert(user2);
+
+        List<User> result = this.userDao.findByIds(List.of(user1.id(), user2.id(), UUID.randomUUID().toString()));
+
+        Assertions.assertEquals(Set.of(user1.id(), user2.id()), result.stream().map(User::id).collect(Collectors.toSet()));
+    }
+
     @Test
     void findByIdShouldReturnEmptyWhenUserDoesNotExist() {
         String nonExistentId = UUID.randomUUID().toString();
@@ -151,10 +253,36 @@ class MongoUserDaoImplTest {
     @Test
     void searchByUsernameShouldReturnEmptyListWhenNoMatches() {
         String uniqueSearchTerm = "unique" + UUID.randomUUID();
-        List<User> results = this.userDao.searchByUsername(uniqueSearchTerm);
+        List<User> results = this.userDao.searchByUsername(uniqueSearchTerm, 10);
         Assertions.assertTrue(results.isEmpty());
     }
 
+    @Test
+    void searchByUsernameShouldOnlyMatchPrefixesInOrderUpToTheLimit() throws ResourceConflictException {
+        String prefix = "prefix-" + UUID.randomUUID().toString().substring(0, 8);
+        List<String> usernames = List.of(prefix + "-c", prefix + "-a", prefix + "-b", "other-" + prefix);
+
+        for (String username : usernames) {
+            this.userDao.insert(new User(UUID.randomUUID().toString(), username, Optional.empty(), Instant.now()));
+        }
+
+        List<User> results = this.userDao.searchByUsername(prefix, 2);
+
+        Assertions.assertEquals(
+            List.of(prefix + "-a", prefix + "-b"),
+            results.stream().map(User::username).toList()
+        );
+    }
+
+    @Test
+    void searchByUsernameShouldTreatRegexCharactersLiterally() throws ResourceConflictException {
+        String username = "user.(" + UUID.randomUUID().toString().substring(0, 8) + ")*";
+        this.userDao.insert(new User(UUID.randomUUID().toString(), username, Optional.empty(), Instant.now()));
+
+        Assertions.assertEquals(1, this.userDao.searchByUsername("user.(", 10).size());
+        Assertions.assertTrue(this.userDao.searchByUsername(".*", 10).isEmpty());
+    }
+
     @AfterEach
     void tearDown() {
         this.mongoClient.close();
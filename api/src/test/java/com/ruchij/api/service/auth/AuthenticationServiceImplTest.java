@@ -0,0 +1,205 @@
+package com.ruchij.api.service.auth;
+
+import com.ruchij.api.config.AuthenticationCacheConfiguration;
+import com.ruchij.api.dao.auth.AuthTokenDao;
+import com.ruchij.api.dao.auth.models.AuthToken;
+import com.ruchij.api.dao.user.UserDao;
+import com.ruchij.api.dao.user.models.User;
+import com.ruchij.api.dao.user.models.UserCredentials;
+import com.ruchij.api.dao.user.models.UserWithCredentials;
+import com.ruchij.api.exception.AuthenticationException;
+import com.ruchij.api.exception.ResourceNotFoundException;
+import com.ruchij.api.exception.ServiceUnavailableException;
+import com.ruchij.api.metrics.MetricsRegistry;
+import com.ruchij.api.service.hashing.PasswordHashingService;
+import com.ruchij.api.service.random.RandomGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AuthenticationServiceImplTest {
+    private static final Instant TIMESTAMP = Instant.parse("2023-01-01T12:00:00Z");
+    private static final Duration CACHE_TTL = Duration.ofMinutes(5);
+    private static final String TOKEN = "token";
+    private static final String EMAIL = "user@example.com";
+    private static final User USER = new User("user-id", "username", Optional.empty(), TIMESTAMP);
+
+    private Clock clock;
+    private UserDao userDao;
+    private AuthTokenDao authTokenDao;
+    private PasswordHashingService passwordHashingService;
+    private RandomGenerator randomGenerator;
+    private MetricsRegistry metricsRegistry;
+    private AuthenticationServiceImpl authenticationService;
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        userDao = mock(UserDao.class);
+        authTokenDao = mock(AuthTokenDao.class);
+        passwordHashingService = mock(PasswordHashingService.class);
+        randomGenerator = mock(RandomGenerator.class);
+        metricsRegistry = new MetricsRegistry();
+
+        when(clock.instant()).thenReturn(TIMESTAMP);
+        when(userDao.findById(USER.id())).thenReturn(Optional.of(USER));
+        when(randomGenerator.uuid()).thenReturn(UUID.fromString("00000000-0000-0000-0000-000000000001"));
+
+        authenticationService = new AuthenticationServiceImpl(
+            userDao,
+            authTokenDao,
+            passwordHashingService,
+            randomGenerator,
+            clock,
+            new AuthenticationCacheConfiguration(10, CACHE_TTL),
+            metricsRegistry
+        );
+    }
+
+    @Test
+    void shouldServeRepeatedAuthenticationsFromTheCache() throws AuthenticationException {
+        // Arrange
+        when(authTokenDao.findByToken(TOKEN)).thenReturn(Optional.of(new AuthToken(TOKEN, USER.id(), TIMESTAMP)));
+
+        // Act
+        User first = authenticationService.authenticate(TOKEN);
+        User second = authenticationService.authenticate(TOKEN);
+
+        // Assert
+        assertEquals(USER, first);
+        assertEquals(USER, second);
+        verify(authTokenDao, times(1)).findByToken(TOKEN);
+        verify(userDao, times(1)).findById(USER.id());
+        assertEquals(1L, metricsRegistry.snapshot().get("authentication.cache.hits"));
+        assertEquals(1L, metricsRegistry.snapshot().get("authentication.cache.misses"));
+        assertEquals(1, metricsRegistry.snapshot().get("authentication.cache.size"));
+    }
+
+    @Test
+    void shouldReloadTheUserOnceTheCacheTtlHasElapsed() throws AuthenticationException {
+        // Arrange
+        when(authTokenDao.findByToken(TOKEN)).thenReturn(Optional.of(new AuthToken(TOKEN, USER.id(), TIMESTAMP)));
+        authenticationService.authenticate(TOKEN);
+
+        when(clock.instant()).thenReturn(TIMESTAMP.plus(CACHE_TTL));
+
+        // Act
+        authenticationService.authenticate(TOKEN);
+
+        // Assert
+        verify(authTokenDao, times(2)).findByToken(TOKEN);
+    }
+
+    @Test
+    void shouldNotCacheUsersBeyondTheExpiryOfTheirToken() throws AuthenticationException {
+        // Arrange
+        Instant issuedAt = TIMESTAMP.minus(AuthTokenDao.TOKEN_TTL).plusSeconds(60);
+        when(authTokenDao.findByToken(TOKEN)).thenReturn(Optional.of(new AuthToken(TOKEN, USER.id(), issuedAt)));
+        authenticationService.authenticate(TOKEN);
+
+        // The token is past its TTL, but well within the cache TTL
+        when(clock.instant()).thenReturn(TIMESTAMP.plusSeconds(60));
+        when(authTokenDao.findByToken(TOKEN)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(AuthenticationException.class, () -> authenticationService.authenticate(TOKEN));
+    }
+
+    @Test
+    void shouldInvalidateTheCachedUserWhenTheTokenIsRemoved() throws AuthenticationException {
+        // Arrange
+        when(authTokenDao.findByToken(TOKEN)).thenReturn(Optional.of(new AuthToken(TOKEN, USER.id(), TIMESTAMP)));
+        authenticationService.authenticate(TOKEN);
+
+        // Act
+        User user = authenticationService.removeAuthToken(TOKEN);
+
+        // Assert
+        assertEquals(USER, user);
+        verify(authTokenDao).deleteByToken(TOKEN);
+
+        when(authTokenDao.findByToken(TOKEN)).thenReturn(Optional.empty());
+        assertThrows(AuthenticationException.class, () -> authenticationService.authenticate(TOKEN));
+        assertEquals(0, metricsRegistry.snapshot().get("authentication.cache.size"));
+    }
+
+    @Test
+    void shouldNotCacheInvalidTokens() {
+        // Arrange
+        when(authTokenDao.findByToken(TOKEN)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(AuthenticationException.class, () -> authenticationService.authenticate(TOKEN));
+        assertThrows(AuthenticationException.class, () -> authenticationService.authenticate(TOKEN));
+
+        verify(authTokenDao, times(2)).findByToken(TOKEN);
+        assertEquals(2L, metricsRegistry.snapshot().get("authentication.cache.misses"));
+    }
+
+    @Test
+    void shouldRehashPasswordsOnLoginWhenTheHashingSettingsChanged() throws Exception {
+        // Arrange
+        when(userDao.findWithCredentialsByEmail(EMAIL))
+            .thenReturn(Optional.of(new UserWithCredentials(USER, new UserCredentials(USER.id(), "old-hash"))));
+        when(passwordHashingService.verifyPassword("password", "old-hash")).thenReturn(true);
+        when(passwordHashingService.needsRehash("old-hash")).thenReturn(true);
+        when(passwordHashingService.hashPassword("password")).thenReturn("new-hash");
+
+        // Act
+        AuthToken authToken = authenticationService.createAuthToken(EMAIL, "password");
+
+        // Assert
+        assertEquals(USER.id(), authToken.userId());
+        verify(userDao).update(new UserCredentials(USER.id(), "new-hash"));
+    }
+
+    @Test
+    void shouldLoginWhenThePasswordCannotBeRehashed() throws Exception {
+        // Arrange
+        when(userDao.findWithCredentialsByEmail(EMAIL))
+            .thenReturn(Optional.of(new UserWithCredentials(USER, new UserCredentials(USER.id(), "old-hash"))));
+        when(passwordHashingService.verifyPassword("password", "old-hash")).thenReturn(true);
+        when(passwordHashingService.needsRehash("old-hash")).thenReturn(true);
+        when(passwordHashingService.hashPassword("password")).thenThrow(new ServiceUnavailableException("Overloaded"));
+
+        // Act
+        AuthToken authToken = authenticationService.createAuthToken(EMAIL, "password");
+
+        // Assert
+        assertEquals(USER.id(), authToken.userId());
+        verify(userDao, never()).update(any(UserCredentials.class));
+    }
+
+    @Test
+    void shouldRejectInvalidPasswordsAfterASingleLookup() throws Exception {
+        // Arrange
+        when(userDao.findWithCredentialsByEmail(EMAIL))
+            .thenReturn(Optional.of(new UserWithCredentials(USER, new UserCredentials(USER.id(), "hash"))));
+        when(passwordHashingService.verifyPassword("wrong-password", "hash")).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(AuthenticationException.class, () -> authenticationService.createAuthToken(EMAIL, "wrong-password"));
+
+        verify(userDao).findWithCredentialsByEmail(EMAIL);
+        verifyNoMoreInteractions(userDao);
+    }
+
+    @Test
+    void shouldNotFindUnknownEmails() {
+        // Arrange
+        when(userDao.findWithCredentialsByEmail(EMAIL)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> authenticationService.createAuthToken(EMAIL, "password"));
+    }
+}
@@ -0,0 +1,146 @@
+package com.ruchij.api.service.auth;
+
+import com.ruchij.api.config.AuthenticationCacheConfiguration;
+import com.ruchij.api.config.TokenRevocationConfiguration;
+import com.ruchij.api.dao.auth.AuthTokenDao;
+import com.ruchij.api.dao.auth.models.AuthToken;
+import com.ruchij.api.dao.user.UserDao;
+import com.ruchij.api.dao.user.models.User;
+import com.ruchij.api.exception.AuthenticationException;
+import com.ruchij.api.exception.ResourceNotFoundException;
+import com.ruchij.api.metrics.MetricsRegistry;
+import com.ruchij.api.service.hashing.PasswordHashingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class SignedAuthenticationServiceImplTest {
+    private static final Instant TIMESTAMP = Instant.parse("2023-01-01T12:00:00.123456Z");
+    private static final String SIGNING_KEY = "0123456789abcdef0123456789abcdef";
+    private static final User USER = new User("user-id", "username", Optional.empty(), TIMESTAMP);
+
+    private Clock clock;
+    private UserDao userDao;
+    private AuthTokenDao authTokenDao;
+    private MetricsRegistry metricsRegistry;
+    private SignedAuthenticationServiceImpl authenticationService;
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        userDao = mock(UserDao.class);
+        authTokenDao = mock(AuthTokenDao.class);
+        metricsRegistry = new MetricsRegistry();
+
+        when(clock.instant()).thenReturn(TIMESTAMP);
+        when(userDao.findById(USER.id())).thenReturn(Optional.of(USER));
+        when(authTokenDao.findByToken(anyString())).thenReturn(Optional.empty());
+
+        authenticationService = signedAuthenticationService(SIGNING_KEY);
+    }
+
+    private SignedAuthenticationServiceImpl signedAuthenticationService(String signingKey) {
+        return new SignedAuthenticationServiceImpl(
+            userDao,
+            authTokenDao,
+            mock(PasswordHashingService.class),
+            clock,
+            signingKey,
+            new AuthenticationCacheConfiguration(10, Duration.ofMinutes(5)),
+            new TokenRevocationConfiguration(1_000, Duration.ofMinutes(1)),
+            metricsRegistry
+        );
+    }
+
+    @Test
+    void shouldAuthenticateIssuedTokensWithoutLookingThemUp() throws Exception {
+        // Arrange
+        AuthToken authToken = authenticationService.createAuthToken(USER.id());
+
+        // Act
+        User first = authenticationService.authenticate(authToken.token());
+        User second = authenticationService.authenticate(authToken.token());
+
+        // Assert
+        assertEquals(USER, first);
+        assertEquals(USER, second);
+        assertEquals(USER.id(), authToken.userId());
+        assertEquals(Instant.parse("2023-01-01T12:00:00.123Z"), authToken.issuedAt());
+
+        verify(authTokenDao, never()).findByToken(anyString());
+        verify(authTokenDao, never()).insert(any());
+        verify(userDao, times(2)).findById(USER.id());
+        assertEquals(1L, metricsRegistry.snapshot().get("authentication.cache.hits"));
+    }
+
+    @Test
+    void shouldRejectTamperedTokens() throws ResourceNotFoundException {
+        // Arrange
+        String token = authenticationService.createAuthToken(USER.id()).token();
+        String otherUserToken = token.replaceFirst(USER.id(), "other-user-id");
+        String resignedToken = signedAuthenticationService("fedcba9876543210fedcba9876543210")
+            .createAuthToken(USER.id())
+            .token();
+
+        // Act & Assert
+        assertThrows(AuthenticationException.class, () -> authenticationService.authenticate(otherUserToken));
+        assertThrows(AuthenticationException.class, () -> authenticationService.authenticate(resignedToken));
+        assertThrows(AuthenticationException.class, () -> authenticationService.authenticate(token + "A"));
+        assertThrows(AuthenticationException.class, () -> authenticationService.authenticate("not-a-token"));
+        assertThrows(AuthenticationException.class, () -> authenticationService.authenticate("a.b.c"));
+    }
+
+    @Test
+    void shouldRejectExpiredTokens() throws ResourceNotFoundException {
+        // Arrange
+        String token = authenticationService.createAuthToken(USER.id()).token();
+        when(clock.instant()).thenReturn(TIMESTAMP.plus(AuthTokenDao.TOKEN_TTL));
+
+        // Act & Assert
+        assertThrows(AuthenticationException.class, () -> authenticationService.authenticate(token));
+    }
+
+    @Test
+    void shouldRejectRemovedTokens() throws Exception {
+        // Arrange
+        AuthToken authToken = authenticationService.createAuthToken(USER.id());
+        when(authTokenDao.findByToken(authToken.token())).thenReturn(Optional.of(authToken));
+
+        // Act
+        User user = authenticationService.removeAuthToken(authToken.token());
+
+        // Assert
+        assertEquals(USER, user);
+        verify(authTokenDao).insert(authToken);
+        assertThrows(AuthenticationException.class, () -> authenticationService.authenticate(authToken.token()));
+    }
+
+    @Test
+    void shouldRejectTokensRevokedByOtherInstancesOnceReloaded() throws Exception {
+        // Arrange
+        AuthToken authToken = authenticationService.createAuthToken(USER.id());
+        authenticationService.authenticate(authToken.token());
+
+        when(authTokenDao.findByToken(authToken.token())).thenReturn(Optional.of(authToken));
+        doAnswer(invocation -> {
+            invocation.<Consumer<AuthToken>>getArgument(0).accept(authToken);
+            return null;
+        }).when(authTokenDao).forEach(any());
+
+        // Act
+        authenticationService.reloadRevokedTokens();
+
+        // Assert
+        assertThrows(AuthenticationException.class, () -> authenticationService.authenticate(authToken.token()));
+    }
+}
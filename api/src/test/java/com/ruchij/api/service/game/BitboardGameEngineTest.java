@@ -0,0 +1,102 @@
+package com.ruchij.api.service.game;
+
+import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.exception.ValidationException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.ruchij.api.service.game.GameEngineFixtures.*;
+
+class BitboardGameEngineTest {
+    private static final BitboardGameEngine bitboardGameEngine = new BitboardGameEngine();
+
+    @Test
+    void testGetWinnerHorizontal() {
+        /*
+         Board state:
+            X X X
+            O O *
+            * * *
+        */
+        List<Game.Move> moves = new ArrayList<>();
+        moves.add(new Game.Move(moveId(), PLAYER_ONE_ID, Instant.now(), new Game.Coordinate(0, 0)));
+        moves.add(new Game.Move(moveId(), PLAYER_TWO_ID, Instant.now(), new Game.Coordinate(0, 1)));
+        moves.add(new Game.Move(moveId(), PLAYER_ONE_ID, Instant.now(), new Game.Coordinate(1, 0)));
+        moves.add(new Game.Move(moveId(), PLAYER_TWO_ID, Instant.now(), new Game.Coordinate(1, 1)));
+        moves.add(new Game.Move(moveId(), PLAYER_ONE_ID, Instant.now(), new Game.Coordinate(2, 0)));
+
+        Optional<Game.Winner> winner = bitboardGameEngine.getWinner(game(moves));
+
+        Assertions.assertTrue(winner.isPresent());
+        Assertions.assertEquals(PLAYER_ONE_ID, winner.get().playerId());
+        Assertions.assertEquals(Game.WinningRule.Horizontal, winner.get().winningRule());
+        Assertions.assertEquals(
+            List.of(new Game.Coordinate(0, 0), new Game.Coordinate(1, 0), new Game.Coordinate(2, 0)),
+            winner.get().coordinates()
+        );
+    }
+
+    @Test
+    void testGetWinnerOnlyConsidersLatestMoves() {
+        /*
+         The first X at (0, 0) has disappeared by the time the last move is played
+
+         Board state:
+            * X X
+            O O *
+            O * *
+        */
+        List<Game.Move> moves = new ArrayList<>();
+        moves.add(new Game.Move(moveId(), PLAYER_ONE_ID, Instant.now(), new Game.Coordinate(0, 0)));
+        moves.add(new Game.Move(moveId(), PLAYER_TWO_ID, Instant.now(), new Game.Coordinate(0, 1)));
+        moves.add(new Game.Move(moveId(), PLAYER_ONE_ID, Instant.now(), new Game.Coordinate(1, 0)));
+        moves.add(new Game.Move(moveId(), PLAYER_TWO_ID, Instant.now(), new Game.Coordinate(1, 1)));
+        moves.add(new Game.Move(moveId(), PLAYER_ONE_ID, Instant.now(), new Game.Coordinate(2, 2)));
+        moves.add(new Game.Move(moveId(), PLAYER_TWO_ID, Instant.now(), new Game.Coordinate(0, 2)));
+        moves.add(new Game.Move(moveId(), PLAYER_ONE_ID, Instant.now(), new Game.Coordinate(2, 0)));
+
+        Assertions.assertTrue(bitboardGameEngine.getWinner(game(moves)).isEmpty());
+    }
+
+    @Test
+    void testCheckMoveInvalidOccupiedSpace() {
+        List<Game.Move> moves = new ArrayList<>();
+        moves.add(new Game.Move(moveId(), PLAYER_ONE_ID, Instant.now(), new Game.Coordinate(1, 1)));
+
+        ValidationException exception = Assertions.assertThrows(ValidationException.class, () ->
+            bitboardGameEngine.checkMove(game(moves), PLAYER_TWO_ID, new Game.Coordinate(1, 1))
+        );
+
+        Assertions.assertTrue(exception.getMessage().contains("NOT vacant"));
+    }
+
+    @Test
+    void testCheckMoveInvalidOutOfBounds() {
+        ValidationException exception = Assertions.assertThrows(ValidationException.class, () ->
+            bitboardGameEngine.checkMove(game(new ArrayList<>()), PLAYER_ONE_ID, new Game.Coordinate(3, 0))
+        );
+
+        Assertions.assertTrue(exception.getMessage().contains("out of bounds"));
+    }
+
+    @Test
+    void testCustomGridSize() {
+        Assertions.assertDoesNotThrow(() -> new BitboardGameEngine(BitboardGameEngine.MAX_GRID_SIZE));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BitboardGameEngine(0));
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> new BitboardGameEngine(BitboardGameEngine.MAX_GRID_SIZE + 1)
+        );
+    }
+
+    @Test
+    void shouldMatchGameEngineImplForRandomGames() {
+        assertMatchesGameEngineImpl(BitboardGameEngine::new, BitboardGameEngine.MAX_GRID_SIZE, 42);
+    }
+}
@@ -0,0 +1,94 @@
+package com.ruchij.api.service.game;
+
+import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.exception.ValidationException;
+import org.junit.jupiter.api.Assertions;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Games and checks which are shared by the tests of the {@link GameEngine} implementations
+ */
+final class GameEngineFixtures {
+    static final String PLAYER_ONE_ID = "player1";
+    static final String PLAYER_TWO_ID = "player2";
+
+    private GameEngineFixtures() {
+    }
+
+    static String moveId() {
+        return UUID.randomUUID().toString();
+    }
+
+    static Game game(List<Game.Move> moves) {
+        return new Game(
+            "game-id",
+            "Test Game",
+            Instant.now(),
+            PLAYER_ONE_ID,
+            Instant.now(),
+            PLAYER_ONE_ID,
+            PLAYER_TWO_ID,
+            moves,
+            Optional.empty()
+        );
+    }
+
+    /**
+     * Plays random games, including out of bounds and occupied moves, on every grid size up to {@code maxGridSize} and
+     * checks that the game engine agrees with {@link GameEngineImpl} on every move and winner
+     */
+    static void assertMatchesGameEngineImpl(IntFunction<GameEngine> gameEngineFactory, int maxGridSize, long seed) {
+        Random random = new Random(seed);
+
+        for (int gridSize = 3; gridSize <= maxGridSize; gridSize++) {
+            GameEngineImpl gameEngineImpl = new GameEngineImpl(gridSize);
+            GameEngine gameEngine = gameEngineFactory.apply(gridSize);
+
+            for (int gameCount = 0; gameCount < 200; gameCount++) {
+                Game game = game(new ArrayList<>());
+
+                for (int moveCount = 0; moveCount < gridSize * gridSize * 3; moveCount++) {
+                    String playerId = moveCount % 2 == 0 ? PLAYER_ONE_ID : PLAYER_TWO_ID;
+                    Game.Coordinate coordinate =
+                        new Game.Coordinate(random.nextInt(gridSize + 1), random.nextInt(gridSize + 1));
+
+                    Optional<String> expectedError = validationError(() -> gameEngineImpl.checkMove(game, playerId, coordinate));
+                    Assertions.assertEquals(
+                        expectedError,
+                        validationError(() -> gameEngine.checkMove(game, playerId, coordinate))
+                    );
+
+                    if (expectedError.isEmpty()) {
+                        game.moves().add(new Game.Move(moveId(), playerId, Instant.now(), coordinate));
+
+                        Optional<Game.Winner> winner = gameEngine.getWinner(game);
+                        Assertions.assertEquals(gameEngineImpl.getWinner(game), winner);
+
+                        if (winner.isPresent()) {
+                            break;
+                        }
+                    } else {
+                        moveCount--;
+                    }
+                }
+            }
+        }
+    }
+
+    private static Optional<String> validationError(ValidationCheck validationCheck) {
+        try {
+            validationCheck.run();
+            return Optional.empty();
+        } catch (ValidationException validationException) {
+            return Optional.of(validationException.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface ValidationCheck {
+        void run() throws ValidationException;
+    }
+}
@@ -2,22 +2,33 @@ package com.ruchij.api.service.game;
 
 import com.ruchij.api.dao.game.GameDao;
 import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.dao.game.models.PageCursor;
 import com.ruchij.api.dao.game.models.PendingGame;
 import com.ruchij.api.exception.ResourceConflictException;
 import com.ruchij.api.exception.ResourceNotFoundException;
 import com.ruchij.api.exception.ValidationException;
+import com.ruchij.api.service.game.models.CursorPage;
+import com.ruchij.api.service.game.models.GameDelta;
+import com.ruchij.api.service.game.models.GameVersion;
+import com.ruchij.api.service.game.models.PendingGameVersion;
 import com.ruchij.api.service.random.RandomGenerator;
 import com.ruchij.api.utils.ThrowableConsumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import java.io.IOException;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -33,7 +44,6 @@ class GameServiceImplTest {
 
     private GameDao gameDao;
     private GameEngine gameEngine;
-    private ExecutorService executorService;
     private RandomGenerator randomGenerator;
     private GameServiceImpl gameService;
 
@@ -41,13 +51,11 @@ class GameServiceImplTest {
     void setUp() {
         gameDao = mock(GameDao.class);
         gameEngine = mock(GameEngine.class);
-        executorService = mock(ExecutorService.class);
         randomGenerator = mock(RandomGenerator.class);
 
         gameService = new GameServiceImpl(
             gameDao,
             gameEngine,
-            executorService,
             FIXED_CLOCK,
             randomGenerator
         );
@@ -84,6 +92,23 @@ class GameServiceImplTest {
         assertEquals(FIXED_INSTANT, capturedPendingGame.createdAt());
         assertEquals(PLAYER_ONE_ID, capturedPendingGame.createdBy());
         assertEquals(Optional.empty(), capturedPendingGame.gameStartedAt());
+
+        assertEquals(
+            Optional.of(new PendingGameVersion(TEST_GAME_ID, false)),
+            gameService.getPendingGameVersion(TEST_GAME_ID)
+        );
+    }
+
+    @Test
+    void createGameShouldChangeTheLobbyVersion() {
+        // Arrange
+        String lobbyVersion = gameService.getLobbyVersion();
+
+        // Act
+        gameService.createGame(TEST_GAME_NAME, PLAYER_ONE_ID);
+
+        // Assert
+        assertNotEquals(lobbyVersion, gameService.getLobbyVersion());
     }
 
     @Test
@@ -152,6 +177,11 @@ class GameServiceImplTest {
         assertEquals(PLAYER_TWO_ID, capturedGame.playerTwoId());
         assertTrue(capturedGame.moves().isEmpty());
         assertTrue(capturedGame.winner().isEmpty());
+
+        assertEquals(
+            Optional.of(new PendingGameVersion(TEST_GAME_ID, true)),
+            gameService.getPendingGameVersion(TEST_GAME_ID)
+        );
     }
 
     @Test
@@ -201,7 +231,7 @@ class GameServiceImplTest {
     }
 
     @Test
-    void addMoveShouldAddMoveToGame() throws ResourceNotFoundException, ValidationException {
+    void addMoveShouldAddMoveToGame() throws ResourceNotFoundException, ValidationException, ResourceConflictException {
         // Arrange
         Game.Coordinate coordinate = new Game.Coordinate(0, 0);
         List<Game.Move> moves = new ArrayList<>();
@@ -219,10 +249,9 @@ class GameServiceImplTest {
         );
 
         when(gameDao.findGameById(TEST_GAME_ID)).thenReturn(Optional.of(game));
-        when(gameDao.updateGame(any(Game.class))).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+        when(gameDao.appendMoves(any(Game.class), anyInt(), anyList(), any())).thenReturn(true);
         when(gameEngine.getWinner(any(Game.class))).thenReturn(Optional.empty());
         doNothing().when(gameEngine).checkMove(any(Game.class), anyString(), any(Game.Coordinate.class));
-        when(executorService.submit(any(Runnable.class))).thenReturn(null);
 
         // Act
         Game result = gameService.addMove(TEST_GAME_ID, PLAYER_ONE_ID, coordinate);
@@ -230,6 +259,7 @@ class GameServiceImplTest {
         // Assert
         assertEquals(TEST_GAME_ID, result.id());
         assertEquals(1, result.moves().size());
+        assertEquals(TEST_GAME_ID + "-0", result.moves().getFirst().id());
         assertEquals(PLAYER_ONE_ID, result.moves().getFirst().playerId());
         assertEquals(FIXED_INSTANT, result.moves().getFirst().performedAt());
         assertEquals(coordinate, result.moves().getFirst().coordinate());
@@ -240,21 +270,22 @@ class GameServiceImplTest {
         verify(gameEngine).checkMove(any(Game.class), eq(PLAYER_ONE_ID), eq(coordinate));
         verify(gameEngine).getWinner(any(Game.class));
 
-        // Verify game was updated
-        ArgumentCaptor<Game> gameCaptor = ArgumentCaptor.forClass(Game.class);
-        verify(gameDao).updateGame(gameCaptor.capture());
+        // Verify the move was appended to the game
+        ArgumentCaptor<List<Game.Move>> movesCaptor = ArgumentCaptor.captor();
+        verify(gameDao).appendMoves(argThat(appendedGame -> appendedGame.id().equals(TEST_GAME_ID)), eq(0), movesCaptor.capture(), eq(Optional.empty()));
 
-        Game capturedGame = gameCaptor.getValue();
-        assertEquals(TEST_GAME_ID, capturedGame.id());
-        assertEquals(1, capturedGame.moves().size());
-        assertEquals(PLAYER_ONE_ID, capturedGame.moves().getFirst().playerId());
-        assertEquals(FIXED_INSTANT, capturedGame.moves().getFirst().performedAt());
-        assertEquals(coordinate, capturedGame.moves().getFirst().coordinate());
-        assertTrue(capturedGame.winner().isEmpty());
+        List<Game.Move> capturedMoves = movesCaptor.getValue();
+        assertEquals(1, capturedMoves.size());
+        assertEquals(PLAYER_ONE_ID, capturedMoves.getFirst().playerId());
+        assertEquals(FIXED_INSTANT, capturedMoves.getFirst().performedAt());
+        assertEquals(coordinate, capturedMoves.getFirst().coordinate());
+        verify(gameDao, never()).updateGame(any(Game.class));
+
+        assertEquals(Optional.of(new GameVersion(TEST_GAME_ID, 1, false)), gameService.getGameVersion(TEST_GAME_ID));
     }
 
     @Test
-    void addMoveShouldAddMoveAndSetWinner() throws ResourceNotFoundException, ValidationException {
+    void addMoveShouldAddMoveAndSetWinner() throws ResourceNotFoundException, ValidationException, ResourceConflictException {
         // Arrange
         Game.Coordinate coordinate = new Game.Coordinate(0, 0);
         List<Game.Move> moves = new ArrayList<>();
@@ -278,10 +309,9 @@ class GameServiceImplTest {
         );
 
         when(gameDao.findGameById(TEST_GAME_ID)).thenReturn(Optional.of(game));
-        when(gameDao.updateGame(any(Game.class))).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+        when(gameDao.appendMoves(any(Game.class), anyInt(), anyList(), any())).thenReturn(true);
         when(gameEngine.getWinner(any(Game.class))).thenReturn(Optional.of(winner));
         doNothing().when(gameEngine).checkMove(any(Game.class), anyString(), any(Game.Coordinate.class));
-        when(executorService.submit(any(Runnable.class))).thenReturn(null);
 
         // Act
         Game result = gameService.addMove(TEST_GAME_ID, PLAYER_ONE_ID, coordinate);
@@ -301,19 +331,46 @@ class GameServiceImplTest {
         verify(gameEngine).checkMove(any(Game.class), eq(PLAYER_ONE_ID), eq(coordinate));
         verify(gameEngine).getWinner(any(Game.class));
 
-        // Verify game was updated
-        ArgumentCaptor<Game> gameCaptor = ArgumentCaptor.forClass(Game.class);
-        verify(gameDao).updateGame(gameCaptor.capture());
+        // Verify the move was appended together with the winner
+        ArgumentCaptor<List<Game.Move>> movesCaptor = ArgumentCaptor.captor();
+        verify(gameDao).appendMoves(argThat(appendedGame -> appendedGame.id().equals(TEST_GAME_ID)), eq(0), movesCaptor.capture(), eq(Optional.of(winner)));
 
-        Game capturedGame = gameCaptor.getValue();
-        assertEquals(TEST_GAME_ID, capturedGame.id());
-        assertEquals(1, capturedGame.moves().size());
-        assertEquals(PLAYER_ONE_ID, capturedGame.moves().getFirst().playerId());
-        assertEquals(FIXED_INSTANT, capturedGame.moves().getFirst().performedAt());
-        assertEquals(coordinate, capturedGame.moves().getFirst().coordinate());
-        assertTrue(capturedGame.winner().isPresent());
-        assertEquals(PLAYER_ONE_ID, capturedGame.winner().get().playerId());
-        assertEquals(Game.WinningRule.Horizontal, capturedGame.winner().get().winningRule());
+        List<Game.Move> capturedMoves = movesCaptor.getValue();
+        assertEquals(1, capturedMoves.size());
+        assertEquals(PLAYER_ONE_ID, capturedMoves.getFirst().playerId());
+        assertEquals(coordinate, capturedMoves.getFirst().coordinate());
+
+        assertEquals(Optional.of(new GameVersion(TEST_GAME_ID, 1, true)), gameService.getGameVersion(TEST_GAME_ID));
+    }
+
+    @Test
+    void addMoveShouldThrowExceptionWhenGameWasUpdatedConcurrently() throws ValidationException {
+        // Arrange
+        Game.Coordinate coordinate = new Game.Coordinate(0, 0);
+
+        Game game = new Game(
+            TEST_GAME_ID,
+            TEST_GAME_NAME,
+            FIXED_INSTANT,
+            PLAYER_ONE_ID,
+            FIXED_INSTANT,
+            PLAYER_ONE_ID,
+            PLAYER_TWO_ID,
+            new ArrayList<>(),
+            Optional.empty()
+        );
+
+        when(gameDao.findGameById(TEST_GAME_ID)).thenReturn(Optional.of(game));
+        when(gameDao.appendMoves(any(Game.class), anyInt(), anyList(), any())).thenReturn(false);
+        when(gameEngine.getWinner(any(Game.class))).thenReturn(Optional.empty());
+
+        // Act & Assert
+        ResourceConflictException exception = assertThrows(
+            ResourceConflictException.class,
+            () -> gameService.addMove(TEST_GAME_ID, PLAYER_ONE_ID, coordinate)
+        );
+
+        assertEquals("Game gameId=" + TEST_GAME_ID + " was updated by another request", exception.getMessage());
     }
 
     @Test
@@ -332,7 +389,6 @@ class GameServiceImplTest {
 
         // Verify interactions
         verify(gameDao).findGameById(TEST_GAME_ID);
-        verify(executorService, never()).submit(any(Runnable.class));
     }
 
     @Test
@@ -371,7 +427,6 @@ class GameServiceImplTest {
 
         // Verify interactions
         verify(gameDao).findGameById(TEST_GAME_ID);
-        verify(executorService, never()).submit(any(Runnable.class));
     }
 
     @Test
@@ -406,7 +461,91 @@ class GameServiceImplTest {
         // Verify interactions
         verify(gameDao).findGameById(TEST_GAME_ID);
         verify(gameEngine).checkMove(any(Game.class), eq(PLAYER_ONE_ID), eq(coordinate));
-        verify(executorService, never()).submit(any(Runnable.class));
+    }
+
+    @Test
+    void addMoveShouldApplyConcurrentMovesForTheSameGameOneAtATime() throws Exception {
+        // Arrange
+        int moveCount = 50;
+        AtomicReference<Game> storedGame = new AtomicReference<>(
+            new Game(
+                TEST_GAME_ID,
+                TEST_GAME_NAME,
+                FIXED_INSTANT,
+                PLAYER_ONE_ID,
+                FIXED_INSTANT,
+                PLAYER_ONE_ID,
+                PLAYER_TWO_ID,
+                new ArrayList<>(),
+                Optional.empty()
+            )
+        );
+
+        when(gameDao.findGameById(TEST_GAME_ID)).thenAnswer(invocation -> {
+            Game game = storedGame.get();
+
+            return Optional.of(
+                new Game(
+                    game.id(),
+                    game.title(),
+                    game.createdAt(),
+                    game.createdBy(),
+                    game.startedAt(),
+                    game.playerOneId(),
+                    game.playerTwoId(),
+                    new ArrayList<>(game.moves()),
+                    game.winner()
+                )
+            );
+        });
+        when(gameDao.appendMoves(argThat(appendedGame -> appendedGame.id().equals(TEST_GAME_ID)), anyInt(), anyList(), any())).thenAnswer(invocation -> {
+            // Widen the window between reading and writing the game
+            Thread.sleep(1);
+
+            Game game = storedGame.get();
+            int expectedMoveCount = invocation.getArgument(1);
+
+            if (game.moves().size() != expectedMoveCount) {
+                return false;
+            }
+
+            List<Game.Move> moves = new ArrayList<>(game.moves());
+            moves.addAll(invocation.getArgument(2));
+
+            storedGame.set(
+                new Game(
+                    game.id(),
+                    game.title(),
+                    game.createdAt(),
+                    game.createdBy(),
+                    game.startedAt(),
+                    game.playerOneId(),
+                    game.playerTwoId(),
+                    moves,
+                    invocation.getArgument(3)
+                )
+            );
+
+            return true;
+        });
+        when(gameEngine.getWinner(any(Game.class))).thenReturn(Optional.empty());
+
+        // Act
+        try (ExecutorService requestExecutorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Game>> results = new ArrayList<>();
+
+            for (int i = 0; i < moveCount; i++) {
+                Game.Coordinate coordinate = new Game.Coordinate(i, 0);
+                results.add(requestExecutorService.submit(() -> gameService.addMove(TEST_GAME_ID, PLAYER_ONE_ID, coordinate)));
+            }
+
+            for (Future<Game> result : results) {
+                result.get();
+            }
+        }
+
+        // Assert
+        assertEquals(moveCount, storedGame.get().moves().size());
     }
 
     @Test
@@ -595,38 +734,82 @@ class GameServiceImplTest {
 
         // Setup mocks for addMove
         when(gameDao.findGameById(TEST_GAME_ID)).thenReturn(Optional.of(game));
-        when(gameDao.updateGame(any(Game.class))).thenReturn(Optional.of(updatedGame));
+        when(gameDao.appendMoves(any(Game.class), anyInt(), anyList(), any())).thenReturn(true);
         when(gameEngine.getWinner(any(Game.class))).thenReturn(Optional.of(winner));
         doNothing().when(gameEngine).checkMove(any(Game.class), anyString(), any(Game.Coordinate.class));
 
-        // Capture the Runnable submitted to executorService
-        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
-
         // Simulate adding a move which will trigger the callbacks
         try {
             gameService.addMove(TEST_GAME_ID, PLAYER_TWO_ID, coordinate);
 
-            // Verify executorService was called with Runnables
-            verify(executorService, times(2)).submit(runnableCaptor.capture());
+            // Verify callbacks were called in order, before addMove returned
+            InOrder inOrder = inOrder(moveConsumer, winnerConsumer);
 
-            // Execute the captured Runnables to trigger the callbacks
-            List<Runnable> runnables = runnableCaptor.getAllValues();
-            for (Runnable runnable : runnables) {
-                runnable.run();
-            }
-
-            // Verify callbacks were called
             try {
-                verify(moveConsumer).accept(any(Game.Move.class));
-                verify(winnerConsumer).accept(any(Game.Winner.class));
+                inOrder.verify(moveConsumer).accept(any(Game.Move.class));
+                inOrder.verify(winnerConsumer).accept(any(Game.Winner.class));
             } catch (IOException e) {
                 fail("Callbacks should not throw IOException in this test");
             }
-        } catch (ValidationException | ResourceNotFoundException e) {
+        } catch (ValidationException | ResourceNotFoundException | ResourceConflictException e) {
             fail("Should not throw exception when adding move: " + e.getMessage());
         }
     }
 
+    @Test
+    void registerForUpdatesCallbacksShouldBeCalledAfterTheMoveLockIsReleased() throws Exception {
+        // Arrange
+        when(gameDao.findGameById(TEST_GAME_ID)).thenAnswer(invocation ->
+            Optional.of(
+                new Game(
+                    TEST_GAME_ID,
+                    TEST_GAME_NAME,
+                    FIXED_INSTANT,
+                    PLAYER_ONE_ID,
+                    FIXED_INSTANT,
+                    PLAYER_ONE_ID,
+                    PLAYER_TWO_ID,
+                    new ArrayList<>(),
+                    Optional.empty()
+                )
+            )
+        );
+        when(gameDao.appendMoves(any(Game.class), anyInt(), anyList(), any())).thenReturn(true);
+        when(gameEngine.getWinner(any(Game.class))).thenReturn(Optional.empty());
+
+        List<Game.Move> notifiedMoves = new CopyOnWriteArrayList<>();
+
+        try (ExecutorService requestExecutorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            gameService.registerForUpdates(
+                TEST_GAME_ID,
+                move -> {
+                    notifiedMoves.add(move);
+
+                    // Another move of the same game is only applied while the listener runs once the move lock is released
+                    if (notifiedMoves.size() == 1) {
+                        try {
+                            requestExecutorService.submit(() ->
+                                gameService.addMove(TEST_GAME_ID, PLAYER_TWO_ID, new Game.Coordinate(1, 0))
+                            ).get(5, TimeUnit.SECONDS);
+                        } catch (Exception exception) {
+                            throw new IllegalStateException(exception);
+                        }
+                    }
+                },
+                winner -> {}
+            );
+
+            // Act
+            gameService.addMove(TEST_GAME_ID, PLAYER_ONE_ID, new Game.Coordinate(0, 0));
+        }
+
+        // Assert
+        assertEquals(
+            List.of(new Game.Coordinate(0, 0), new Game.Coordinate(1, 0)),
+            notifiedMoves.stream().map(Game.Move::coordinate).toList()
+        );
+    }
+
     @Test
     void registerForUpdatesShouldThrowExceptionWhenGameNotFound() {
         // Arrange
@@ -746,4 +929,116 @@ class GameServiceImplTest {
         // Verify interactions
         verify(gameDao).getPendingGames(limit, offset);
     }
+
+    @Test
+    void getPendingGamesShouldReturnTheCursorOfTheLastGameOfAFullPage() {
+        // Arrange
+        int limit = 2;
+        PageCursor cursor = new PageCursor(FIXED_INSTANT.plusSeconds(60), "cursor-id");
+
+        PendingGame pendingGame1 = new PendingGame("id1", "Game 1", FIXED_INSTANT.plusSeconds(30), PLAYER_ONE_ID, Optional.empty());
+        PendingGame pendingGame2 = new PendingGame("id2", "Game 2", FIXED_INSTANT, PLAYER_TWO_ID, Optional.empty());
+
+        when(gameDao.getPendingGames(limit, Optional.of(cursor))).thenReturn(List.of(pendingGame1, pendingGame2));
+
+        // Act
+        CursorPage<PendingGame> result = gameService.getPendingGames(limit, Optional.of(cursor));
+
+        // Assert
+        assertEquals(List.of(pendingGame1, pendingGame2), result.data());
+        assertEquals(Optional.of(new PageCursor(FIXED_INSTANT, "id2")), result.next());
+    }
+
+    @Test
+    void getUnfinishedGamesByPlayerIdShouldNotReturnACursorForTheLastPage() {
+        // Arrange
+        int limit = 10;
+        Game game = new Game(
+            TEST_GAME_ID,
+            TEST_GAME_NAME,
+            FIXED_INSTANT,
+            PLAYER_ONE_ID,
+            FIXED_INSTANT,
+            PLAYER_ONE_ID,
+            PLAYER_TWO_ID,
+            new ArrayList<>(),
+            Optional.empty()
+        );
+
+        when(gameDao.findGamesByPlayerId(PLAYER_ONE_ID, limit, Optional.empty())).thenReturn(List.of(game));
+
+        // Act
+        CursorPage<Game> result = gameService.getUnfinishedGamesByPlayerId(PLAYER_ONE_ID, limit, Optional.empty());
+
+        // Assert
+        assertEquals(List.of(game), result.data());
+        assertEquals(Optional.empty(), result.next());
+    }
+
+    private Game gameWithMoves(int moveCount, int moveOffset) {
+        List<Game.Move> moves = new ArrayList<>();
+
+        for (int index = moveOffset; index < moveCount; index++) {
+            moves.add(
+                new Game.Move(
+                    Game.Move.moveId(TEST_GAME_ID, index),
+                    index % 2 == 0 ? PLAYER_ONE_ID : PLAYER_TWO_ID,
+                    FIXED_INSTANT,
+                    new Game.Coordinate(index, 0)
+                )
+            );
+        }
+
+        return new Game(
+            TEST_GAME_ID,
+            TEST_GAME_NAME,
+            FIXED_INSTANT,
+            PLAYER_ONE_ID,
+            FIXED_INSTANT,
+            PLAYER_ONE_ID,
+            PLAYER_TWO_ID,
+            moves,
+            Optional.empty(),
+            moveOffset
+        );
+    }
+
+    @Test
+    void getGameDeltaShouldOnlyReturnTheMovesSinceTheSequence() throws ResourceNotFoundException, ValidationException {
+        // Arrange
+        Game game = gameWithMoves(10, 4);
+        when(gameDao.findGameById(TEST_GAME_ID)).thenReturn(Optional.of(game));
+
+        // Act
+        GameDelta result = gameService.getGameDelta(TEST_GAME_ID, 8);
+
+        // Assert
+        assertEquals(new GameDelta(TEST_GAME_ID, 10, game.moves().subList(4, 6), Optional.empty()), result);
+        verify(gameDao, never()).findMoves(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void getGameDeltaShouldReadTheMovesWhichTheGameNoLongerHolds() throws ResourceNotFoundException, ValidationException {
+        // Arrange
+        Game game = gameWithMoves(10, 4);
+        List<Game.Move> moves = gameWithMoves(10, 2).moves();
+        when(gameDao.findGameById(TEST_GAME_ID)).thenReturn(Optional.of(game));
+        when(gameDao.findMoves(TEST_GAME_ID, GameService.MAX_MOVES_LIMIT, 2)).thenReturn(Optional.of(moves));
+
+        // Act
+        GameDelta result = gameService.getGameDelta(TEST_GAME_ID, 2);
+
+        // Assert
+        assertEquals(new GameDelta(TEST_GAME_ID, 10, moves, Optional.empty()), result);
+    }
+
+    @Test
+    void getGameDeltaShouldRejectSequencesBeyondTheMoveCount() {
+        // Arrange
+        when(gameDao.findGameById(TEST_GAME_ID)).thenReturn(Optional.of(gameWithMoves(10, 4)));
+
+        // Act & Assert
+        assertThrows(ValidationException.class, () -> gameService.getGameDelta(TEST_GAME_ID, 11));
+        assertThrows(ValidationException.class, () -> gameService.getGameDelta(TEST_GAME_ID, -1));
+    }
 }
@@ -0,0 +1,113 @@
+package com.ruchij.api.service.game;
+
+import com.ruchij.api.dao.game.models.Game;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.ruchij.api.service.game.GameEngineFixtures.*;
+
+class IncrementalGameEngineTest {
+    private static final IncrementalGameEngine gomokuGameEngine = new IncrementalGameEngine(15, 5);
+
+    @Test
+    void testGetWinnerHorizontalFiveInARow() {
+        List<Game.Move> moves = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            moves.add(new Game.Move(moveId(), PLAYER_ONE_ID, Instant.now(), new Game.Coordinate(3 + i, 7)));
+
+            if (i < 4) {
+                moves.add(new Game.Move(moveId(), PLAYER_TWO_ID, Instant.now(), new Game.Coordinate(3 + i, 8)));
+            }
+        }
+
+        Optional<Game.Winner> winner = gomokuGameEngine.getWinner(game(moves));
+
+        Assertions.assertTrue(winner.isPresent());
+        Assertions.assertEquals(PLAYER_ONE_ID, winner.get().playerId());
+        Assertions.assertEquals(Game.WinningRule.Horizontal, winner.get().winningRule());
+        Assertions.assertEquals(
+            List.of(
+                new Game.Coordinate(3, 7),
+                new Game.Coordinate(4, 7),
+                new Game.Coordinate(5, 7),
+                new Game.Coordinate(6, 7),
+                new Game.Coordinate(7, 7)
+            ),
+            winner.get().coordinates()
+        );
+    }
+
+    @Test
+    void testGetWinnerForwardDiagonalCompletedInTheMiddle() {
+        /*
+         X stones at (6, 2), (5, 3), (3, 5), (2, 6) and finally (4, 4) which completes the line
+        */
+        List<Game.Move> moves = new ArrayList<>();
+        List<Game.Coordinate> coordinates = List.of(
+            new Game.Coordinate(6, 2),
+            new Game.Coordinate(5, 3),
+            new Game.Coordinate(3, 5),
+            new Game.Coordinate(2, 6),
+            new Game.Coordinate(4, 4)
+        );
+
+        for (int i = 0; i < coordinates.size(); i++) {
+            moves.add(new Game.Move(moveId(), PLAYER_ONE_ID, Instant.now(), coordinates.get(i)));
+
+            if (i < coordinates.size() - 1) {
+                moves.add(new Game.Move(moveId(), PLAYER_TWO_ID, Instant.now(), new Game.Coordinate(10 + i, 0)));
+            }
+        }
+
+        Optional<Game.Winner> winner = gomokuGameEngine.getWinner(game(moves));
+
+        Assertions.assertTrue(winner.isPresent());
+        Assertions.assertEquals(Game.WinningRule.ForwardDiagonal, winner.get().winningRule());
+        Assertions.assertEquals(
+            List.of(
+                new Game.Coordinate(6, 2),
+                new Game.Coordinate(5, 3),
+                new Game.Coordinate(4, 4),
+                new Game.Coordinate(3, 5),
+                new Game.Coordinate(2, 6)
+            ),
+            winner.get().coordinates()
+        );
+    }
+
+    @Test
+    void testGetWinnerNotContiguous() {
+        List<Game.Move> moves = new ArrayList<>();
+        int[] columns = {0, 1, 2, 4, 5};
+
+        for (int i = 0; i < columns.length; i++) {
+            moves.add(new Game.Move(moveId(), PLAYER_ONE_ID, Instant.now(), new Game.Coordinate(columns[i], 0)));
+
+            if (i < columns.length - 1) {
+                moves.add(new Game.Move(moveId(), PLAYER_TWO_ID, Instant.now(), new Game.Coordinate(columns[i], 1)));
+            }
+        }
+
+        Assertions.assertTrue(gomokuGameEngine.getWinner(game(moves)).isEmpty());
+    }
+
+    @Test
+    void testCustomWinLength() {
+        Assertions.assertDoesNotThrow(() -> new IncrementalGameEngine(15, 5));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new IncrementalGameEngine(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new IncrementalGameEngine(3, 4));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new IncrementalGameEngine(3, 0));
+    }
+
+    @Test
+    void shouldMatchGameEngineImplForRandomGames() {
+        assertMatchesGameEngineImpl(IncrementalGameEngine::new, 6, 7);
+    }
+}
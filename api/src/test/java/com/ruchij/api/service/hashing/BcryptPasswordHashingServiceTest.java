@@ -0,0 +1,102 @@
+package com.ruchij.api.service.hashing;
+
+import com.ruchij.api.exception.ServiceUnavailableException;
+import com.ruchij.api.metrics.MetricsRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BcryptPasswordHashingServiceTest {
+    // The lowest cost bcrypt supports, to keep the tests fast
+    private static final int COST = 4;
+
+    private ThreadPoolExecutor threadPoolExecutor;
+    private MetricsRegistry metricsRegistry;
+    private BcryptPasswordHashingService passwordHashingService;
+
+    @BeforeEach
+    void setUp() {
+        threadPoolExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        metricsRegistry = new MetricsRegistry();
+        passwordHashingService = new BcryptPasswordHashingService(threadPoolExecutor, COST, metricsRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        threadPoolExecutor.shutdownNow();
+    }
+
+    @Test
+    void shouldVerifyHashedPasswords() throws ServiceUnavailableException {
+        // Act
+        String hashedPassword = passwordHashingService.hashPassword("password");
+
+        // Assert
+        assertTrue(passwordHashingService.verifyPassword("password", hashedPassword));
+        assertFalse(passwordHashingService.verifyPassword("other-password", hashedPassword));
+        assertFalse(passwordHashingService.needsRehash(hashedPassword));
+    }
+
+    @Test
+    void shouldOnlyRehashPasswordsHashedWithALowerCost() {
+        // Arrange
+        BcryptPasswordHashingService strongerPasswordHashingService =
+            new BcryptPasswordHashingService(threadPoolExecutor, COST + 1, metricsRegistry);
+        String hashedPassword = BCrypt.hashpw("password", BCrypt.gensalt(COST));
+        String strongerHashedPassword = BCrypt.hashpw("password", BCrypt.gensalt(COST + 1));
+
+        // Act & Assert
+        assertTrue(strongerPasswordHashingService.needsRehash(hashedPassword));
+        assertFalse(passwordHashingService.needsRehash(strongerHashedPassword));
+        assertTrue(passwordHashingService.needsRehash("not-a-bcrypt-hash"));
+    }
+
+    @Test
+    void shouldRejectHashesWhenTheQueueIsFull() throws InterruptedException {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Occupy the only thread and the only queue slot
+        threadPoolExecutor.execute(() -> {
+            started.countDown();
+
+            try {
+                release.await();
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+        threadPoolExecutor.execute(() -> {});
+
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class, () -> passwordHashingService.hashPassword("password"));
+        assertEquals(1L, metricsRegistry.snapshot().get("password-hashing.rejected"));
+
+        release.countDown();
+    }
+
+    @Test
+    void shouldRethrowErrorsOfTheHashingThread() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> passwordHashingService.verifyPassword("password", "not-a-bcrypt-hash")
+        );
+    }
+
+    @Test
+    void shouldCalibrateTheCostToTheLatencyBudget() {
+        assertEquals(COST, BcryptPasswordHashingService.calibrateCost(Duration.ZERO, COST));
+        assertTrue(BcryptPasswordHashingService.calibrateCost(Duration.ofMillis(100), COST) > COST);
+    }
+}
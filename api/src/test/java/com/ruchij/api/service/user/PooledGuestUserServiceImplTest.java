@@ -0,0 +1,124 @@
+package com.ruchij.api.service.user;
+
+import com.ruchij.api.dao.user.models.User;
+import com.ruchij.api.exception.ResourceConflictException;
+import com.ruchij.api.exception.ServiceUnavailableException;
+import com.ruchij.api.metrics.MetricsRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class PooledGuestUserServiceImplTest {
+    private static final Instant TIMESTAMP = Instant.parse("2023-01-01T12:00:00Z");
+    private static final int LOW_WATERMARK = 2;
+    private static final int HIGH_WATERMARK = 5;
+
+    private UserService userService;
+    private List<Runnable> tasks;
+    private MetricsRegistry metricsRegistry;
+    private PooledGuestUserServiceImpl pooledGuestUserService;
+
+    @BeforeEach
+    void setUp() throws ResourceConflictException, ServiceUnavailableException {
+        userService = mock(UserService.class);
+        tasks = new ArrayList<>();
+        metricsRegistry = new MetricsRegistry();
+
+        AtomicInteger guestCount = new AtomicInteger();
+        when(userService.registerUser()).thenAnswer(invocation -> {
+            int guestId = guestCount.incrementAndGet();
+            return new User("guest-" + guestId, "username-" + guestId, Optional.empty(), TIMESTAMP);
+        });
+
+        pooledGuestUserService =
+            new PooledGuestUserServiceImpl(userService, LOW_WATERMARK, HIGH_WATERMARK, tasks::add, metricsRegistry);
+    }
+
+    private void runTasks() {
+        List<Runnable> pendingTasks = new ArrayList<>(tasks);
+        tasks.clear();
+        pendingTasks.forEach(Runnable::run);
+    }
+
+    @Test
+    void shouldRefillThePoolUpToTheHighWatermark() {
+        // Act
+        pooledGuestUserService.refillIfLow();
+
+        // Assert
+        assertEquals(HIGH_WATERMARK, pooledGuestUserService.size());
+        assertEquals(HIGH_WATERMARK, metricsRegistry.snapshot().get("guest-pool.size"));
+        assertEquals((long) HIGH_WATERMARK, metricsRegistry.snapshot().get("guest-pool.provisioned"));
+    }
+
+    @Test
+    void shouldHandOutPooledGuests() throws Exception {
+        // Arrange
+        pooledGuestUserService.refillIfLow();
+
+        // Act
+        User first = pooledGuestUserService.registerUser();
+        User second = pooledGuestUserService.registerUser();
+
+        // Assert
+        assertEquals("guest-1", first.id());
+        assertEquals("guest-2", second.id());
+        assertEquals(2L, metricsRegistry.snapshot().get("guest-pool.claimed"));
+        verify(userService, times(HIGH_WATERMARK)).registerUser();
+    }
+
+    @Test
+    void shouldOnlyRefillOnceThePoolDropsBelowTheLowWatermark() throws Exception {
+        // Arrange
+        pooledGuestUserService.refillIfLow();
+
+        // Act
+        for (int i = 0; i < HIGH_WATERMARK - LOW_WATERMARK; i++) {
+            pooledGuestUserService.registerUser();
+        }
+
+        runTasks();
+
+        // Assert
+        assertEquals(LOW_WATERMARK, pooledGuestUserService.size());
+
+        pooledGuestUserService.registerUser();
+        runTasks();
+
+        assertEquals(HIGH_WATERMARK, pooledGuestUserService.size());
+    }
+
+    @Test
+    void shouldRegisterGuestsInlineWhenThePoolIsEmpty() throws Exception {
+        // Act
+        User user = pooledGuestUserService.registerUser();
+
+        // Assert
+        assertEquals("guest-1", user.id());
+        assertEquals(1L, metricsRegistry.snapshot().get("guest-pool.misses"));
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    void shouldKeepTheRegisteredGuestsWhenARefillFails() throws Exception {
+        // Arrange
+        when(userService.registerUser())
+            .thenReturn(new User("guest-1", "username-1", Optional.empty(), TIMESTAMP))
+            .thenThrow(new ServiceUnavailableException("Overloaded"));
+
+        // Act
+        pooledGuestUserService.refillIfLow();
+
+        // Assert
+        assertEquals(1, pooledGuestUserService.size());
+        assertEquals("guest-1", pooledGuestUserService.registerUser().id());
+    }
+}
@@ -1,8 +1,22 @@
 package com.ruchij.api.service.user;
 
 import com.github.javafaker.Faker;
+import com.ruchij.api.dao.user.UserDao;
+import com.ruchij.api.service.random.RandomGeneratorImpl;
+import com.ruchij.api.utils.BloomFilter;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
 class RandomGeneratorImplTest {
     @Test
     void testNames() {
@@ -13,4 +27,42 @@ class RandomGeneratorImplTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldDisambiguateUsernamesOfExistingUsers() {
+        // Arrange
+        String takenUsername = RandomGeneratorImpl.create(mock(UserDao.class), new Faker(new Random(0))).username();
+
+        UserDao userDao = mock(UserDao.class);
+        when(userDao.count()).thenReturn(1L);
+        doAnswer(invocation -> {
+            invocation.<Consumer<String>>getArgument(0).accept(takenUsername);
+            return null;
+        }).when(userDao).forEachUsername(any());
+
+        // The same seed generates the same color and animal
+        RandomGeneratorImpl randomGenerator = RandomGeneratorImpl.create(userDao, new Faker(new Random(0)));
+
+        // Act
+        String username = randomGenerator.username();
+
+        // Assert
+        assertNotEquals(takenUsername, username);
+        assertTrue(username.startsWith(takenUsername + "."), username);
+    }
+
+    @Test
+    void shouldGenerateUniqueUsernamesWhenMostNamesAreTaken() {
+        // Arrange
+        int userCount = 50_000;
+        RandomGeneratorImpl randomGenerator = new RandomGeneratorImpl(Faker.instance(), new BloomFilter(2 * userCount, 0.01));
+        Set<String> usernames = new HashSet<>();
+
+        // Act
+        for (int i = 0; i < userCount; i++) {
+            usernames.add(randomGenerator.username());
+        }
+
+        // Assert
+        assertEquals(userCount, usernames.size());
+    }
+}
@@ -5,6 +5,8 @@ import com.ruchij.api.dao.user.models.User;
 import com.ruchij.api.dao.user.models.UserCredentials;
 import com.ruchij.api.exception.ResourceConflictException;
 import com.ruchij.api.exception.ResourceNotFoundException;
+import com.ruchij.api.exception.ServiceUnavailableException;
+import com.ruchij.api.exception.ValidationException;
 import com.ruchij.api.service.hashing.PasswordHashingService;
 import com.ruchij.api.service.random.RandomGenerator;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,8 +16,11 @@ import org.mockito.ArgumentCaptor;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -37,7 +42,7 @@ class UserServiceImplTest {
     private UserServiceImpl userService;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws ServiceUnavailableException {
         userDao = mock(UserDao.class);
         passwordHashingService = mock(PasswordHashingService.class);
         randomGenerator = mock(RandomGenerator.class);
@@ -55,14 +60,14 @@ class UserServiceImplTest {
     }
 
     @Test
-    void registerUserWithoutParametersShouldCreateUserWithRandomCredentials() throws ResourceConflictException {
+    void registerUserWithoutParametersShouldCreateUserWithRandomCredentials()
+        throws ResourceConflictException, ServiceUnavailableException {
         // Arrange
         String randomUsername = "random_username";
         String randomPassword = "random_password";
 
         when(randomGenerator.username()).thenReturn(randomUsername);
         when(randomGenerator.password()).thenReturn(randomPassword);
-        when(userDao.findByUsername(randomUsername)).thenReturn(Optional.empty());
 
         // Act
         User result = userService.registerUser();
@@ -77,7 +82,7 @@ class UserServiceImplTest {
         verify(randomGenerator).username();
         verify(randomGenerator).password();
         verify(randomGenerator).uuid();
-        verify(userDao).findByUsername(randomUsername);
+        verify(userDao, never()).findByUsername(anyString());
         verify(passwordHashingService).hashPassword(randomPassword);
 
         // Verify user and credentials were inserted
@@ -100,7 +105,40 @@ class UserServiceImplTest {
     }
 
     @Test
-    void registerUserWithParametersShouldCreateUserWithProvidedCredentials() throws ResourceConflictException {
+    void registerUserWithoutParametersShouldRetryOnceWhenTheUsernameIsTaken()
+        throws ResourceConflictException, ServiceUnavailableException {
+        // Arrange
+        when(randomGenerator.username()).thenReturn("taken_username", "free_username");
+        when(randomGenerator.password()).thenReturn("random_password");
+        when(userDao.insert(any(User.class)))
+            .thenThrow(new ResourceConflictException("username=taken_username already exists"))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        User result = userService.registerUser();
+
+        // Assert
+        assertEquals("free_username", result.username());
+        verify(passwordHashingService, times(1)).hashPassword("random_password");
+        verify(userDao, times(1)).insert(any(UserCredentials.class));
+    }
+
+    @Test
+    void registerUserWithoutParametersShouldFailWhenTheRetriedUsernameIsTaken() throws ResourceConflictException {
+        // Arrange
+        when(randomGenerator.username()).thenReturn("taken_username", "other_taken_username");
+        when(randomGenerator.password()).thenReturn("random_password");
+        when(userDao.insert(any(User.class))).thenThrow(new ResourceConflictException("username already exists"));
+
+        // Act & Assert
+        assertThrows(ResourceConflictException.class, () -> userService.registerUser());
+        verify(randomGenerator, times(2)).username();
+        verify(userDao, never()).insert(any(UserCredentials.class));
+    }
+
+    @Test
+    void registerUserWithParametersShouldCreateUserWithProvidedCredentials()
+        throws ResourceConflictException, ServiceUnavailableException {
         // Arrange
         when(userDao.findByUsername(TEST_USERNAME)).thenReturn(Optional.empty());
         when(userDao.findByEmail(TEST_EMAIL)).thenReturn(Optional.empty());
@@ -140,7 +178,7 @@ class UserServiceImplTest {
     }
 
     @Test
-    void registerUserShouldThrowExceptionWhenUsernameAlreadyExists() {
+    void registerUserShouldThrowExceptionWhenUsernameAlreadyExists() throws ResourceConflictException {
         // Arrange
         User existingUser = new User(
             "existing-id",
@@ -165,7 +203,7 @@ class UserServiceImplTest {
     }
 
     @Test
-    void registerUserShouldThrowExceptionWhenEmailAlreadyExists() {
+    void registerUserShouldThrowExceptionWhenEmailAlreadyExists() throws ResourceConflictException {
         // Arrange
         User existingUser = new User(
             "existing-id",
@@ -231,4 +269,69 @@ class UserServiceImplTest {
         // Verify interactions
         verify(userDao).findById(TEST_USER_ID);
     }
+
+    @Test
+    void searchUsersShouldCapTheLimit() throws ValidationException {
+        // Arrange
+        User user = new User(TEST_USER_ID, TEST_USERNAME, Optional.empty(), FIXED_INSTANT);
+        when(userDao.searchByUsername("test", UserService.MAX_SEARCH_LIMIT)).thenReturn(List.of(user));
+
+        // Act
+        List<User> result = userService.searchUsers("test", 1_000);
+
+        // Assert
+        assertEquals(List.of(user), result);
+    }
+
+    @Test
+    void searchUsersShouldRejectBlankPrefixesAndInvalidLimits() {
+        assertThrows(ValidationException.class, () -> userService.searchUsers(" ", 10));
+        assertThrows(ValidationException.class, () -> userService.searchUsers("test", 0));
+
+        verifyNoInteractions(userDao);
+    }
+
+    @Test
+    void getUsernamesShouldResolveUncachedUsersInASingleLookup() throws ValidationException {
+        // Arrange
+        User user1 = new User("user-1", "username-1", Optional.empty(), FIXED_INSTANT);
+        User user2 = new User("user-2", "username-2", Optional.empty(), FIXED_INSTANT);
+        when(userDao.findByIds(List.of("user-2", "user-1", "unknown"))).thenReturn(List.of(user1, user2));
+        when(userDao.findByIds(List.of("unknown"))).thenReturn(List.of());
+
+        // Act
+        Map<String, String> first = userService.getUsernames(List.of("user-2", "user-1", "unknown", "user-2"));
+        Map<String, String> second = userService.getUsernames(List.of("user-1", "unknown", "user-2"));
+
+        // Assert
+        assertEquals(List.of("user-2", "user-1"), List.copyOf(first.keySet()));
+        assertEquals(Map.of("user-1", "username-1", "user-2", "username-2"), first);
+        assertEquals(first, second);
+        verify(userDao).findByIds(List.of("user-2", "user-1", "unknown"));
+        verify(userDao).findByIds(List.of("unknown"));
+    }
+
+    @Test
+    void getUsernamesShouldNotLookUpRegisteredUsers() throws Exception {
+        // Arrange
+        when(userDao.findByUsername(TEST_USERNAME)).thenReturn(Optional.empty());
+        when(userDao.findByEmail(TEST_EMAIL)).thenReturn(Optional.empty());
+        User user = userService.registerUser(TEST_USERNAME, TEST_PASSWORD, TEST_EMAIL);
+
+        // Act
+        Map<String, String> usernames = userService.getUsernames(List.of(user.id()));
+
+        // Assert
+        assertEquals(Map.of(user.id(), TEST_USERNAME), usernames);
+        verify(userDao, never()).findByIds(anyList());
+    }
+
+    @Test
+    void getUsernamesShouldRejectTooManyUserIds() {
+        // Arrange
+        List<String> userIds = IntStream.rangeClosed(0, UserService.MAX_USERNAMES).mapToObj("user-%s"::formatted).toList();
+
+        // Act & Assert
+        assertThrows(ValidationException.class, () -> userService.getUsernames(userIds));
+    }
 }
@@ -0,0 +1,60 @@
+package com.ruchij.api.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+    @Test
+    void shouldContainEveryValueWhichWasAdded() {
+        // Arrange
+        BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            bloomFilter.put("value-" + i);
+        }
+
+        // Assert
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(bloomFilter.mightContain("value-" + i));
+        }
+    }
+
+    @Test
+    void shouldKeepFalsePositivesCloseToTheConfiguredProbability() {
+        // Arrange
+        BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+
+        for (int i = 0; i < 10_000; i++) {
+            bloomFilter.put(UUID.randomUUID().toString());
+        }
+
+        // Act
+        int falsePositives = 0;
+
+        for (int i = 0; i < 100_000; i++) {
+            if (bloomFilter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        assertTrue(falsePositives < 2_000, "falsePositives=%s".formatted(falsePositives));
+    }
+
+    @Test
+    void shouldNotContainValuesWhenEmpty() {
+        assertFalse(new BloomFilter(100, 0.01).mightContain("value"));
+    }
+
+    @Test
+    void shouldRejectInvalidSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1));
+    }
+}
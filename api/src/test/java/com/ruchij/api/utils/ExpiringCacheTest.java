@@ -0,0 +1,86 @@
+package com.ruchij.api.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExpiringCacheTest {
+    private static final Instant TIMESTAMP = Instant.parse("2023-01-01T12:00:00Z");
+
+    private Clock clock;
+    private ExpiringCache<String, String> expiringCache;
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(TIMESTAMP);
+
+        expiringCache = new ExpiringCache<>(2, clock);
+    }
+
+    @Test
+    void shouldReturnValuesUntilTheyExpire() {
+        // Arrange
+        expiringCache.put("key", "value", TIMESTAMP.plusSeconds(10));
+
+        // Act & Assert
+        assertEquals(Optional.of("value"), expiringCache.get("key"));
+
+        when(clock.instant()).thenReturn(TIMESTAMP.plusSeconds(10));
+
+        assertEquals(Optional.empty(), expiringCache.get("key"));
+        assertEquals(0, expiringCache.size());
+    }
+
+    @Test
+    void shouldNotCacheValuesWhichHaveAlreadyExpired() {
+        // Act
+        expiringCache.put("key", "value", TIMESTAMP);
+
+        // Assert
+        assertEquals(Optional.empty(), expiringCache.get("key"));
+        assertEquals(0, expiringCache.size());
+    }
+
+    @Test
+    void shouldEvictTheLeastRecentlyUsedEntryWhenFull() {
+        // Arrange
+        expiringCache.put("first", "1", TIMESTAMP.plusSeconds(10));
+        expiringCache.put("second", "2", TIMESTAMP.plusSeconds(10));
+        expiringCache.get("first");
+
+        // Act
+        expiringCache.put("third", "3", TIMESTAMP.plusSeconds(10));
+
+        // Assert
+        assertEquals(2, expiringCache.size());
+        assertEquals(Optional.of("1"), expiringCache.get("first"));
+        assertEquals(Optional.empty(), expiringCache.get("second"));
+        assertEquals(Optional.of("3"), expiringCache.get("third"));
+    }
+
+    @Test
+    void shouldRemoveInvalidatedValues() {
+        // Arrange
+        expiringCache.put("key", "value", TIMESTAMP.plusSeconds(10));
+
+        // Act
+        expiringCache.invalidate("key");
+
+        // Assert
+        assertEquals(Optional.empty(), expiringCache.get("key"));
+    }
+
+    @Test
+    void shouldRejectEmptyCaches() {
+        assertThrows(IllegalArgumentException.class, () -> new ExpiringCache<String, String>(0, clock));
+    }
+}
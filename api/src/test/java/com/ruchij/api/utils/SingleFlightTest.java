@@ -0,0 +1,143 @@
+package com.ruchij.api.utils;
+
+import com.ruchij.api.metrics.MetricsRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+    private MetricsRegistry metricsRegistry;
+    private SingleFlight<String, String> singleFlight;
+    private ExecutorService executorService;
+
+    @BeforeEach
+    void setUp() {
+        metricsRegistry = new MetricsRegistry();
+        singleFlight = new SingleFlight<>("reads", metricsRegistry);
+        executorService = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    private void awaitCount(String counter, long count) throws InterruptedException {
+        while (metricsRegistry.snapshot().get(counter).longValue() < count) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void shouldShareTheCallInFlightBetweenConcurrentCallers() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        Future<String> leader = executorService.submit(() ->
+            singleFlight.execute("key", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                awaitQuietly(release);
+                return "value";
+            })
+        );
+        started.await();
+
+        // Act
+        Future<String> follower = executorService.submit(() -> singleFlight.execute("key", () -> "other-value"));
+        awaitCount("reads.coalesced", 1);
+        release.countDown();
+
+        // Assert
+        assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("value", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(1L, metricsRegistry.snapshot().get("reads.coalesced"));
+        assertEquals(0.5, metricsRegistry.snapshot().get("reads.coalescing-ratio"));
+        assertEquals(0, metricsRegistry.snapshot().get("reads.in-flight"));
+    }
+
+    @Test
+    void shouldShareTheExceptionOfTheCallInFlight() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executorService.submit(() ->
+            singleFlight.execute("key", () -> {
+                started.countDown();
+                awaitQuietly(release);
+                throw new IllegalStateException("Unavailable");
+            })
+        );
+        started.await();
+
+        // Act
+        Future<Exception> follower = executorService.submit(() ->
+            assertThrows(IllegalStateException.class, () -> singleFlight.execute("key", () -> "value"))
+        );
+        awaitCount("reads.coalesced", 1);
+        release.countDown();
+
+        // Assert
+        assertEquals("Unavailable", follower.get(5, TimeUnit.SECONDS).getMessage());
+        assertEquals(IllegalStateException.class, assertThrows(Exception.class, leader::get).getCause().getClass());
+    }
+
+    @Test
+    void shouldNotShareTheCallInFlightOnceTheKeyIsForgotten() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executorService.submit(() ->
+            singleFlight.execute("key", () -> {
+                started.countDown();
+                awaitQuietly(release);
+                return "stale-value";
+            })
+        );
+        started.await();
+
+        // Act
+        singleFlight.forget("key");
+        String value = singleFlight.execute("key", () -> "value");
+        release.countDown();
+
+        // Assert
+        assertEquals("value", value);
+        assertEquals("stale-value", leader.get(5, TimeUnit.SECONDS));
+        assertEquals(0L, metricsRegistry.snapshot().get("reads.coalesced"));
+    }
+
+    @Test
+    void shouldCallAgainOnceTheCallInFlightIsDone() {
+        // Act
+        singleFlight.execute("key", () -> "first");
+        String value = singleFlight.execute("key", () -> "second");
+
+        // Assert
+        assertEquals("second", value);
+        assertEquals(0.0, metricsRegistry.snapshot().get("reads.coalescing-ratio"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException interruptedException) {
+            throw new IllegalStateException(interruptedException);
+        }
+    }
+}
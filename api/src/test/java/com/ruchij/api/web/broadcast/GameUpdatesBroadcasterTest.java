@@ -0,0 +1,336 @@
+package com.ruchij.api.web.broadcast;
+
+import com.ruchij.api.config.BroadcastConfiguration;
+import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.exception.ResourceNotFoundException;
+import com.ruchij.api.metrics.MetricsRegistry;
+import com.ruchij.api.service.game.GameService;
+import com.ruchij.api.utils.JsonUtils;
+import com.ruchij.api.utils.ThrowableConsumer;
+import com.ruchij.api.web.responses.GameResponse;
+import com.ruchij.api.web.responses.PingResponse;
+import com.ruchij.api.web.responses.SseEvent;
+import com.ruchij.api.web.responses.WebSocketResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GameUpdatesBroadcasterTest {
+    private static final String GAME_ID = "game-id";
+    private static final String REGISTRATION_ID = "registration-id";
+    private static final Instant TIMESTAMP = Instant.parse("2023-01-01T12:00:00Z");
+
+    private GameService gameService;
+    private MetricsRegistry metricsRegistry;
+    private List<Runnable> tasks;
+    private ExecutorService executorService;
+    private ArgumentCaptor<ThrowableConsumer<Game.Move, IOException>> moveUpdatesCaptor;
+    private ArgumentCaptor<ThrowableConsumer<Game.Winner, IOException>> winnerUpdatesCaptor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws ResourceNotFoundException {
+        gameService = mock(GameService.class);
+        metricsRegistry = new MetricsRegistry();
+        tasks = new ArrayList<>();
+        executorService = mock(ExecutorService.class);
+        moveUpdatesCaptor = ArgumentCaptor.forClass(ThrowableConsumer.class);
+        winnerUpdatesCaptor = ArgumentCaptor.forClass(ThrowableConsumer.class);
+
+        doAnswer(invocation -> tasks.add(invocation.getArgument(0))).when(executorService).execute(any(Runnable.class));
+
+        when(gameService.registerForUpdates(eq(GAME_ID), moveUpdatesCaptor.capture(), winnerUpdatesCaptor.capture()))
+            .thenReturn(REGISTRATION_ID);
+    }
+
+    private GameUpdatesBroadcaster broadcaster(BroadcastConfiguration.OverflowPolicy overflowPolicy) {
+        return new GameUpdatesBroadcaster(
+            gameService,
+            JsonUtils.objectMapper,
+            executorService,
+            new BroadcastConfiguration(2, overflowPolicy, Duration.ofSeconds(10)),
+            metricsRegistry
+        );
+    }
+
+    private Game.Move move(int x) {
+        return new Game.Move("move-" + x, "player-id", TIMESTAMP, new Game.Coordinate(x, 0));
+    }
+
+    private void runTasks() {
+        List<Runnable> pendingTasks = new ArrayList<>(tasks);
+        tasks.clear();
+        pendingTasks.forEach(Runnable::run);
+    }
+
+    @Test
+    void shouldRegisterEachGameWithTheGameServiceOnce() throws ResourceNotFoundException {
+        // Arrange
+        GameUpdatesBroadcaster gameUpdatesBroadcaster = broadcaster(BroadcastConfiguration.OverflowPolicy.Coalesce);
+
+        // Act
+        GameSubscription first = gameUpdatesBroadcaster.subscribe(GAME_ID, gameUpdateFrame -> {}, () -> {});
+        GameSubscription second = gameUpdatesBroadcaster.subscribe(GAME_ID, gameUpdateFrame -> {}, () -> {});
+
+        // Assert
+        assertNotEquals(first.id(), second.id());
+        assertEquals(2, gameUpdatesBroadcaster.subscriberCount(GAME_ID));
+        assertEquals(2, metricsRegistry.snapshot().get("broadcast.subscribers"));
+        verify(gameService, times(1)).registerForUpdates(eq(GAME_ID), any(), any());
+    }
+
+    @Test
+    void shouldSendTheSameSerializedFrameToEverySubscriber() throws Exception {
+        // Arrange
+        GameUpdatesBroadcaster gameUpdatesBroadcaster = broadcaster(BroadcastConfiguration.OverflowPolicy.Coalesce);
+        List<GameUpdateFrame> firstFrames = new ArrayList<>();
+        List<GameUpdateFrame> secondFrames = new ArrayList<>();
+
+        gameUpdatesBroadcaster.subscribe(GAME_ID, firstFrames::add, () -> {});
+        gameUpdatesBroadcaster.subscribe(GAME_ID, secondFrames::add, () -> {});
+
+        Game.Move move = move(1);
+
+        // Act
+        moveUpdatesCaptor.getValue().accept(move);
+        runTasks();
+
+        // Assert
+        assertEquals(1, firstFrames.size());
+        assertSame(firstFrames.getFirst(), secondFrames.getFirst());
+
+        GameUpdateFrame gameUpdateFrame = firstFrames.getFirst();
+        assertEquals("MOVE_UPDATE", gameUpdateFrame.sseEvent());
+        assertEquals(JsonUtils.objectMapper.writeValueAsString(move), gameUpdateFrame.sseData());
+        assertEquals(
+            JsonUtils.objectMapper.writeValueAsString(new WebSocketResponse<>(WebSocketResponse.Type.MOVE_UPDATE, move)),
+            gameUpdateFrame.webSocketMessage()
+        );
+    }
+
+    @Test
+    void shouldSendWinnerFrames() throws Exception {
+        // Arrange
+        GameUpdatesBroadcaster gameUpdatesBroadcaster = broadcaster(BroadcastConfiguration.OverflowPolicy.Coalesce);
+        List<GameUpdateFrame> frames = new ArrayList<>();
+        gameUpdatesBroadcaster.subscribe(GAME_ID, frames::add, () -> {});
+
+        Game.Winner winner = new Game.Winner("player-id", Game.WinningRule.Vertical, List.of(new Game.Coordinate(0, 0)));
+
+        // Act
+        winnerUpdatesCaptor.getValue().accept(winner);
+        runTasks();
+
+        // Assert
+        assertEquals(
+            JsonUtils.objectMapper.writeValueAsString(new WebSocketResponse<>(WebSocketResponse.Type.WINNER, winner)),
+            frames.getFirst().webSocketMessage()
+        );
+    }
+
+    @Test
+    void shouldSendQueuedFramesInOrderFromASingleTask() throws Exception {
+        // Arrange
+        GameUpdatesBroadcaster gameUpdatesBroadcaster = broadcaster(BroadcastConfiguration.OverflowPolicy.Coalesce);
+        List<GameUpdateFrame> frames = new ArrayList<>();
+        gameUpdatesBroadcaster.subscribe(GAME_ID, frames::add, () -> {});
+
+        // Act
+        moveUpdatesCaptor.getValue().accept(move(1));
+        moveUpdatesCaptor.getValue().accept(move(2));
+
+        // Assert
+        assertEquals(1, tasks.size());
+        assertEquals(2L, metricsRegistry.snapshot().get("broadcast.queue.depth"));
+        assertEquals(2, metricsRegistry.snapshot().get("broadcast.queue.max-depth"));
+
+        runTasks();
+
+        assertEquals(
+            List.of(
+                JsonUtils.objectMapper.writeValueAsString(move(1)),
+                JsonUtils.objectMapper.writeValueAsString(move(2))
+            ),
+            frames.stream().map(GameUpdateFrame::sseData).toList()
+        );
+        assertEquals(0L, metricsRegistry.snapshot().get("broadcast.queue.depth"));
+    }
+
+    @Test
+    void shouldDisconnectSubscribersWhichFail() throws Exception {
+        // Arrange
+        GameUpdatesBroadcaster gameUpdatesBroadcaster = broadcaster(BroadcastConfiguration.OverflowPolicy.Coalesce);
+        List<GameUpdateFrame> frames = new ArrayList<>();
+        AtomicInteger disconnects = new AtomicInteger();
+
+        GameSubscription failingSubscription = gameUpdatesBroadcaster.subscribe(
+            GAME_ID,
+            gameUpdateFrame -> {
+                throw new IOException("Connection closed");
+            },
+            disconnects::incrementAndGet
+        );
+        gameUpdatesBroadcaster.subscribe(GAME_ID, frames::add, () -> {});
+
+        // Act
+        moveUpdatesCaptor.getValue().accept(move(1));
+        runTasks();
+
+        // Assert
+        assertEquals(1, frames.size());
+        assertEquals(1, disconnects.get());
+        assertEquals(1, gameUpdatesBroadcaster.subscriberCount(GAME_ID));
+        assertFalse(failingSubscription.offer(frames.getFirst()));
+        verify(gameService, never()).unregisterForUpdates(any());
+    }
+
+    @Test
+    void shouldDisconnectSlowSubscribersWithDisconnectPolicy() throws Exception {
+        // Arrange
+        GameUpdatesBroadcaster gameUpdatesBroadcaster = broadcaster(BroadcastConfiguration.OverflowPolicy.Disconnect);
+        AtomicInteger disconnects = new AtomicInteger();
+        gameUpdatesBroadcaster.subscribe(GAME_ID, gameUpdateFrame -> {}, disconnects::incrementAndGet);
+
+        // Act
+        moveUpdatesCaptor.getValue().accept(move(1));
+        moveUpdatesCaptor.getValue().accept(move(2));
+        moveUpdatesCaptor.getValue().accept(move(3));
+
+        // The connection is not closed on the thread which applied the move
+        assertEquals(0, disconnects.get());
+        runTasks();
+
+        // Assert
+        assertEquals(1, disconnects.get());
+        assertEquals(0, gameUpdatesBroadcaster.subscriberCount(GAME_ID));
+        assertEquals(0L, metricsRegistry.snapshot().get("broadcast.queue.depth"));
+        assertEquals(1L, metricsRegistry.snapshot().get("broadcast.subscribers.disconnected"));
+        verify(gameService).unregisterForUpdates(REGISTRATION_ID);
+    }
+
+    @Test
+    void shouldDropPingsBeforeGameUpdatesWithDropPingsPolicy() throws Exception {
+        // Arrange
+        GameUpdatesBroadcaster gameUpdatesBroadcaster = broadcaster(BroadcastConfiguration.OverflowPolicy.DropPings);
+        List<GameUpdateFrame> frames = new ArrayList<>();
+        AtomicInteger disconnects = new AtomicInteger();
+        GameSubscription gameSubscription =
+            gameUpdatesBroadcaster.subscribe(GAME_ID, frames::add, disconnects::incrementAndGet);
+
+        GameUpdateFrame pingFrame = gameUpdatesBroadcaster.frame(
+            SseEvent.PING,
+            WebSocketResponse.Type.PING,
+            new PingResponse("user-id", "username", TIMESTAMP)
+        );
+
+        // Act
+        assertTrue(gameSubscription.offer(pingFrame));
+        moveUpdatesCaptor.getValue().accept(move(1));
+
+        // The queue is full, so the new ping is dropped and the next move replaces the queued ping
+        assertTrue(gameSubscription.offer(pingFrame));
+        moveUpdatesCaptor.getValue().accept(move(2));
+
+        assertEquals(0, disconnects.get());
+        assertEquals(2L, metricsRegistry.snapshot().get("broadcast.frames.dropped"));
+
+        // Only game updates are queued, so the subscriber can no longer keep up
+        moveUpdatesCaptor.getValue().accept(move(3));
+
+        runTasks();
+
+        // Assert
+        assertEquals(1, disconnects.get());
+        assertTrue(frames.isEmpty());
+    }
+
+    @Test
+    void shouldCoalesceGameUpdatesIntoTheLatestGameStateWithCoalescePolicy() throws Exception {
+        // Arrange
+        GameUpdatesBroadcaster gameUpdatesBroadcaster = broadcaster(BroadcastConfiguration.OverflowPolicy.Coalesce);
+        List<GameUpdateFrame> frames = new ArrayList<>();
+        AtomicInteger disconnects = new AtomicInteger();
+        gameUpdatesBroadcaster.subscribe(GAME_ID, frames::add, disconnects::incrementAndGet);
+
+        Game game = new Game(
+            GAME_ID,
+            "Test Game",
+            TIMESTAMP,
+            "player-id",
+            TIMESTAMP,
+            "player-id",
+            "other-player-id",
+            List.of(move(1), move(2), move(3), move(4)),
+            Optional.empty()
+        );
+
+        when(gameService.getGameById(GAME_ID)).thenReturn(game);
+
+        // Act
+        for (int x = 1; x <= 4; x++) {
+            moveUpdatesCaptor.getValue().accept(move(x));
+        }
+
+        runTasks();
+
+        // Assert
+        assertEquals(0, disconnects.get());
+        assertEquals(1, frames.size());
+        assertEquals(WebSocketResponse.Type.GAME_STATE, frames.getFirst().type());
+        assertEquals("GAME_STATE", frames.getFirst().sseEvent());
+        assertEquals(JsonUtils.objectMapper.writeValueAsString(GameResponse.of(game)), frames.getFirst().sseData());
+        assertEquals(4L, metricsRegistry.snapshot().get("broadcast.frames.coalesced"));
+        verify(gameService, times(1)).getGameById(GAME_ID);
+    }
+
+    @Test
+    void shouldUnregisterTheGameWhenTheLastSubscriberLeaves() throws ResourceNotFoundException {
+        // Arrange
+        GameUpdatesBroadcaster gameUpdatesBroadcaster = broadcaster(BroadcastConfiguration.OverflowPolicy.Coalesce);
+        GameSubscription first = gameUpdatesBroadcaster.subscribe(GAME_ID, gameUpdateFrame -> {}, () -> {});
+        GameSubscription second = gameUpdatesBroadcaster.subscribe(GAME_ID, gameUpdateFrame -> {}, () -> {});
+
+        // Act
+        gameUpdatesBroadcaster.unsubscribe(first);
+        verify(gameService, never()).unregisterForUpdates(any());
+
+        gameUpdatesBroadcaster.unsubscribe(second);
+        gameUpdatesBroadcaster.unsubscribe(second);
+
+        // Assert
+        verify(gameService, times(1)).unregisterForUpdates(REGISTRATION_ID);
+        assertEquals(0, gameUpdatesBroadcaster.subscriberCount(GAME_ID));
+
+        gameUpdatesBroadcaster.subscribe(GAME_ID, gameUpdateFrame -> {}, () -> {});
+        verify(gameService, times(2)).registerForUpdates(eq(GAME_ID), any(), any());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenGameNotFound() throws ResourceNotFoundException {
+        // Arrange
+        GameUpdatesBroadcaster gameUpdatesBroadcaster = broadcaster(BroadcastConfiguration.OverflowPolicy.Coalesce);
+
+        when(gameService.registerForUpdates(eq("missing-game-id"), any(), any()))
+            .thenThrow(new ResourceNotFoundException("Game with gameId=missing-game-id not found"));
+
+        // Act & Assert
+        assertThrows(
+            ResourceNotFoundException.class,
+            () -> gameUpdatesBroadcaster.subscribe("missing-game-id", gameUpdateFrame -> {}, () -> {})
+        );
+        assertEquals(0, gameUpdatesBroadcaster.subscriberCount("missing-game-id"));
+    }
+}
@@ -0,0 +1,183 @@
+package com.ruchij.api.web.broadcast;
+
+import com.ruchij.api.config.BroadcastConfiguration;
+import com.ruchij.api.dao.user.models.User;
+import com.ruchij.api.exception.ResourceNotFoundException;
+import com.ruchij.api.metrics.MetricsRegistry;
+import com.ruchij.api.service.game.GameService;
+import com.ruchij.api.utils.JsonUtils;
+import com.ruchij.api.web.responses.PingResponse;
+import com.ruchij.api.web.responses.WebSocketResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class HeartbeatServiceTest {
+    private static final String GAME_ID = "game-id";
+    private static final int TICKS_PER_WHEEL = 10;
+    private static final Instant TIMESTAMP = Instant.parse("2023-01-01T12:00:00Z");
+    private static final User USER = new User("user-id", "user \"name\"", Optional.empty(), TIMESTAMP);
+
+    private Clock clock;
+    private MetricsRegistry metricsRegistry;
+    private GameUpdatesBroadcaster gameUpdatesBroadcaster;
+    private HeartbeatService heartbeatService;
+
+    @BeforeEach
+    void setUp() throws ResourceNotFoundException {
+        GameService gameService = mock(GameService.class);
+        when(gameService.registerForUpdates(anyString(), any(), any())).thenReturn("registration-id");
+
+        // Frames are sent on the thread which queues them
+        ExecutorService executorService = mock(ExecutorService.class, withSettings().stubOnly());
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executorService).execute(any(Runnable.class));
+
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(TIMESTAMP);
+
+        metricsRegistry = new MetricsRegistry();
+
+        gameUpdatesBroadcaster = new GameUpdatesBroadcaster(
+            gameService,
+            JsonUtils.objectMapper,
+            executorService,
+            new BroadcastConfiguration(4, BroadcastConfiguration.OverflowPolicy.Coalesce, Duration.ofSeconds(10)),
+            metricsRegistry
+        );
+
+        heartbeatService = new HeartbeatService(TICKS_PER_WHEEL, JsonUtils.objectMapper, clock, metricsRegistry);
+    }
+
+    private void revolve() {
+        for (int i = 0; i < TICKS_PER_WHEEL; i++) {
+            heartbeatService.tick();
+        }
+    }
+
+    @Test
+    void shouldPingStraightAwayWithTheSamePayloadAsPingResponse() throws Exception {
+        // Arrange
+        List<GameUpdateFrame> frames = new ArrayList<>();
+        GameSubscription gameSubscription = gameUpdatesBroadcaster.subscribe(GAME_ID, frames::add, () -> {});
+
+        // Act
+        heartbeatService.register(USER, gameSubscription);
+
+        // Assert
+        PingResponse pingResponse = new PingResponse(USER.id(), USER.username(), TIMESTAMP);
+
+        assertEquals(1, frames.size());
+        assertTrue(frames.getFirst().isPing());
+        assertEquals("PING", frames.getFirst().sseEvent());
+        assertEquals(
+            JsonUtils.objectMapper.readTree(JsonUtils.objectMapper.writeValueAsString(pingResponse)),
+            JsonUtils.objectMapper.readTree(frames.getFirst().sseData())
+        );
+        assertEquals(
+            JsonUtils.objectMapper.readTree(
+                JsonUtils.objectMapper.writeValueAsString(new WebSocketResponse<>(WebSocketResponse.Type.PING, pingResponse))
+            ),
+            JsonUtils.objectMapper.readTree(frames.getFirst().webSocketMessage())
+        );
+    }
+
+    @Test
+    void shouldPingEachConnectionOncePerRevolution() throws Exception {
+        // Arrange
+        List<GameUpdateFrame> frames = new ArrayList<>();
+        heartbeatService.register(USER, gameUpdatesBroadcaster.subscribe(GAME_ID, frames::add, () -> {}));
+
+        Instant later = TIMESTAMP.plusSeconds(10);
+        when(clock.instant()).thenReturn(later);
+
+        // Act
+        for (int i = 0; i < TICKS_PER_WHEEL - 1; i++) {
+            heartbeatService.tick();
+        }
+
+        // Assert
+        assertEquals(1, frames.size());
+
+        heartbeatService.tick();
+
+        assertEquals(2, frames.size());
+        assertEquals(
+            JsonUtils.objectMapper.writeValueAsString(new PingResponse(USER.id(), USER.username(), later)),
+            frames.getLast().sseData()
+        );
+    }
+
+    @Test
+    void shouldStopPingingCancelledAndClosedConnections() throws Exception {
+        // Arrange
+        List<GameUpdateFrame> cancelledFrames = new ArrayList<>();
+        List<GameUpdateFrame> closedFrames = new ArrayList<>();
+
+        HeartbeatService.Heartbeat heartbeat =
+            heartbeatService.register(USER, gameUpdatesBroadcaster.subscribe(GAME_ID, cancelledFrames::add, () -> {}));
+
+        GameSubscription closedSubscription = gameUpdatesBroadcaster.subscribe(GAME_ID, closedFrames::add, () -> {});
+        heartbeatService.register(USER, closedSubscription);
+
+        assertEquals(2, metricsRegistry.snapshot().get("heartbeat.connections"));
+
+        // Act
+        heartbeat.cancel();
+        gameUpdatesBroadcaster.unsubscribe(closedSubscription);
+        revolve();
+
+        // Assert
+        assertEquals(1, cancelledFrames.size());
+        assertEquals(1, closedFrames.size());
+        assertEquals(0, metricsRegistry.snapshot().get("heartbeat.connections"));
+    }
+
+    @Test
+    void shouldPingEveryIdleConnectionOncePerRevolutionAtScale() throws Exception {
+        // Arrange
+        int connectionCount = 100_000;
+        AtomicInteger pings = new AtomicInteger();
+
+        for (int i = 0; i < connectionCount; i++) {
+            // Spread the connections across the wheel the same way as connections arriving over time
+            if (i % (connectionCount / TICKS_PER_WHEEL) == 0) {
+                heartbeatService.tick();
+            }
+
+            heartbeatService.register(USER, gameUpdatesBroadcaster.subscribe(GAME_ID, frame -> pings.incrementAndGet(), () -> {}));
+        }
+
+        pings.set(0);
+
+        // Act
+        revolve();
+
+        // Assert
+        assertEquals(connectionCount, pings.get());
+        assertEquals(connectionCount, heartbeatService.size());
+    }
+
+    @Test
+    void shouldRejectEmptyWheels() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new HeartbeatService(0, JsonUtils.objectMapper, clock, metricsRegistry)
+        );
+    }
+}
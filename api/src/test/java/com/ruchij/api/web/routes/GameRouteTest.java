@@ -0,0 +1,275 @@
+package com.ruchij.api.web.routes;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ruchij.api.ApiApp;
+import com.ruchij.api.dao.game.models.Game;
+import com.ruchij.api.dao.user.models.User;
+import com.ruchij.api.exception.ResourceNotFoundException;
+import com.ruchij.api.metrics.MetricsRegistry;
+import com.ruchij.api.service.auth.AuthenticationService;
+import com.ruchij.api.service.game.GameService;
+import com.ruchij.api.service.game.models.GameVersion;
+import com.ruchij.api.service.game.models.PendingGameVersion;
+import com.ruchij.api.service.health.HealthService;
+import com.ruchij.api.service.user.UserService;
+import com.ruchij.api.utils.JsonUtils;
+import com.ruchij.api.web.Routes;
+import com.ruchij.api.web.broadcast.GameSubscription;
+import com.ruchij.api.web.broadcast.GameUpdatesBroadcaster;
+import com.ruchij.api.web.broadcast.HeartbeatService;
+import com.ruchij.api.web.middleware.ExceptionMapper;
+import io.javalin.Javalin;
+import io.javalin.testtools.JavalinTest;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class GameRouteTest {
+    private static final Instant TIMESTAMP = Instant.parse("2023-01-01T12:00:00Z");
+    private static final String TOKEN = "token";
+    private static final User USER = new User("user-id", "username", Optional.empty(), TIMESTAMP);
+
+    private GameService gameService;
+    private GameUpdatesBroadcaster gameUpdatesBroadcaster;
+    private HeartbeatService heartbeatService;
+    private Routes routes;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        gameService = mock(GameService.class);
+        gameUpdatesBroadcaster = mock(GameUpdatesBroadcaster.class);
+        heartbeatService = mock(HeartbeatService.class);
+        AuthenticationService authenticationService = mock(AuthenticationService.class);
+        when(authenticationService.authenticate(TOKEN)).thenReturn(USER);
+
+        routes = new Routes(
+            mock(UserService.class),
+            gameService,
+            authenticationService,
+            mock(HealthService.class),
+            gameUpdatesBroadcaster,
+            new MetricsRegistry(),
+            Optional.empty(),
+            heartbeatService
+        );
+    }
+
+    private Game game(Optional<Game.Winner> winner) {
+        return new Game(
+            "game-id",
+            "Title",
+            TIMESTAMP,
+            USER.id(),
+            TIMESTAMP,
+            USER.id(),
+            "other-user-id",
+            new ArrayList<>(List.of(new Game.Move("game-id-0", USER.id(), TIMESTAMP, new Game.Coordinate(0, 0)))),
+            winner
+        );
+    }
+
+    @Test
+    void shouldNotReadThePendingGamesWhenTheLobbyHasNotChanged() {
+        when(gameService.getLobbyVersion()).thenReturn("1-2");
+        when(gameService.getPendingGames(anyInt(), anyInt())).thenReturn(List.of());
+
+        JavalinTest.test(ApiApp.javalin(routes, List.of()), (server, client) -> {
+            Response response = client.get("/game/pending", request -> request.header("Authorization", "Bearer " + TOKEN));
+
+            assertEquals(200, response.code());
+            assertEquals("\"lobby-1-2\"", response.header("ETag"));
+
+            Response conditionalResponse = client.get(
+                "/game/pending",
+                request -> request.header("Authorization", "Bearer " + TOKEN).header("If-None-Match", "\"lobby-1-2\"")
+            );
+
+            assertEquals(304, conditionalResponse.code());
+            verify(gameService, times(1)).getPendingGames(anyInt(), anyInt());
+        });
+    }
+
+    @Test
+    void shouldRespondNotModifiedForUnchangedGames() throws Exception {
+        when(gameService.getGameById("game-id")).thenReturn(game(Optional.empty()));
+
+        JavalinTest.test(ApiApp.javalin(routes, List.of()), (server, client) -> {
+            Response response = client.get(
+                "/game/id/game-id",
+                request -> request.header("Authorization", "Bearer " + TOKEN).header("If-None-Match", "W/\"game-game-id-1-active\"")
+            );
+
+            assertEquals(304, response.code());
+            assertEquals("\"game-game-id-1-active\"", response.header("ETag"));
+            assertEquals("no-cache", response.header("Cache-Control"));
+        });
+    }
+
+    @Test
+    void shouldNotReadGamesWhoseVersionIsKnown() {
+        when(gameService.getGameVersion("game-id")).thenReturn(Optional.of(new GameVersion("game-id", 1, false)));
+
+        JavalinTest.test(ApiApp.javalin(routes, List.of()), (server, client) -> {
+            Response response = client.get(
+                "/game/id/game-id",
+                request -> request.header("Authorization", "Bearer " + TOKEN).header("If-None-Match", "\"game-game-id-1-active\"")
+            );
+
+            assertEquals(304, response.code());
+            verify(gameService, never()).getGameById(anyString());
+        });
+    }
+
+    @Test
+    void shouldNotReadPendingGamesWhoseVersionIsKnown() throws Exception {
+        when(gameService.getPendingGameVersion("game-id"))
+            .thenReturn(Optional.of(new PendingGameVersion("game-id", false)));
+
+        JavalinTest.test(ApiApp.javalin(routes, List.of()), (server, client) -> {
+            Response response = client.get(
+                "/game/pending/id/game-id",
+                request -> request.header("Authorization", "Bearer " + TOKEN).header("If-None-Match", "\"pending-game-id-open\"")
+            );
+
+            assertEquals(304, response.code());
+            assertEquals("\"pending-game-id-open\"", response.header("ETag"));
+            verify(gameService, never()).getPendingGameById(anyString());
+        });
+    }
+
+    @Test
+    void shouldNotTreatUnknownPendingGamesAsUnmodified() throws Exception {
+        when(gameService.getPendingGameById("game-id"))
+            .thenThrow(new ResourceNotFoundException("Error finding pending game with pendingGameId=game-id"));
+
+        Javalin app = ApiApp.javalin(routes, List.of());
+        ExceptionMapper.handle(app);
+
+        JavalinTest.test(app, (server, client) -> {
+            Response response = client.get(
+                "/game/pending/id/game-id",
+                request -> request.header("Authorization", "Bearer " + TOKEN).header("If-None-Match", "\"pending-game-id-open\"")
+            );
+
+            assertEquals(404, response.code());
+        });
+    }
+
+    @Test
+    void shouldLetClientsCacheFinishedGames() throws Exception {
+        Game.Winner winner = new Game.Winner(USER.id(), Game.WinningRule.Horizontal, List.of());
+        when(gameService.getGameById("game-id")).thenReturn(game(Optional.of(winner)));
+
+        JavalinTest.test(ApiApp.javalin(routes, List.of()), (server, client) -> {
+            Response response = client.get("/game/id/game-id", request -> request.header("Authorization", "Bearer " + TOKEN));
+
+            assertEquals(200, response.code());
+            assertEquals("\"game-game-id-1-finished\"", response.header("ETag"));
+            assertTrue(response.header("Cache-Control").contains("immutable"));
+        });
+    }
+
+    @Test
+    void shouldRespondWithTheLatestMovesAndTheMoveCountOfGames() throws Exception {
+        // The game has made 6 moves, of which only the latest 2 are held
+        Game game = new Game(
+            "game-id",
+            "Title",
+            TIMESTAMP,
+            USER.id(),
+            TIMESTAMP,
+            USER.id(),
+            "other-user-id",
+            new ArrayList<>(List.of(
+                new Game.Move("game-id-4", USER.id(), TIMESTAMP, new Game.Coordinate(0, 0)),
+                new Game.Move("game-id-5", "other-user-id", TIMESTAMP, new Game.Coordinate(1, 0))
+            )),
+            Optional.empty(),
+            4
+        );
+        when(gameService.getGameById("game-id")).thenReturn(game);
+
+        JavalinTest.test(ApiApp.javalin(routes, List.of()), (server, client) -> {
+            Response response = client.get("/game/id/game-id", request -> request.header("Authorization", "Bearer " + TOKEN));
+
+            assertEquals(200, response.code());
+
+            JsonNode body = JsonUtils.objectMapper.readTree(response.body().string());
+            List<String> fieldNames = new ArrayList<>();
+            body.fieldNames().forEachRemaining(fieldNames::add);
+
+            assertEquals(
+                List.of(
+                    "id",
+                    "title",
+                    "createdAt",
+                    "createdBy",
+                    "startedAt",
+                    "playerOneId",
+                    "playerTwoId",
+                    "moves",
+                    "moveCount",
+                    "winner"
+                ),
+                fieldNames
+            );
+            assertEquals(6, body.get("moveCount").asInt());
+            assertEquals(2, body.get("moves").size());
+            assertEquals("game-id-4", body.get("moves").get(0).get("id").asText());
+        });
+    }
+
+    @Test
+    void shouldOnlyCloseTheWebSocketWhichDisconnected() throws Exception {
+        GameSubscription firstSubscription = mock(GameSubscription.class);
+        GameSubscription secondSubscription = mock(GameSubscription.class);
+        HeartbeatService.Heartbeat firstHeartbeat = mock(HeartbeatService.Heartbeat.class);
+        HeartbeatService.Heartbeat secondHeartbeat = mock(HeartbeatService.Heartbeat.class);
+
+        when(gameUpdatesBroadcaster.subscribe(eq("game-id"), any(), any()))
+            .thenReturn(firstSubscription, secondSubscription);
+        when(heartbeatService.register(USER, firstSubscription)).thenReturn(firstHeartbeat);
+        when(heartbeatService.register(USER, secondSubscription)).thenReturn(secondHeartbeat);
+
+        JavalinTest.test(ApiApp.javalin(routes, List.of()), (server, client) -> {
+            Request request = new Request.Builder()
+                .url("ws://localhost:%s/game/id/game-id/updates".formatted(server.port()))
+                .header("Cookie", "auth_token=" + TOKEN)
+                .build();
+
+            WebSocket firstWebSocket = client.getOkHttp().newWebSocket(request, new WebSocketListener() {});
+            verify(heartbeatService, timeout(5_000)).register(USER, firstSubscription);
+
+            WebSocket secondWebSocket = client.getOkHttp().newWebSocket(request, new WebSocketListener() {});
+            verify(heartbeatService, timeout(5_000)).register(USER, secondSubscription);
+
+            firstWebSocket.close(1000, "Done");
+
+            verify(gameUpdatesBroadcaster, timeout(5_000)).unsubscribe(firstSubscription);
+            verify(firstHeartbeat).cancel();
+            verify(gameUpdatesBroadcaster, never()).unsubscribe(secondSubscription);
+            verify(secondHeartbeat, never()).cancel();
+
+            secondWebSocket.close(1000, "Done");
+
+            verify(gameUpdatesBroadcaster, timeout(5_000)).unsubscribe(secondSubscription);
+            verify(secondHeartbeat).cancel();
+        });
+    }
+}
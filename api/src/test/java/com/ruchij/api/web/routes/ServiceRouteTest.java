@@ -1,26 +1,31 @@
 package com.ruchij.api.web.routes;
 
 import com.ruchij.api.ApiApp;
+import com.ruchij.api.metrics.MetricsRegistry;
 import com.ruchij.api.service.auth.AuthenticationService;
 import com.ruchij.api.service.game.GameService;
 import com.ruchij.api.service.health.HealthService;
 import com.ruchij.api.service.health.models.ServiceInformation;
 import com.ruchij.api.service.user.UserService;
 import com.ruchij.api.web.Routes;
+import com.ruchij.api.web.broadcast.GameUpdatesBroadcaster;
+import com.ruchij.api.web.broadcast.HeartbeatService;
+import com.ruchij.api.web.middleware.ExceptionMapper;
+import io.javalin.Javalin;
 import io.javalin.testtools.JavalinTest;
 import okhttp3.Response;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
-import java.time.Clock;
 import java.time.Instant;
 import java.util.List;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Optional;
 
 import static com.ruchij.api.utils.JsonUtils.objectMapper;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class ServiceRouteTest {
+    private static final String METRICS_TOKEN = "metrics-token";
 
     @Test
     void shouldReturnServiceInformation() {
@@ -28,8 +33,6 @@ class ServiceRouteTest {
         GameService gameService = Mockito.mock(GameService.class);
         AuthenticationService authenticationService = Mockito.mock(AuthenticationService.class);
         HealthService healthService = Mockito.mock(HealthService.class);
-        ScheduledExecutorService scheduledExecutorService = Mockito.mock(ScheduledExecutorService.class);
-        Clock clock = Mockito.mock(Clock.class);
 
         Instant timestamp = Instant.parse("2023-02-05T04:37:42.566735Z");
 
@@ -50,8 +53,10 @@ class ServiceRouteTest {
             gameService,
             authenticationService,
             healthService,
-            scheduledExecutorService,
-            clock
+            Mockito.mock(GameUpdatesBroadcaster.class),
+            new MetricsRegistry(),
+            Optional.empty(),
+            Mockito.mock(HeartbeatService.class)
         );
 
         JavalinTest.test(ApiApp.javalin(routes, List.of()), ((server, client) -> {
@@ -78,4 +83,64 @@ class ServiceRouteTest {
         }));
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldReturnMetricsToHoldersOfTheMetricsToken() {
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        metricsRegistry.counter("broadcast.frames.dropped").add(3);
+        metricsRegistry.gauge("broadcast.subscribers", () -> 2);
+
+        JavalinTest.test(javalin(metricsRegistry, Optional.of(METRICS_TOKEN)), ((server, client) -> {
+            Response response =
+                client.get("/service/metrics", request -> request.header("Authorization", "Bearer " + METRICS_TOKEN));
+            assertEquals(200, response.code());
+
+            String expectedResponseBody = """
+                {
+                    "broadcast.frames.dropped": 3,
+                    "broadcast.subscribers": 2
+                }
+                """;
+
+            assertEquals(
+                objectMapper.readTree(expectedResponseBody),
+                objectMapper.readTree(response.body().byteStream())
+            );
+        }));
+    }
+
+    @Test
+    void shouldNotReturnMetricsWithoutTheMetricsToken() {
+        JavalinTest.test(javalin(new MetricsRegistry(), Optional.of(METRICS_TOKEN)), ((server, client) -> {
+            assertEquals(401, client.get("/service/metrics").code());
+            assertEquals(
+                401,
+                client.get("/service/metrics", request -> request.header("Authorization", "Bearer other-token")).code()
+            );
+        }));
+    }
+
+    @Test
+    void shouldNotServeMetricsWhenNoMetricsTokenIsConfigured() {
+        JavalinTest.test(javalin(new MetricsRegistry(), Optional.empty()), ((server, client) -> {
+            assertEquals(404, client.get("/service/metrics").code());
+        }));
+    }
+
+    private static Javalin javalin(MetricsRegistry metricsRegistry, Optional<String> metricsToken) {
+        Routes routes = new Routes(
+            Mockito.mock(UserService.class),
+            Mockito.mock(GameService.class),
+            Mockito.mock(AuthenticationService.class),
+            Mockito.mock(HealthService.class),
+            Mockito.mock(GameUpdatesBroadcaster.class),
+            metricsRegistry,
+            metricsToken,
+            Mockito.mock(HeartbeatService.class)
+        );
+
+        Javalin app = ApiApp.javalin(routes, List.of());
+        ExceptionMapper.handle(app);
+
+        return app;
+    }
+}
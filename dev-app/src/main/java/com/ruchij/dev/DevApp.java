@@ -2,15 +2,26 @@ package com.ruchij.dev;
 
 import com.ruchij.api.ApiApp;
 import com.ruchij.api.config.ApplicationConfiguration;
+import com.ruchij.api.config.AuthenticationCacheConfiguration;
+import com.ruchij.api.config.AuthenticationConfiguration;
+import com.ruchij.api.config.BroadcastConfiguration;
+import com.ruchij.api.config.FinishedGameCacheConfiguration;
+import com.ruchij.api.config.GameCacheConfiguration;
+import com.ruchij.api.config.GameConfiguration;
+import com.ruchij.api.config.GuestPoolConfiguration;
 import com.ruchij.api.config.HttpConfiguration;
 import com.ruchij.api.config.MongoConfiguration;
+import com.ruchij.api.config.PasswordHashingConfiguration;
+import com.ruchij.api.config.TokenRevocationConfiguration;
 import com.ruchij.dev.container.FrontEndContainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testcontainers.containers.MongoDBContainer;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 
 public class DevApp {
     private static final Logger logger = LoggerFactory.getLogger(DevApp.class);
@@ -25,8 +36,39 @@ public class DevApp {
         String frontEndUrl = frontEndContainer.getUrl();
 
         MongoConfiguration mongoConfiguration = new MongoConfiguration(mongoConnectionUrl, "tic-tac-toe", "dev");
-        HttpConfiguration httpConfiguration = new HttpConfiguration(8080, List.of(frontEndUrl));
-        ApplicationConfiguration applicationConfiguration = new ApplicationConfiguration(mongoConfiguration, httpConfiguration);
+        HttpConfiguration httpConfiguration = new HttpConfiguration(8080, List.of(frontEndUrl), Optional.empty());
+        GameCacheConfiguration gameCacheConfiguration =
+            new GameCacheConfiguration(false, 10_000, Duration.ofMinutes(10), Duration.ofSeconds(1));
+        FinishedGameCacheConfiguration finishedGameCacheConfiguration =
+            new FinishedGameCacheConfiguration(10_000, 10_000, Duration.ofSeconds(5));
+        GameConfiguration gameConfiguration = new GameConfiguration(
+            GameConfiguration.EngineType.Default,
+            3,
+            3,
+            gameCacheConfiguration,
+            finishedGameCacheConfiguration
+        );
+        BroadcastConfiguration broadcastConfiguration =
+            new BroadcastConfiguration(64, BroadcastConfiguration.OverflowPolicy.Coalesce, Duration.ofSeconds(10));
+        AuthenticationConfiguration authenticationConfiguration = new AuthenticationConfiguration(
+            AuthenticationConfiguration.TokenType.Persistent,
+            Optional.empty(),
+            new AuthenticationCacheConfiguration(10_000, Duration.ofMinutes(5)),
+            new TokenRevocationConfiguration(100_000, Duration.ofMinutes(1))
+        );
+        PasswordHashingConfiguration passwordHashingConfiguration =
+            new PasswordHashingConfiguration(2, 64, Duration.ofMillis(250), 10);
+        GuestPoolConfiguration guestPoolConfiguration =
+            new GuestPoolConfiguration(true, 5, 20, Duration.ofSeconds(5));
+        ApplicationConfiguration applicationConfiguration = new ApplicationConfiguration(
+            mongoConfiguration,
+            httpConfiguration,
+            gameConfiguration,
+            broadcastConfiguration,
+            authenticationConfiguration,
+            passwordHashingConfiguration,
+            guestPoolConfiguration
+        );
 
         logger.info("Front end URL: {}?API_URL={}", frontEndUrl, "http://localhost:%s".formatted(httpConfiguration.port()));
 